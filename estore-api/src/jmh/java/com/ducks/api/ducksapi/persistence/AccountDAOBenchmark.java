@@ -0,0 +1,82 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmarks signing up in the Account File DAO
+ * <br>
+ * Each trial writes the given number of accounts to a temporary file and opens
+ * a DAO on it. Every benchmarked account has a fresh username and a strong
+ * password, so each one is stored.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class AccountDAOBenchmark {
+    @Param({ "100", "10000", "100000", "1000000" })
+    public int size;
+
+    private Path dir;
+    private AccountFileDAO accountDao;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = BenchmarkFiles.createTempDir("account-bench");
+        ObjectMapper objectMapper = BenchmarkFiles.objectMapper();
+        File file = dir.resolve("accounts.json").toFile();
+
+        Account[] accounts = new Account[size];
+        accounts[0] = new OwnerAccount();
+        for (int i = 1; i < size; ++i) {
+            accounts[i] = new UserAccount(i, "user" + i, "Password" + i);
+        }
+        objectMapper.writeValue(file, accounts);
+        accountDao = new AccountFileDAO(file.getPath(), objectMapper);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public Account createAccount() throws IOException {
+        return accountDao.createAccount(new UserAccount(0, "bench" + created.incrementAndGet(), "Password1"));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Account createAccountContended() throws IOException {
+        return createAccount();
+    }
+}
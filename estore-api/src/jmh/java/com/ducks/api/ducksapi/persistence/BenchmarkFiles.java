@@ -0,0 +1,58 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Temporary storage for the DAO benchmarks
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class BenchmarkFiles {
+    private BenchmarkFiles() {
+    }
+
+    /**
+     * @return An object mapper configured like the one Spring hands the DAOs
+     */
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Creates an empty temporary directory for one benchmark trial
+     *
+     * @param prefix Prefix of the directory name
+     *
+     * @return The directory
+     *
+     * @throws IOException when the directory cannot be created
+     */
+    static Path createTempDir(String prefix) throws IOException {
+        return Files.createTempDirectory(prefix);
+    }
+
+    /**
+     * Deletes a temporary directory and everything in it
+     *
+     * @param dir The directory, may be null
+     *
+     * @throws IOException when a file cannot be deleted
+     */
+    static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmarks the duck catalog operations of the Duck File DAO
+ * <br>
+ * Each trial writes a catalog of the given size to a temporary file and opens
+ * a DAO on it. The contended variants run the same operation from 8 threads
+ * against one DAO.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DuckDAOBenchmark {
+    @Param({ "100", "10000", "100000", "1000000" })
+    public int size;
+
+    private Path dir;
+    private DuckFileDAO duckDao;
+    private final AtomicLong created = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = BenchmarkFiles.createTempDir("duck-bench");
+        ObjectMapper objectMapper = BenchmarkFiles.objectMapper();
+        File file = dir.resolve("ducks.json").toFile();
+
+        DuckOutfit outfit = new DuckOutfit(0, 0, 0, 0, 0);
+        Duck[] ducks = new Duck[size];
+        for (int i = 0; i < size; ++i) {
+            ducks[i] = new Duck(i, "Duck " + i, 10, 9.99, Size.MEDIUM, Colors.YELLOW, outfit);
+        }
+        objectMapper.writeValue(file, ducks);
+        duckDao = new DuckFileDAO(file.getPath(), objectMapper);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        duckDao.close();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public Duck getDuck() {
+        return duckDao.getDuck(ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Duck getDuckContended() {
+        return getDuck();
+    }
+
+    @Benchmark
+    public Duck[] findDucks() {
+        return duckDao.findDucks("uck 12");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Duck[] findDucksContended() {
+        return findDucks();
+    }
+
+    @Benchmark
+    public Duck createDuck() throws IOException {
+        // Every duck needs a name of its own or it is rejected as a duplicate
+        return duckDao.createDuck(new Duck(0, "Bench " + created.incrementAndGet(), 1, 1.99, Size.SMALL,
+                Colors.RED, new DuckOutfit(0, 0, 0, 0, 0)));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Duck createDuckContended() throws IOException {
+        return createDuck();
+    }
+}
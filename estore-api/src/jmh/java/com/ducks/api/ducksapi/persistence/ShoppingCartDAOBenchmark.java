@@ -0,0 +1,82 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Benchmarks cart updates in the ShoppingCart File DAO
+ * <br>
+ * Each trial writes one cart per customer to a temporary file and opens a DAO
+ * on it. Every update goes to a random customer, so the contended variant
+ * mostly has threads working on different carts.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ShoppingCartDAOBenchmark {
+    @Param({ "100", "10000", "100000", "1000000" })
+    public int size;
+
+    private Path dir;
+    private ShoppingCartFileDAO cartDao;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        dir = BenchmarkFiles.createTempDir("cart-bench");
+        ObjectMapper objectMapper = BenchmarkFiles.objectMapper();
+        File file = dir.resolve("carts.json").toFile();
+
+        ShoppingCart[] carts = new ShoppingCart[size];
+        for (int i = 0; i < size; ++i) {
+            carts[i] = new ShoppingCart(i, Map.of("1", 1, "2", 2));
+        }
+        objectMapper.writeValue(file, carts);
+        cartDao = new ShoppingCartFileDAO(file.getPath(), objectMapper);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cartDao.close();
+        BenchmarkFiles.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public ShoppingCart updateShoppingCart() throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cartDao.updateShoppingCart(
+                new ShoppingCart(random.nextInt(size), Map.of("1", random.nextInt(1, 10))));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ShoppingCart updateShoppingCartContended() throws IOException {
+        return updateShoppingCart();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ducks.api.ducksapi.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, read from key=value arguments such as
+ * clients=200 duration=60 mix=browse:70,cart:20,checkout:10
+ * <br>
+ * threads=platform runs the server's requests on Tomcat's thread pool,
+ * threads=virtual on a virtual thread each and threads=both runs the test once
+ * with each, one after the other, to compare them
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class LoadSettings {
+    final int clients; // Simulated customers, each with its own cart
+    final int warmupSeconds; // Time run before latencies are recorded
+    final int durationSeconds; // Time latencies are recorded for
+    final int thinkMillis; // Pause between the requests of a customer
+    final int ducks; // Ducks in the generated inventory
+    final int stock; // Starting quantity of every duck
+    final long seed; // Seed of the customers' random choices
+    final Map<Operation, Integer> mix; // Weight of each operation
+    final List<Boolean> virtualThreads; // Server thread modes to run, in order
+
+    private LoadSettings(Map<String, String> args) {
+        clients = intArg(args, "clients", 50);
+        warmupSeconds = intArg(args, "warmup", 5);
+        durationSeconds = intArg(args, "duration", 30);
+        thinkMillis = intArg(args, "think", 0);
+        ducks = intArg(args, "ducks", 100);
+        stock = intArg(args, "stock", 1000);
+        seed = Long.parseLong(args.getOrDefault("seed", "42"));
+        mix = parseMix(args.get("mix"));
+        virtualThreads = parseThreads(args.getOrDefault("threads", "platform"));
+        if (clients < 1 || durationSeconds < 1 || ducks < 1) {
+            throw new IllegalArgumentException("clients, duration and ducks must be at least 1");
+        }
+    }
+
+    /**
+     * @param args Arguments of the form key=value
+     *
+     * @return The settings, with defaults for anything left out
+     *
+     * @throws IllegalArgumentException if an argument is malformed
+     */
+    static LoadSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            values.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return new LoadSettings(values);
+    }
+
+    private static int intArg(Map<String, String> args, String key, int defaultValue) {
+        String value = args.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    /**
+     * @param mix Weights such as browse:60,cart:40, or null for the defaults
+     *
+     * @return The weight of every operation, 0 for any left out of the mix
+     */
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        if (mix == null) {
+            for (Operation operation : Operation.values()) {
+                weights.put(operation, operation.getDefaultWeight());
+            }
+            return weights;
+        }
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, 0);
+        }
+        for (String part : mix.split(",")) {
+            String[] pair = part.split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight but got " + part);
+            }
+            weights.put(Operation.of(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        if (weights.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("The mix needs at least one positive weight");
+        }
+        return weights;
+    }
+
+    /**
+     * @param threads platform, virtual or both
+     *
+     * @return Whether each run uses virtual threads for the server's requests
+     */
+    private static List<Boolean> parseThreads(String threads) {
+        switch (threads) {
+            case "platform":
+                return Arrays.asList(false);
+            case "virtual":
+                return Arrays.asList(true);
+            case "both":
+                return Arrays.asList(false, true);
+            default:
+                throw new IllegalArgumentException("threads must be platform, virtual or both but got " + threads);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("clients=%d warmup=%ds duration=%ds think=%dms ducks=%d stock=%d seed=%d mix=%s",
+                clients, warmupSeconds, durationSeconds, thinkMillis, ducks, stock, seed, mix);
+    }
+}
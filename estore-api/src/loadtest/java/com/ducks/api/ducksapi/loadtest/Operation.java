@@ -0,0 +1,67 @@
+package com.ducks.api.ducksapi.loadtest;
+
+/**
+ * The requests a simulated customer makes against the storefront
+ *
+ * @author SWEN-261-06 Team 8
+ */
+enum Operation {
+    /**
+     * GET /inventory
+     */
+    BROWSE("browse", 60),
+    /**
+     * GET /inventory/search?name=
+     */
+    SEARCH("search", 15),
+    /**
+     * PUT /cart with a new set of items
+     */
+    CART("cart", 15),
+    /**
+     * GET /cart/checkout/validate/{id}
+     */
+    VALIDATE("validate", 5),
+    /**
+     * PUT /cart/checkout/{id}
+     */
+    CHECKOUT("checkout", 5);
+
+    private final String key; // Name used in the mix setting and the report
+    private final int defaultWeight; // Share of the requests when no mix is given
+
+    Operation(String key, int defaultWeight) {
+        this.key = key;
+        this.defaultWeight = defaultWeight;
+    }
+
+    /**
+     * @return Name used in the mix setting and the report
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @return Share of the requests when no mix is given
+     */
+    int getDefaultWeight() {
+        return defaultWeight;
+    }
+
+    /**
+     * @param key Name used in the mix setting
+     *
+     * @return The operation with that name
+     *
+     * @throws IllegalArgumentException if there is no such operation
+     */
+    static Operation of(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+}
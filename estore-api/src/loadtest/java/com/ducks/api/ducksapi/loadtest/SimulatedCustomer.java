@@ -0,0 +1,202 @@
+package com.ducks.api.ducksapi.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.HdrHistogram.Histogram;
+
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * One customer of the storefront, sending its next request as soon as the
+ * previous one is answered
+ * <br>
+ * Each customer owns the cart with its id and is the only one to change it, so
+ * it always knows what the cart holds. That is what lets the run check
+ * afterwards that every unit that left the inventory was sold through a
+ * checkout.
+ * <br>
+ * Being closed loop, a slow response also delays the requests behind it, so
+ * the latencies recorded understate what an open stream of customers would
+ * see once the server saturates.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class SimulatedCustomer implements Runnable {
+    private final int id; // The customer's id, also the id of its cart
+    private final LoadSettings settings; // Settings of the run
+    private final HttpClient client; // Shared by every customer
+    private final String baseUri; // Where the server listens
+    private final ObjectMapper mapper; // Encodes the cart
+    private final Random random; // The customer's choices
+    private final Operation[] wheel; // Operations repeated by weight, picked uniformly
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class); // In microseconds
+    private final Map<Operation, long[]> outcomes = new EnumMap<>(Operation.class); // ok, rejected, errors
+    private final long recordFromNanos; // Requests started before this are warmup
+    private final long stopAtNanos; // No request is started after this
+
+    private Map<String, Integer> cart = new HashMap<>(); // What the customer last put in its cart
+    private long unitsBought; // Units taken out of the inventory by this customer's checkouts
+
+    SimulatedCustomer(int id, LoadSettings settings, HttpClient client, String baseUri, ObjectMapper mapper,
+            long recordFromNanos, long stopAtNanos) {
+        this.id = id;
+        this.settings = settings;
+        this.client = client;
+        this.baseUri = baseUri;
+        this.mapper = mapper;
+        this.random = new Random(settings.seed * 31 + id);
+        this.recordFromNanos = recordFromNanos;
+        this.stopAtNanos = stopAtNanos;
+        this.wheel = settings.mix.entrySet().stream()
+                .flatMap(e -> Collections.nCopies(e.getValue(), e.getKey()).stream())
+                .toArray(Operation[]::new);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram(3));
+            outcomes.put(operation, new long[3]);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long start = System.nanoTime();
+            if (start - stopAtNanos >= 0) {
+                return;
+            }
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            int status;
+            try {
+                status = send(operation);
+            } catch (IOException ioe) {
+                status = -1;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (start - recordFromNanos >= 0) {
+                long micros = (System.nanoTime() - start) / 1000;
+                latencies.get(operation).recordValue(Math.max(1, micros));
+                outcomes.get(operation)[status >= 200 && status < 300 ? 0 : status >= 400 && status < 500 ? 1 : 2]++;
+            }
+            if (settings.thinkMillis > 0) {
+                try {
+                    Thread.sleep(settings.thinkMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends one request and updates what the customer knows about its cart
+     *
+     * @param operation The request to send
+     *
+     * @return The response status
+     */
+    private int send(Operation operation) throws IOException, InterruptedException {
+        switch (operation) {
+            case BROWSE:
+                return status(get("/inventory"));
+            case SEARCH:
+                String term = URLEncoder.encode("Duck " + (1 + random.nextInt(settings.ducks)),
+                        StandardCharsets.UTF_8);
+                return status(get("/inventory/search?name=" + term));
+            case CART:
+                Map<String, Integer> items = new HashMap<>();
+                int kinds = 1 + random.nextInt(3);
+                for (int i = 0; i < kinds; i++) {
+                    items.merge(Integer.toString(1 + random.nextInt(settings.ducks)), 1 + random.nextInt(3),
+                            Integer::sum);
+                }
+                int cartStatus = status(json("PUT", "/cart", cartJson(items)));
+                if (cartStatus == 200) {
+                    cart = items;
+                }
+                return cartStatus;
+            case VALIDATE:
+                return status(get("/cart/checkout/validate/" + id));
+            case CHECKOUT:
+                int checkoutStatus = status(HttpRequest.newBuilder(URI.create(baseUri + "/cart/checkout/" + id))
+                        .PUT(HttpRequest.BodyPublishers.noBody()).build());
+                if (checkoutStatus == 200) {
+                    unitsBought += cart.values().stream().mapToInt(Integer::intValue).sum();
+                    cart = new HashMap<>();
+                }
+                return checkoutStatus;
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    private int status(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path)).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String cartJson(Map<String, Integer> items) throws IOException {
+        return mapper.writeValueAsString(new ShoppingCart(id, items));
+    }
+
+    /**
+     * @return The customer's id, also the id of its cart
+     */
+    int getId() {
+        return id;
+    }
+
+    /**
+     * @return What the customer last put in its cart
+     */
+    Map<String, Integer> getCart() {
+        return cart;
+    }
+
+    /**
+     * @return Units taken out of the inventory by this customer's checkouts
+     */
+    long getUnitsBought() {
+        return unitsBought;
+    }
+
+    /**
+     * @return Latencies of the recorded requests, in microseconds
+     */
+    Map<Operation, Histogram> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * @return Counts of the recorded requests that succeeded, were rejected
+     *         with a 4xx status and failed, by operation
+     */
+    Map<Operation, long[]> getOutcomes() {
+        return outcomes;
+    }
+}
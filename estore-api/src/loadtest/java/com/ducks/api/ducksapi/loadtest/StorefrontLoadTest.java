@@ -0,0 +1,282 @@
+package com.ducks.api.ducksapi.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.ducks.api.ducksapi.DucksApiApplication;
+import com.ducks.api.ducksapi.VirtualThreadConfig;
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Drives storefront traffic against a full copy of the server and reports
+ * throughput and latency per request type
+ * <br>
+ * The server is started in this JVM on a random port, against a generated
+ * inventory in a temporary directory, so runs are repeatable and never touch
+ * the data folder. Simulated customers then browse, search, fill their carts,
+ * validate and check out for the warmup and the measured duration. Once they
+ * stop, the inventory and carts are checked against what the customers did.
+ * <br>
+ * Run with: mvn -P loadtest test-compile exec:exec@loadtest
+ * -Dloadtest.args="clients=200 duration=60"
+ * <br>
+ * With threads=both the test runs once on Tomcat's platform threads and once
+ * on virtual threads, each against fresh data, and ends with a comparison of
+ * the two, e.g. clients=10000 threads=both. The customers themselves run on
+ * virtual threads whenever the JVM has them, so both runs drive the server
+ * the same way.
+ * <br>
+ * Exits with status 1 if an invariant does not hold.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class StorefrontLoadTest {
+    private StorefrontLoadTest() {
+    }
+
+    /**
+     * Runs the load test
+     *
+     * @param args Settings of the form key=value, see {@link LoadSettings}
+     *
+     * @throws Exception if the server cannot be started or the customers cannot
+     *                   be set up
+     */
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.parse(args);
+        if (settings.virtualThreads.contains(true)) {
+            // Fail before the platform run rather than after it
+            VirtualThreadConfig.newVirtualThreadPerTaskExecutor().shutdown();
+        }
+        ObjectMapper mapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        boolean passed = true;
+        List<String> summaries = new ArrayList<>();
+        for (boolean virtualThreads : settings.virtualThreads) {
+            Path dir = Files.createTempDirectory("ducks-loadtest");
+            try {
+                long initialStock = writeData(dir, settings, mapper);
+                ConfigurableApplicationContext context = start(dir, settings, virtualThreads);
+                try {
+                    String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+                    String mode = virtualThreads ? "virtual" : "platform";
+                    System.out.println("Load test " + settings + " threads=" + mode + " against " + baseUri);
+                    List<SimulatedCustomer> customers = run(settings, baseUri, mapper);
+                    summaries.add(String.format("%-9s %s", mode, report(settings, customers)));
+                    passed &= checkInvariants(context, customers, initialStock);
+                } finally {
+                    context.close();
+                }
+            } finally {
+                deleteRecursively(dir);
+            }
+        }
+        if (summaries.size() > 1) {
+            System.out.printf("%-9s %9s %9s %9s %9s %9s%n", "threads", "requests", "req/s", "errors", "p50 ms",
+                    "p99 ms");
+            summaries.forEach(System.out::println);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Writes the starting inventory, an empty cart for every customer and no
+     * accounts
+     *
+     * @return The total quantity of every duck
+     */
+    private static long writeData(Path dir, LoadSettings settings, ObjectMapper mapper) throws IOException {
+        Size[] sizes = Size.values();
+        Colors[] colors = Colors.values();
+        Duck[] ducks = new Duck[settings.ducks];
+        for (int i = 0; i < ducks.length; i++) {
+            int id = i + 1;
+            ducks[i] = new Duck(id, "Duck " + id, settings.stock, 10 + id % 20, sizes[i % sizes.length],
+                    colors[i % colors.length], new DuckOutfit(0, 0, 0, 0, 0));
+        }
+        mapper.writeValue(dir.resolve("ducks.json").toFile(), ducks);
+        Files.writeString(dir.resolve("custom_ducks.json"), "[]");
+        ShoppingCart[] carts = new ShoppingCart[settings.clients];
+        for (int i = 0; i < carts.length; i++) {
+            carts[i] = new ShoppingCart(i + 1);
+        }
+        mapper.writeValue(dir.resolve("carts.json").toFile(), carts);
+        Files.writeString(dir.resolve("accounts.json"), "[]");
+        return (long) settings.ducks * settings.stock;
+    }
+
+    /**
+     * Starts the server against the data in the given directory
+     * <br>
+     * Tomcat accepts a connection from every customer at once, so the thread
+     * mode is what limits how many are served concurrently
+     */
+    private static ConfigurableApplicationContext start(Path dir, LoadSettings settings, boolean virtualThreads) {
+        // Passed as command line arguments, which take precedence over
+        // application.properties, so the data folder is never used
+        return new SpringApplicationBuilder(DucksApiApplication.class)
+                .run("--server.port=0",
+                        "--ducks.file=" + dir.resolve("ducks.json"),
+                        "--custom_ducks.file=" + dir.resolve("custom_ducks.json"),
+                        "--carts.file=" + dir.resolve("carts.json"),
+                        "--accounts.file=" + dir.resolve("accounts.json"),
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.max-connections=" + Math.max(8192, settings.clients + 100),
+                        "--server.tomcat.accept-count=" + Math.max(100, settings.clients),
+                        // The access log would otherwise print every request to the console
+                        "--logging.level.com.ducks.api.ducksapi.access=WARN");
+    }
+
+    /**
+     * Runs every customer on its own thread for the warmup and the measured
+     * duration
+     * <br>
+     * The threads are virtual when the JVM has them, so tens of thousands of
+     * customers cost the load generator little
+     *
+     * @return The customers, once they have all stopped
+     */
+    private static List<SimulatedCustomer> run(LoadSettings settings, String baseUri, ObjectMapper mapper)
+            throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long recordFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.warmupSeconds);
+        long stopAt = recordFrom + TimeUnit.SECONDS.toNanos(settings.durationSeconds);
+        List<SimulatedCustomer> customers = new ArrayList<>();
+        for (int id = 1; id <= settings.clients; id++) {
+            customers.add(new SimulatedCustomer(id, settings, client, baseUri, mapper, recordFrom, stopAt));
+        }
+        ExecutorService threads = VirtualThreadConfig.isAvailable()
+                ? VirtualThreadConfig.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(settings.clients);
+        customers.forEach(threads::execute);
+        threads.shutdown();
+        while (!threads.awaitTermination(1, TimeUnit.MINUTES)) {
+            System.out.println("Waiting for customers to finish their last request");
+        }
+        return customers;
+    }
+
+    /**
+     * Prints the throughput and latency percentiles of each operation
+     *
+     * @return The totals of every operation as one line for the comparison
+     */
+    private static String report(LoadSettings settings, List<SimulatedCustomer> customers) {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, long[]> outcomes = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram(3));
+            outcomes.put(operation, new long[3]);
+        }
+        for (SimulatedCustomer customer : customers) {
+            for (Operation operation : Operation.values()) {
+                latencies.get(operation).add(customer.getLatencies().get(operation));
+                long[] counts = customer.getOutcomes().get(operation);
+                for (int i = 0; i < counts.length; i++) {
+                    outcomes.get(operation)[i] += counts[i];
+                }
+            }
+        }
+
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        System.out.printf("%-9s %9s %9s %9s %9s %9s %9s %9s %9s%n", "operation", "requests", "req/s", "rejected",
+                "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            all.add(histogram);
+            long[] counts = outcomes.get(operation);
+            errors += counts[2];
+            printRow(operation.getKey(), histogram, settings.durationSeconds, counts[1], counts[2]);
+        }
+        printRow("total", all, settings.durationSeconds, -1, -1);
+        return String.format("%9d %9.1f %9d %9.2f %9.2f", all.getTotalCount(),
+                all.getTotalCount() / (double) settings.durationSeconds, errors,
+                all.getValueAtPercentile(50) / 1000.0, all.getValueAtPercentile(99) / 1000.0);
+    }
+
+    private static void printRow(String name, Histogram histogram, int seconds, long rejected, long errors) {
+        System.out.printf("%-9s %9d %9.1f %9s %9s %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(),
+                histogram.getTotalCount() / (double) seconds,
+                rejected < 0 ? "" : Long.toString(rejected), errors < 0 ? "" : Long.toString(errors),
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Checks the inventory and carts the server holds against what the
+     * customers did
+     * <br>
+     * No duck may have a negative quantity, the units that left the inventory
+     * must be exactly the units the customers' successful checkouts bought, and
+     * every cart must hold what its customer last put in it.
+     *
+     * @return true if every invariant holds
+     */
+    private static boolean checkInvariants(ConfigurableApplicationContext context,
+            List<SimulatedCustomer> customers, long initialStock) throws IOException {
+        DuckDAO duckDao = context.getBean("duckFileDAO", DuckDAO.class);
+        ShoppingCartDAO cartDao = context.getBean(ShoppingCartDAO.class);
+        List<String> violations = new ArrayList<>();
+
+        long remaining = 0;
+        for (Duck duck : duckDao.getDucks()) {
+            if (duck.getQuantity() < 0) {
+                violations.add("Duck " + duck.getId() + " has quantity " + duck.getQuantity());
+            }
+            remaining += duck.getQuantity();
+        }
+        long bought = customers.stream().mapToLong(SimulatedCustomer::getUnitsBought).sum();
+        if (initialStock - remaining != bought) {
+            violations.add((initialStock - remaining) + " units left the inventory but checkouts bought " + bought);
+        }
+        for (SimulatedCustomer customer : customers) {
+            ShoppingCart cart = cartDao.getShoppingCart(customer.getId());
+            if (cart == null || !cart.getItems().equals(customer.getCart())) {
+                violations.add("Cart " + customer.getId() + " holds " + (cart == null ? null : cart.getItems())
+                        + " but its customer last put " + customer.getCart());
+            }
+        }
+
+        System.out.println("Units bought: " + bought + " of " + initialStock);
+        if (violations.isEmpty()) {
+            System.out.println("Invariants hold");
+            return true;
+        }
+        violations.forEach(v -> System.out.println("INVARIANT VIOLATED: " + v));
+        return false;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.ducks.api.ducksapi;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs every request on its own virtual thread instead of Tomcat's pool of
+ * platform threads
+ * <br>
+ * Opt in with spring.threads.virtual.enabled=true, the same setting newer
+ * Spring Boot releases use. Virtual threads need Java 21 or newer at run time.
+ * The project still compiles for Java 11, so the executor is looked up
+ * reflectively and startup fails with a clear message on an older JVM.
+ * <br>
+ * The Data Access Objects guard their records with ReentrantLocks rather than
+ * monitors, so a request waiting for one of those locks unmounts from its
+ * carrier thread instead of pinning it. File I/O done while holding a lock
+ * still blocks the carrier for as long as it takes, monitor or not; the JVM
+ * only makes up for it by adding carrier threads.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * @return The executor that starts a virtual thread per request, shut down
+     *         with the context
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        return newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * @param requestExecutor The executor that starts a virtual thread per
+     *                        request
+     *
+     * @return Hands the executor to Tomcat's connector
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler(
+            @Qualifier("requestExecutor") ExecutorService requestExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(requestExecutor);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task
+     *
+     * @return The executor
+     *
+     * @throws IllegalStateException if the JVM has no virtual threads
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or newer, but this is Java "
+                    + Runtime.version(), e);
+        } catch (InvocationTargetException e) {
+            // Java 19 and 20 only have them as a preview feature
+            throw new IllegalStateException("Virtual threads are not enabled on Java " + Runtime.version(),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * @return Whether this JVM can run virtual threads
+     */
+    public static boolean isAvailable() {
+        try {
+            newVirtualThreadPerTaskExecutor().shutdown();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+}
@@ -2,15 +2,31 @@ package com.ducks.api.ducksapi;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.ducks.api.ducksapi.controller.AccessLogInterceptor;
+import com.ducks.api.ducksapi.controller.AccessLogPipeline;
+import com.ducks.api.ducksapi.controller.UserController;
+
 @Configuration
 @EnableWebMvc
 public class WebConfig implements WebMvcConfigurer {
+    private final AccessLogPipeline accessLog;
+
+    public WebConfig(AccessLogPipeline accessLog) {
+        this.accessLog = accessLog;
+    }
 
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
-                .allowedMethods("HEAD", "GET", "PUT", "POST", "DELETE", "PATCH");
+                .allowedMethods("HEAD", "GET", "PUT", "POST", "DELETE", "PATCH")
+                .exposedHeaders(UserController.SESSION_HEADER);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AccessLogInterceptor(accessLog));
     }
-}
\ No newline at end of file
+}
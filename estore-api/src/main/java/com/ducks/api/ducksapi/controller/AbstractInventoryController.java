@@ -4,27 +4,36 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 public abstract class AbstractInventoryController {
     protected DuckDAO duckDao;
     private Logger log;
+    private CatalogResponseCache catalogCache;
+    private ObjectMapper objectMapper;
 
     /**
      * Creates a REST API controller to reponds to requests
      * 
-     * @param duckDao The {@link DuckDAO Duck Data Access Object} to perform CRUD
-     *                operations
-     *                <br>
-     *                This dependency is injected by the Spring Framework
+     * @param duckDao      The {@link DuckDAO Duck Data Access Object} to perform
+     *                     CRUD operations
+     *                     <br>
+     *                     This dependency is injected by the Spring Framework
+     * @param objectMapper Encodes the cached catalog responses
      */
-    protected AbstractInventoryController(DuckDAO duckDao, Logger log) {
+    protected AbstractInventoryController(DuckDAO duckDao, Logger log, ObjectMapper objectMapper) {
         this.duckDao = duckDao;
         this.log = log;
+        this.objectMapper = objectMapper;
+        this.catalogCache = new CatalogResponseCache(duckDao, objectMapper);
     }
 
     /**
@@ -37,8 +46,7 @@ public abstract class AbstractInventoryController {
      *         ResponseEntity with HTTP status of NOT_FOUND if not found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
-    public ResponseEntity<Duck> getDuck(int id, String logMessage) {
-        log.log(Level.INFO, logMessage, id);
+    public ResponseEntity<Duck> getDuck(int id) {
         try {
             Duck duck = duckDao.getDuck(id);
             if (duck != null) {
@@ -61,8 +69,7 @@ public abstract class AbstractInventoryController {
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
-    public ResponseEntity<Duck[]> getDucks(String logMessage) {
-        log.info(logMessage);
+    public ResponseEntity<Duck[]> getDucks() {
         try {
             Duck[] ducks = duckDao.getDucks();
             if (ducks != null && ducks.length != 0) {
@@ -76,26 +83,131 @@ public abstract class AbstractInventoryController {
         }
     }
 
+    /**
+     * Responds to the GET request for all {@linkplain Duck ducks} with the
+     * pre-encoded catalog
+     * <br>
+     * The JSON is only re-encoded when the catalog version changes. Clients that
+     * send back the ETag they were given get a 304 while the catalog is
+     * unchanged, and clients that accept gzip get the pre-compressed bytes.
+     * 
+     * @param ifNoneMatch    The If-None-Match header, may be null
+     * @param acceptEncoding The Accept-Encoding header, may be null
+     * 
+     * @return ResponseEntity with the JSON array of {@link Duck ducks} and HTTP
+     *         status of OK<br>
+     *         ResponseEntity with HTTP status of NOT_MODIFIED if the client's
+     *         ETag is current<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
+     *         found<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    public ResponseEntity<byte[]> getEncodedDucks(String ifNoneMatch, String acceptEncoding) {
+        try {
+            CatalogResponseCache.Encoded catalog = catalogCache.get();
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(catalog.getEtag());
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            if (catalog.matches(ifNoneMatch)) {
+                return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+            }
+            if (catalog.isEmpty()) {
+                return new ResponseEntity<>(headers, HttpStatus.NO_CONTENT);
+            }
+
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            if (acceptsGzip(acceptEncoding)) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                return new ResponseEntity<>(catalog.getGzipped(), headers, HttpStatus.OK);
+            }
+            return new ResponseEntity<>(catalog.getJson(), headers, HttpStatus.OK);
+        } catch (IOException ioe) {
+            log.log(Level.SEVERE, ioe.getLocalizedMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Tells whether an Accept-Encoding header lets the response be gzipped
+     * <br>
+     * gzip (or its alias x-gzip) is acceptable if it is listed with a q-value
+     * above zero, or if it is not listed and * is. A malformed q-value counts as
+     * zero, since the plain JSON is always acceptable.
+     * 
+     * @param acceptEncoding The Accept-Encoding header, may be null
+     * 
+     * @return true if the gzipped bytes can be sent
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase();
+            double q = 1;
+            for (int i = 1; i < parts.length; ++i) {
+                String param = parts[i].trim();
+                if (param.length() > 1 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q')
+                        && param.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    /**
+     * Responds to the GET request for one page of {@linkplain Duck ducks}
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @param limit  The most {@link Duck ducks} to return
+     * @param fields Comma separated names of the fields to keep on each duck, null
+     *               to keep every field
+     * 
+     * @return ResponseEntity with the page and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if the limit is out
+     *         of range or the cursor is malformed<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    public ResponseEntity<Page<?>> getDucksPage(String cursor, int limit, String fields) {
+        return PageResponses.respond(duckDao::getDucksPage, cursor, limit, fields, objectMapper, log);
+    }
+
     /**
      * Responds to the GET request for all {@linkplain Duck ducks} whose name
-     * contains
-     * the text in name
+     * contains the text in name, optionally ignoring case
      * 
-     * @param name The name parameter which contains the text used to find the
-     *             {@link Duck ducks}
+     * @param name       The name parameter which contains the text used to find
+     *                   the {@link Duck ducks}
+     * @param ignoreCase Whether upper and lower case letters match each other
      * 
-     * @return ResponseEntity with array of {@link Duck duck} objects (may be empty)
-     *         and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @return ResponseEntity with array of {@link Duck duck} objects and HTTP
+     *         status of OK<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
-     *         Example: Find all ducks that contain the text "ma"
-     *         GET http://localhost:8080/inventory/?name=ma
+     *         Example: Find all ducks that contain the text "ma" in any case
+     *         GET http://localhost:8080/inventory/search?name=ma&ignoreCase=true
      */
-    public ResponseEntity<Duck[]> searchDucks(String name, String logMessage) {
-        log.log(Level.INFO, logMessage, name);
+    public ResponseEntity<Duck[]> searchDucks(String name, boolean ignoreCase) {
         try {
-            Duck[] ducks = duckDao.findDucks(name);
+            Duck[] ducks = duckDao.findDucks(name, ignoreCase);
 
             if (ducks != null && ducks.length != 0) {
                 return new ResponseEntity<>(ducks, HttpStatus.OK);
@@ -121,8 +233,7 @@ public abstract class AbstractInventoryController {
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      *         Will inherently throw a 400 if the duck is invalid
      */
-    public ResponseEntity<Duck> createDuck(Duck duck, String logMessage) {
-        log.log(Level.INFO, logMessage, duck);
+    public ResponseEntity<Duck> createDuck(Duck duck) {
         try {
             Duck newDuck = duckDao.createDuck(duck);
             if (newDuck != null) {
@@ -147,8 +258,7 @@ public abstract class AbstractInventoryController {
      *         ResponseEntity with HTTP status of NOT_FOUND if not found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
-    public ResponseEntity<Duck> updateDuck(Duck duck, String logMessage) {
-        log.log(Level.INFO, logMessage, duck);
+    public ResponseEntity<Duck> updateDuck(Duck duck) {
         try {
             // Makes sure that a duck with this name & different id does not already exist
             Duck foundDuck = duckDao.getDuckByName(duck.getName());
@@ -177,8 +287,7 @@ public abstract class AbstractInventoryController {
      *         ResponseEntity with HTTP status of NOT_FOUND if not found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
-    public ResponseEntity<Duck> deleteDuck(int id, String logMessage) {
-        log.log(Level.INFO, logMessage, id);
+    public ResponseEntity<Duck> deleteDuck(int id) {
         try {
             if (duckDao.deleteDuck(id)) {
                 return new ResponseEntity<>(HttpStatus.OK);
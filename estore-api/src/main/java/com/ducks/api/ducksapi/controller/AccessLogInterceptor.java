@@ -0,0 +1,61 @@
+package com.ducks.api.ducksapi.controller;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Feeds every request handled by the controllers into the
+ * {@linkplain AccessLogPipeline access log}
+ * <br>
+ * The request is logged by the URI pattern it was mapped to rather than the
+ * URI itself, so ids and query strings never reach the log.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class AccessLogInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = AccessLogInterceptor.class.getName() + ".start";
+    private static final String UNMAPPED = "unmapped";
+
+    private final AccessLogPipeline pipeline; // Where completed requests are sent
+
+    /**
+     * Creates an interceptor feeding the given pipeline
+     *
+     * @param pipeline Where completed requests are sent
+     */
+    public AccessLogInterceptor(AccessLogPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Asynchronous responses come back through a second dispatch once they
+        // complete, which must not restart the clock
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+            Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(start instanceof Long)) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        pipeline.record(request.getMethod(), pattern != null ? pattern.toString() : UNMAPPED,
+                response.getStatus(), System.nanoTime() - (Long) start, ex);
+    }
+}
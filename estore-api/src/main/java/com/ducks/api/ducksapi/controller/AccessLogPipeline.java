@@ -0,0 +1,252 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Writes one structured line per request to the access log, off the request
+ * thread
+ * <br>
+ * Request threads only put a small entry on a bounded buffer and return. A
+ * single background thread takes the entries off in batches, formats them as
+ * key=value lines and hands them to the com.ducks.api.ducksapi.access logger.
+ * If the buffer is full the entry is dropped rather than making the request
+ * wait. Successful requests can be sampled; failed ones are always kept.
+ * <br>
+ * An entry holds the method, the mapped URI pattern, the status, the duration
+ * and the exception class. Request parameters and bodies are never logged, so
+ * passwords and payment details stay out of the log.
+ *
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and injects the instance into other classes as needed
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class AccessLogPipeline {
+    /**
+     * Name of the logger the access log is written to
+     */
+    public static final String LOGGER_NAME = "com.ducks.api.ducksapi.access";
+
+    private static final Logger LOG = Logger.getLogger(LOGGER_NAME);
+    private static final int BATCH_SIZE = 256;
+
+    private final boolean enabled; // Whether requests are logged at all
+    private final double sampleRate; // Share of successful requests that are logged
+    private final BlockingQueue<Entry> buffer; // Entries waiting to be written
+    private final Thread writer; // Takes entries off the buffer, null when disabled
+    private final LongAdder accepted = new LongAdder(); // Entries put on the buffer
+    private final LongAdder dropped = new LongAdder(); // Entries lost to a full buffer
+    private final LongAdder sampledOut = new LongAdder(); // Successful requests skipped by sampling
+    private final LongAdder written = new LongAdder(); // Entries handed to the logger
+    private volatile boolean running = true; // Cleared when the pipeline is closed
+
+    /**
+     * A request waiting to be written
+     */
+    private static final class Entry {
+        private final long epochMillis; // When the request completed
+        private final String method; // The HTTP method
+        private final String uri; // The mapped URI pattern
+        private final int status; // The response status
+        private final long durationNanos; // How long the request took
+        private final String exception; // The class of the exception thrown, or null
+
+        Entry(long epochMillis, String method, String uri, int status, long durationNanos, String exception) {
+            this.epochMillis = epochMillis;
+            this.method = method;
+            this.uri = uri;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * Creates the access log pipeline and starts its writer thread
+     *
+     * @param enabled    Whether requests are logged at all
+     * @param bufferSize Most entries waiting to be written before new ones are
+     *                   dropped
+     * @param sampleRate Share of successful requests that are logged, from 0 to
+     *                   1
+     */
+    public AccessLogPipeline(@Value("${access.log.enabled:true}") boolean enabled,
+            @Value("${access.log.buffer.size:8192}") int bufferSize,
+            @Value("${access.log.sample.rate:1.0}") double sampleRate) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("access.log.buffer.size must be at least 1");
+        }
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("access.log.sample.rate must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        if (enabled) {
+            writer = new Thread(this::drain, "access-log-writer");
+            writer.setDaemon(true);
+            writer.start();
+            bindCounters();
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Queues a completed request to be written
+     * <br>
+     * Never blocks; if the buffer is full the request is counted as dropped
+     *
+     * @param method        The HTTP method
+     * @param uri           The mapped URI pattern, such as /cart/{id}
+     * @param status        The response status
+     * @param durationNanos How long the request took
+     * @param exception     The exception the request threw, or null
+     */
+    public void record(String method, String uri, int status, long durationNanos, Throwable exception) {
+        if (!enabled) {
+            return;
+        }
+        boolean failed = status >= 400 || exception != null;
+        if (!failed && sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        Entry entry = new Entry(System.currentTimeMillis(), method, uri, status, durationNanos,
+                exception == null ? null : exception.getClass().getName());
+        if (buffer.offer(entry)) {
+            accepted.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * @return The number of requests put on the buffer
+     */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return The number of requests lost because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return The number of successful requests skipped by sampling
+     */
+    public long getSampledOut() {
+        return sampledOut.sum();
+    }
+
+    /**
+     * @return The number of requests handed to the logger
+     */
+    public long getWritten() {
+        return written.sum();
+    }
+
+    /**
+     * Stops the writer thread once it has written what is already on the
+     * buffer
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.interrupt();
+            writer.join();
+        }
+    }
+
+    /**
+     * Body of the writer thread: takes entries off the buffer in batches until
+     * the pipeline is closed, then writes whatever is left
+     */
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        StringBuilder line = new StringBuilder(128);
+        while (running) {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException ie) {
+                break;
+            }
+            buffer.drainTo(batch, BATCH_SIZE - 1);
+            write(batch, line);
+        }
+        while (buffer.drainTo(batch, BATCH_SIZE) > 0) {
+            write(batch, line);
+        }
+    }
+
+    /**
+     * Writes a batch of entries to the logger and empties the batch
+     *
+     * @param batch The entries to write
+     * @param line  Reused to build each line
+     */
+    private void write(List<Entry> batch, StringBuilder line) {
+        if (LOG.isLoggable(Level.INFO)) {
+            for (Entry entry : batch) {
+                LOG.info(format(entry, line));
+            }
+        }
+        written.add(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * @param entry A request
+     * @param line  Reused to build the line
+     *
+     * @return The request as a key=value line
+     */
+    private static String format(Entry entry, StringBuilder line) {
+        line.setLength(0);
+        line.append("ts=").append(Instant.ofEpochMilli(entry.epochMillis))
+                .append(" method=").append(entry.method)
+                .append(" uri=").append(entry.uri)
+                .append(" status=").append(entry.status)
+                .append(" us=").append(entry.durationNanos / 1000);
+        if (entry.exception != null) {
+            line.append(" exception=").append(entry.exception);
+        }
+        return line.toString();
+    }
+
+    /**
+     * Publishes the counters with the global registry that Spring Boot feeds
+     * into /actuator/prometheus
+     */
+    private void bindCounters() {
+        FunctionCounter.builder("access.log.accepted", this, AccessLogPipeline::getAccepted)
+                .register(Metrics.globalRegistry);
+        FunctionCounter.builder("access.log.dropped", this, AccessLogPipeline::getDropped)
+                .register(Metrics.globalRegistry);
+        FunctionCounter.builder("access.log.sampled.out", this, AccessLogPipeline::getSampledOut)
+                .register(Metrics.globalRegistry);
+    }
+}
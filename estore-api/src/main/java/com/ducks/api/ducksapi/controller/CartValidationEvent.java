@@ -0,0 +1,33 @@
+package com.ducks.api.ducksapi.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering one validation of a shopping cart
+ * against the inventory
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Name("com.ducks.api.ducksapi.CartValidation")
+@Label("Cart Validation")
+@Category({ "Ducks API", "Checkout" })
+@Description("Checking the items of a shopping cart against the inventory")
+final class CartValidationEvent extends jdk.jfr.Event {
+    @Label("Customer Id")
+    int customerId;
+
+    @Label("Items")
+    @Description("Different ducks in the cart")
+    int items;
+
+    @Label("Invalid Items")
+    @Description("Ducks no longer sold or short of stock")
+    int invalidItems;
+
+    @Label("Status")
+    @Description("HTTP status of the response")
+    int status;
+}
@@ -0,0 +1,153 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Holds the JSON encoding of a duck catalog, plain and gzipped, for the catalog
+ * version it was built from
+ * <br>
+ * The catalog is polled far more often than it changes, so the encoding is only
+ * rebuilt when the {@link DuckDAO#getCatalogVersion() catalog version} moves.
+ * Every other request is served the same bytes.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class CatalogResponseCache {
+    private final DuckDAO duckDao; // The catalog being cached
+    private final ObjectMapper objectMapper; // Encodes the catalog as JSON
+    private final String epoch; // Tells apart versions from different runs of the server
+    private volatile Encoded encoded; // The latest encoding, null until first requested
+
+    /**
+     * Creates a cache for the given catalog
+     *
+     * @param duckDao      The {@link DuckDAO Duck Data Access Object} holding the
+     *                     catalog
+     * @param objectMapper Encodes the catalog as JSON
+     */
+    public CatalogResponseCache(DuckDAO duckDao, ObjectMapper objectMapper) {
+        this.duckDao = duckDao;
+        this.objectMapper = objectMapper;
+        this.epoch = Long.toString(System.currentTimeMillis(), 36);
+    }
+
+    /**
+     * Gets the encoding of the current catalog, building it if the catalog
+     * changed since it was last built
+     *
+     * @return The encoded catalog
+     *
+     * @throws IOException if an issue with underlying storage
+     */
+    public Encoded get() throws IOException {
+        long version = duckDao.getCatalogVersion();
+        Encoded current = encoded;
+        if (current != null && current.version == version) {
+            return current;
+        }
+
+        Duck[] ducks = duckDao.getDucks();
+        Encoded built = new Encoded(version, "\"" + epoch + "-" + version + "\"", ducks);
+        // Only keep it if no write slipped in between reading the version and the
+        // ducks, otherwise the bytes could be stored under the wrong version
+        if (duckDao.getCatalogVersion() == version) {
+            encoded = built;
+        }
+        return built;
+    }
+
+    /**
+     * Gzips the given bytes
+     *
+     * @param bytes The bytes to compress
+     *
+     * @return The compressed bytes
+     *
+     * @throws IOException never in practice, the stream is in memory
+     */
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * The catalog encoded for one version
+     */
+    public final class Encoded {
+        private final long version;
+        private final String etag;
+        private final boolean empty;
+        private final byte[] json;
+        private final byte[] gzipped;
+
+        private Encoded(long version, String etag, Duck[] ducks) throws IOException {
+            this.version = version;
+            this.etag = etag;
+            this.empty = ducks == null || ducks.length == 0;
+            this.json = empty ? new byte[0] : objectMapper.writeValueAsBytes(ducks);
+            this.gzipped = empty ? new byte[0] : gzip(json);
+        }
+
+        /**
+         * @return The entity tag identifying this version of the catalog,
+         *         including its quotes
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return true if the catalog has no ducks
+         */
+        public boolean isEmpty() {
+            return empty;
+        }
+
+        /**
+         * @return The catalog as a JSON array. Shared, must not be modified
+         */
+        public byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * @return The gzipped JSON array. Shared, must not be modified
+         */
+        public byte[] getGzipped() {
+            return gzipped;
+        }
+
+        /**
+         * Checks whether a client already holds this version of the catalog
+         *
+         * @param ifNoneMatch The If-None-Match header sent by the client, may be
+         *                    null
+         *
+         * @return true if one of the tags in the header matches this version
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -6,18 +6,23 @@ import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Reservation;
 import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.InventoryReservations;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
 
 /**
@@ -36,37 +41,66 @@ public class CheckoutController {
     private static final Logger LOG = Logger.getLogger(CheckoutController.class.getName());
     private ShoppingCartDAO cartDao;
     private DuckDAO duckDao;
+    private InventoryReservations reservations;
 
     /**
      * Creates a REST API controller to reponds to requests
      * 
-     * @param cartDao The {@link ShoppingCatDAO Cart Data Access Object} to
-     *                perform
-     *                CRUD operations<br>
-     *                This dependency is injected by the Spring Framework
+     * @param cartDao      The {@link ShoppingCatDAO Cart Data Access Object} to
+     *                     perform CRUD operations<br>
+     *                     This dependency is injected by the Spring Framework
      * 
-     * @param duckDAO The {@link DuckDAO Duck Data Access Object} to perform CRUD
-     *                operations
-     *                <br>
-     *                This dependency is injected by the Spring Framework
+     * @param duckDAO      The {@link DuckDAO Duck Data Access Object} to perform
+     *                     CRUD operations<br>
+     *                     This dependency is injected by the Spring Framework
+     * 
+     * @param reservations Holds inventory for customers while they check out<br>
+     *                     This dependency is injected by the Spring Framework
      */
-    public CheckoutController(ShoppingCartDAO cartDAO, @Qualifier("duckFileDAO") DuckDAO duckDAO) {
+    @Autowired
+    public CheckoutController(ShoppingCartDAO cartDAO, @Qualifier("duckFileDAO") DuckDAO duckDAO,
+            InventoryReservations reservations) {
         this.cartDao = cartDAO;
         this.duckDao = duckDAO;
+        this.reservations = reservations;
     }
 
     /**
      * Checks out a shopping cart; UPDATES the CART and the INVENTORY
+     * <br>
+     * Uses the customer's reservation if it still matches the cart, otherwise
+     * reserves the cart's items first
+     * <br>
+     * Each checkout is recorded as a {@link CheckoutEvent} for the flight
+     * recorder
      * 
      * @param id The id of the cart
      * @return 200 if the cart has only valid items
-     *         422 if the cart is empty or contains invalid items
+     *         422 if the cart is empty, contains invalid items or the inventory
+     *         no longer covers it
      *         404 if the cart does not exist
      *         500 if the cartDao or duckDao fails
      */
     @PutMapping("/{id}")
     public ResponseEntity<ShoppingCart> checkout(@PathVariable int id) {
-        LOG.log(Level.INFO, "PUT /cart/checkout/{0}", id);
+        CheckoutEvent event = new CheckoutEvent();
+        event.begin();
+        ResponseEntity<ShoppingCart> response = checkout(id, event);
+        event.customerId = id;
+        event.status = response.getStatusCodeValue();
+        event.commit();
+        return response;
+    }
+
+    /**
+     * Checks out a shopping cart, see {@link #checkout(int)}
+     * 
+     * @param id    The id of the cart
+     * @param event Flight recorder event of the checkout, given the size of the
+     *              cart
+     * @return The response to the checkout
+     */
+    private ResponseEntity<ShoppingCart> checkout(int id, CheckoutEvent event) {
         try {
             ShoppingCart cart = cartDao.getShoppingCart(id);
             // 404
@@ -81,23 +115,34 @@ public class CheckoutController {
             }
 
             // Loops through cart items
+            Map<Integer, Integer> quantities = new HashMap<>();
             for (Map.Entry<String, Integer> entry : cart.getItems().entrySet()) {
                 // Because of previous item validation, it is theoretically not possible for
-                // entry.getKey() to not be a number. Just in case, NPE is caught. 500 is the
+                // entry.getKey() to not be a number. Just in case, NFE is caught. 500 is the
                 // correct response
-                int duckId = Integer.parseInt(entry.getKey());
-                int quantityReq = entry.getValue();
+                quantities.merge(Integer.parseInt(entry.getKey()), entry.getValue(), Integer::sum);
+                event.units += entry.getValue();
+            }
+            event.items = quantities.size();
 
-                // Because of previous item validation, it is theoretically not possible for
-                // duck to be null. Just in case, NPE is caught. 500 is the correct response
-                Duck duck = duckDao.getDuck(duckId);
-                duck.setQuantity(duck.getQuantity() - quantityReq);
-                duckDao.updateDuck(duck);
+            // Hold the items unless the customer already holds exactly these, so no
+            // other customer can be sold the same units
+            Reservation reservation = reservations.getReservation(id);
+            if (reservation == null || !reservation.getItems().equals(quantities)) {
+                reservation = reservations.reserve(id, quantities);
+            }
+            // Take every held item out of the inventory in one step. This fails without
+            // changing anything if the stock ran out since validation
+            // 422
+            if (reservation == null || !reservations.commit(id)) {
+                return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
             }
 
-            // Clear the items and update the cart
+            // Clear the items and update the cart. The inventory has already changed, so
+            // wait for the cleared cart to reach storage before reporting success
             cart.setItems(new HashMap<>());
             cartDao.updateShoppingCart(cart);
+            cartDao.flush();
 
             // 200
             return new ResponseEntity<>(cart, HttpStatus.OK);
@@ -109,8 +154,86 @@ public class CheckoutController {
         }
     }
 
+    /**
+     * Holds the items in a shopping cart for the customer while they check out
+     * 
+     * @param id The id of the cart
+     * @return 201 + the reservation if every item was held
+     *         422 if the cart is empty or the inventory does not cover it
+     *         404 if the cart does not exist
+     *         500 if the cartDao or duckDao fails
+     */
+    @PostMapping("/{id}/reservation")
+    public ResponseEntity<Reservation> reserve(@PathVariable int id) {
+        try {
+            ShoppingCart cart = cartDao.getShoppingCart(id);
+            // 404
+            if (cart == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+
+            Map<Integer, Integer> quantities = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : cart.getItems().entrySet()) {
+                quantities.merge(Integer.parseInt(entry.getKey()), entry.getValue(), Integer::sum);
+            }
+
+            Reservation reservation = quantities.isEmpty() ? null : reservations.reserve(id, quantities);
+            // 422
+            if (reservation == null) {
+                return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+            // 201
+            return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+        } catch (NumberFormatException nfe) {
+            // 422
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (IOException ioe) {
+            LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+            // 500
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * Gets the hold a customer currently has on inventory
+     * 
+     * @param id The id of the customer's cart
+     * @return 200 + the reservation
+     *         404 if the customer has no live reservation
+     */
+    @GetMapping("/{id}/reservation")
+    public ResponseEntity<Reservation> getReservation(@PathVariable int id) {
+        Reservation reservation = reservations.getReservation(id);
+        if (reservation == null) {
+            // 404
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // 200
+        return new ResponseEntity<>(reservation, HttpStatus.OK);
+    }
+
+    /**
+     * Gives back the hold a customer has on inventory
+     * 
+     * @param id The id of the customer's cart
+     * @return 200 if the reservation was released
+     *         404 if the customer has no reservation
+     */
+    @DeleteMapping("/{id}/reservation")
+    public ResponseEntity<Reservation> releaseReservation(@PathVariable int id) {
+        if (reservations.release(id)) {
+            // 200
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        // 404
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
     /**
      * Validates a given shopping cart; does NOT update the cart in the dao
+     * <br>
+     * Each validation is recorded as a {@link CartValidationEvent} for the
+     * flight recorder
      * 
      * @param id The id of the cart
      * @return 200 if the cart has no invalid items
@@ -120,7 +243,24 @@ public class CheckoutController {
      */
     @GetMapping("/validate/{id}")
     public ResponseEntity<ShoppingCart> validateCart(@PathVariable int id) {
-        LOG.log(Level.INFO, "GET /cart/checkout/validate/%d{0}", id);
+        CartValidationEvent event = new CartValidationEvent();
+        event.begin();
+        ResponseEntity<ShoppingCart> response = validateCart(id, event);
+        event.customerId = id;
+        event.status = response.getStatusCodeValue();
+        event.commit();
+        return response;
+    }
+
+    /**
+     * Validates a given shopping cart, see {@link #validateCart(int)}
+     * 
+     * @param id    The id of the cart
+     * @param event Flight recorder event of the validation, given the number of
+     *              items and invalid items
+     * @return The response to the validation
+     */
+    private ResponseEntity<ShoppingCart> validateCart(int id, CartValidationEvent event) {
         try {
             ShoppingCart cart = cartDao.getShoppingCart(id);
             // 404
@@ -129,6 +269,8 @@ public class CheckoutController {
             }
 
             Map<String, Duck> invalidItems = getInvalidItems(cart);
+            event.items = cart.getItems().size();
+            event.invalidItems = invalidItems.size();
             // 200
             if (invalidItems.isEmpty()) {
                 return new ResponseEntity<>(HttpStatus.OK);
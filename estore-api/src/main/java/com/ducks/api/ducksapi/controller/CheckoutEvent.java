@@ -0,0 +1,32 @@
+package com.ducks.api.ducksapi.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering one checkout of a shopping cart
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Name("com.ducks.api.ducksapi.Checkout")
+@Label("Checkout")
+@Category({ "Ducks API", "Checkout" })
+@Description("Checking out a shopping cart, from reading the cart to saving it cleared")
+final class CheckoutEvent extends jdk.jfr.Event {
+    @Label("Customer Id")
+    int customerId;
+
+    @Label("Items")
+    @Description("Different ducks in the cart")
+    int items;
+
+    @Label("Units")
+    @Description("Units of every duck in the cart")
+    int units;
+
+    @Label("Status")
+    @Description("HTTP status of the response")
+    int status;
+}
@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Handles the REST API requests for the Duck resource
@@ -34,13 +35,15 @@ public class CustomizeController extends AbstractInventoryController {
     /**
      * Creates a REST API controller to reponds to requests
      * 
-     * @param duckDao The {@link DuckDAO Duck Data Access Object} to perform CRUD
-     *                operations
-     *                <br>
-     *                This dependency is injected by the Spring Framework
+     * @param duckDao      The {@link DuckDAO Duck Data Access Object} to perform
+     *                     CRUD operations
+     *                     <br>
+     *                     This dependency is injected by the Spring Framework
+     * @param objectMapper Encodes the cached catalog responses, the same mapper
+     *                     Spring uses for every other response
      */
-    public CustomizeController(@Qualifier("customDuckFileDAO") DuckDAO duckDao) {
-        super(duckDao, LOG);
+    public CustomizeController(@Qualifier("customDuckFileDAO") DuckDAO duckDao, ObjectMapper objectMapper) {
+        super(duckDao, LOG, objectMapper);
     }
 
     /**
@@ -55,7 +58,7 @@ public class CustomizeController extends AbstractInventoryController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<Duck> getDuck(@PathVariable int id) {
-        return super.getDuck(id, "GET /customduck/{0}");
+        return super.getDuck(id);
     }
 
     /**
@@ -69,7 +72,7 @@ public class CustomizeController extends AbstractInventoryController {
      */
     @GetMapping("")
     public ResponseEntity<Duck[]> getDucks() {
-        return super.getDucks("GET /customduck");
+        return super.getDucks();
     }
 
     /**
@@ -86,7 +89,7 @@ public class CustomizeController extends AbstractInventoryController {
      */
     @PostMapping("")
     public ResponseEntity<Duck> createDuck(@RequestBody Duck duck) {
-        return super.createDuck(duck, "POST /customduck {0}");
+        return super.createDuck(duck);
     }
 
     /**
@@ -102,7 +105,7 @@ public class CustomizeController extends AbstractInventoryController {
      */
     @PutMapping("")
     public ResponseEntity<Duck> updateDuck(@RequestBody Duck duck) {
-        return super.updateDuck(duck, "PUT /customduck {0}");
+        return super.updateDuck(duck);
     }
 
     /**
@@ -116,7 +119,7 @@ public class CustomizeController extends AbstractInventoryController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<Duck> deleteDuck(@PathVariable int id) {
-        return super.deleteDuck(id, "DELETE /customduck/{0}");
+        return super.deleteDuck(id);
     }
     
 }
\ No newline at end of file
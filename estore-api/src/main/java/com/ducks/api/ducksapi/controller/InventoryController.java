@@ -2,7 +2,9 @@ package com.ducks.api.ducksapi.controller;
 
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,12 +12,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Handles the REST API requests for the Duck resource
@@ -35,13 +40,16 @@ public class InventoryController extends AbstractInventoryController {
     /**
      * Creates a REST API controller to reponds to requests
      * 
-     * @param duckDao The {@link DuckDAO Duck Data Access Object} to perform CRUD
-     *                operations
-     *                <br>
-     *                This dependency is injected by the Spring Framework
+     * @param duckDao      The {@link DuckDAO Duck Data Access Object} to perform
+     *                     CRUD operations
+     *                     <br>
+     *                     This dependency is injected by the Spring Framework
+     * @param objectMapper Encodes the cached catalog responses, the same mapper
+     *                     Spring uses for every other response
      */
-    public InventoryController(@Qualifier("duckFileDAO") DuckDAO duckDao) {
-        super(duckDao, LOG);
+    @Autowired
+    public InventoryController(@Qualifier("duckFileDAO") DuckDAO duckDao, ObjectMapper objectMapper) {
+        super(duckDao, LOG, objectMapper);
     }
 
     /**
@@ -56,42 +64,72 @@ public class InventoryController extends AbstractInventoryController {
      */
     @GetMapping("/product/{id}")
     public ResponseEntity<Duck> getDuck(@PathVariable int id) {
-        return super.getDuck(id, "GET /inventory/product/{0}");
+        return super.getDuck(id);
     }
 
     /**
-     * Responds to the GET request for all {@linkplain Duck ducks}
+     * Responds to the GET request for all {@linkplain Duck ducks} with the
+     * cached, pre-encoded catalog
      * 
-     * @return ResponseEntity with array of {@link Duck ducks} objects (may be
-     *         empty) and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @param ifNoneMatch    The ETag the client already holds, if any
+     * @param acceptEncoding The encodings the client accepts, if any
+     * 
+     * @return ResponseEntity with the JSON array of {@link Duck ducks} and HTTP
+     *         status of OK<br>
+     *         ResponseEntity with HTTP status of NOT_MODIFIED if the client's
+     *         ETag is current<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
      */
     @GetMapping("")
-    public ResponseEntity<Duck[]> getDucks() {
-        return super.getDucks("GET /inventory");
+    public ResponseEntity<byte[]> getEncodedDucks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return super.getEncodedDucks(ifNoneMatch, acceptEncoding);
+    }
+
+    /**
+     * Responds to the GET request for one page of {@linkplain Duck ducks}
+     * 
+     * @param limit  The most {@link Duck ducks} to return
+     * @param cursor The cursor of the previous page, absent for the first page
+     * @param fields Comma separated names of the fields to keep on each duck,
+     *               absent to keep every field
+     * 
+     * @return ResponseEntity with the page and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if the limit is out
+     *         of range or the cursor is malformed<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     *         Example: GET http://localhost:8080/inventory?limit=50&fields=id,name
+     */
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<Page<?>> getDucksPage(@RequestParam int limit,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) String fields) {
+        return super.getDucksPage(cursor, limit, fields);
     }
 
     /**
      * Responds to the GET request for all {@linkplain Duck ducks} whose name
-     * contains
-     * the text in name
+     * contains the text in name, optionally ignoring case
      * 
-     * @param name The name parameter which contains the text used to find the
-     *             {@link Duck ducks}
+     * @param name       The name parameter which contains the text used to find
+     *                   the {@link Duck ducks}
+     * @param ignoreCase Whether upper and lower case letters match each other,
+     *                   false when not given
      * 
-     * @return ResponseEntity with array of {@link Duck duck} objects (may be empty)
-     *         and HTTP status of OK<br>
-     *         ResponseEntity with HTTP status of NOT_FOUND if no ducks are
+     * @return ResponseEntity with array of {@link Duck duck} objects and HTTP
+     *         status of OK<br>
+     *         ResponseEntity with HTTP status of NO_CONTENT if no ducks are
      *         found<br>
      *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
-     *         Example: Find all ducks that contain the text "ma"
-     *         GET http://localhost:8080/inventory/?name=ma
+     *         Example: Find all ducks that contain the text "ma" in any case
+     *         GET http://localhost:8080/inventory/search?name=ma&ignoreCase=true
      */
     @GetMapping("/search")
-    public ResponseEntity<Duck[]> searchDucks(@RequestParam String name) {
-        return super.searchDucks(name, "GET /inventory/search?name={0}");
+    public ResponseEntity<Duck[]> searchDucks(@RequestParam String name,
+            @RequestParam(defaultValue = "false") boolean ignoreCase) {
+        return super.searchDucks(name, ignoreCase);
     }
 
     /**
@@ -108,7 +146,7 @@ public class InventoryController extends AbstractInventoryController {
      */
     @PostMapping("/product")
     public ResponseEntity<Duck> createDuck(@RequestBody Duck duck) {
-        return super.createDuck(duck, "POST /inventory/product {0}");
+        return super.createDuck(duck);
     }
 
     /**
@@ -124,7 +162,7 @@ public class InventoryController extends AbstractInventoryController {
      */
     @PutMapping("/product")
     public ResponseEntity<Duck> updateDuck(@RequestBody Duck duck) {
-        return super.updateDuck(duck, "PUT /inventory {0}");
+        return super.updateDuck(duck);
     }
 
     /**
@@ -138,6 +176,6 @@ public class InventoryController extends AbstractInventoryController {
      */
     @DeleteMapping("/product/{id}")
     public ResponseEntity<Duck> deleteDuck(@PathVariable int id) {
-        return super.deleteDuck(id, "DELETE /inventory/product/{0}");
+        return super.deleteDuck(id);
     }
 }
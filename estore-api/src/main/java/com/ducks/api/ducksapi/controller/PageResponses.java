@@ -0,0 +1,90 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.ducks.api.ducksapi.persistence.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Builds the responses for the paginated list endpoints
+ * <br>
+ * Checks the paging parameters, fetches the page and, when the client asked for
+ * only some fields, trims every record on the page down to those fields
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class PageResponses {
+    static final int MAX_LIMIT = 1000; // Largest page a client may ask for
+
+    /**
+     * Fetches one page from a DAO
+     */
+    @FunctionalInterface
+    interface PageSource<T> {
+        /**
+         * @param cursor The cursor of the previous page, null for the first page
+         * @param limit  The most records to return
+         *
+         * @return The page
+         *
+         * @throws IOException if an issue with underlying storage
+         */
+        Page<T> getPage(String cursor, int limit) throws IOException;
+    }
+
+    private PageResponses() {
+    }
+
+    /**
+     * Responds with one page of records
+     *
+     * @param source       Fetches the page
+     * @param cursor       The cursor of the previous page, null for the first page
+     * @param limit        The most records to return
+     * @param fields       Comma separated names of the fields to keep on each
+     *                     record, null to keep every field
+     * @param objectMapper Converts the records when only some fields are kept
+     * @param log          Logs storage errors
+     *
+     * @return ResponseEntity with the page and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if the limit is out of
+     *         range or the cursor is malformed<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    static <T> ResponseEntity<Page<?>> respond(PageSource<T> source, String cursor, int limit, String fields,
+            ObjectMapper objectMapper, Logger log) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            Page.decodeCursor(cursor);
+        } catch (IllegalArgumentException iae) {
+            // Malformed cursor
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            Page<T> page = source.getPage(cursor, limit);
+            if (fields == null || fields.isBlank()) {
+                return new ResponseEntity<>(page, HttpStatus.OK);
+            }
+            Set<String> keep = new HashSet<>(Arrays.asList(fields.split("\\s*,\\s*")));
+            return new ResponseEntity<>(page.map(item -> {
+                ObjectNode node = objectMapper.valueToTree(item);
+                node.retain(keep);
+                return node;
+            }), HttpStatus.OK);
+        } catch (IOException ioe) {
+            log.log(Level.SEVERE, ioe.getLocalizedMessage());
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
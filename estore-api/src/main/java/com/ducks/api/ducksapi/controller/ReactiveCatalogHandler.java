@@ -0,0 +1,172 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Handles the read-only catalog requests of the {@linkplain ReactiveCatalogServer
+ * reactive catalog server}
+ * <br>
+ * Serves the same routes and statuses as the GET requests of the
+ * {@link InventoryController} and the {@link CustomizeController}, from the
+ * same {@linkplain DuckDAO Data Access Objects}. Clients that accept
+ * application/x-ndjson get one JSON {@linkplain Duck duck} per line, encoded and
+ * flushed as the connection takes them, instead of a JSON array.
+ * <br>
+ * The file DAOs read a published snapshot of the catalog, so their reads run
+ * on the event loop. Reads of any other DAO may wait on a lock or on storage
+ * and are moved off it.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class ReactiveCatalogHandler {
+    private static final Logger LOG = Logger.getLogger(ReactiveCatalogHandler.class.getName());
+
+    private final DuckDAO duckDao; // The inventory
+    private final DuckDAO customDuckDao; // The custom ducks
+
+    /**
+     * Creates a handler for the catalog requests
+     *
+     * @param duckDao       The {@link DuckDAO Duck Data Access Object} of the
+     *                      inventory
+     * @param customDuckDao The {@link DuckDAO Duck Data Access Object} of the
+     *                      custom ducks
+     */
+    public ReactiveCatalogHandler(DuckDAO duckDao, DuckDAO customDuckDao) {
+        this.duckDao = duckDao;
+        this.customDuckDao = customDuckDao;
+    }
+
+    /**
+     * @return The routes of the catalog requests
+     */
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/inventory", request -> getDucks(duckDao, request))
+                .GET("/inventory/product/{id}", request -> getDuck(duckDao, request))
+                .GET("/inventory/search", this::searchDucks)
+                .GET("/customduck", request -> getDucks(customDuckDao, request))
+                .GET("/customduck/{id}", request -> getDuck(customDuckDao, request))
+                .build();
+    }
+
+    /**
+     * Responds to the GET request for all {@linkplain Duck ducks}
+     *
+     * @param dao     The {@link DuckDAO Duck Data Access Object} to read
+     * @param request The request
+     *
+     * @return Response with the stream of {@link Duck ducks} and HTTP status of
+     *         OK<br>
+     *         Response with HTTP status of NO_CONTENT if no ducks are found<br>
+     *         Response with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    Mono<ServerResponse> getDucks(DuckDAO dao, ServerRequest request) {
+        return respond(request, read(dao, dao::getDucks));
+    }
+
+    /**
+     * Responds to the GET request for all {@linkplain Duck ducks} in the
+     * inventory whose name contains the text in name, optionally ignoring case
+     *
+     * @param request The request, with the name and ignoreCase parameters
+     *
+     * @return Response with the stream of {@link Duck ducks} and HTTP status of
+     *         OK<br>
+     *         Response with HTTP status of BAD_REQUEST if there is no name<br>
+     *         Response with HTTP status of NO_CONTENT if no ducks are found<br>
+     *         Response with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     *         Example: Stream all ducks that contain the text "ma"
+     *         GET http://localhost:8081/inventory/search?name=ma
+     */
+    Mono<ServerResponse> searchDucks(ServerRequest request) {
+        Optional<String> name = request.queryParam("name");
+        if (name.isEmpty()) {
+            return ServerResponse.badRequest().build();
+        }
+        boolean ignoreCase = request.queryParam("ignoreCase").map(Boolean::parseBoolean).orElse(false);
+        return respond(request, read(duckDao, () -> duckDao.findDucks(name.get(), ignoreCase)));
+    }
+
+    /**
+     * Responds to the GET request for a {@linkplain Duck duck} for the given id
+     *
+     * @param dao     The {@link DuckDAO Duck Data Access Object} to read
+     * @param request The request, with the id in its path
+     *
+     * @return Response with the {@link Duck duck} and HTTP status of OK if
+     *         found<br>
+     *         Response with HTTP status of BAD_REQUEST if the id is not a
+     *         number<br>
+     *         Response with HTTP status of NOT_FOUND if not found<br>
+     *         Response with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    Mono<ServerResponse> getDuck(DuckDAO dao, ServerRequest request) {
+        int id;
+        try {
+            id = Integer.parseInt(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return read(dao, () -> dao.getDuck(id))
+                .flatMap(duck -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(duck))
+                .switchIfEmpty(ServerResponse.notFound().build())
+                .onErrorResume(IOException.class, ReactiveCatalogHandler::internalError);
+    }
+
+    /**
+     * Streams the {@linkplain Duck ducks} read by a Data Access Object call as
+     * newline delimited JSON if the client accepts it, or as a JSON array
+     *
+     * @param request The request
+     * @param read    The read of the {@link Duck ducks}
+     *
+     * @return The response
+     */
+    private static Mono<ServerResponse> respond(ServerRequest request, Mono<Duck[]> read) {
+        MediaType type = request.headers().accept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)
+                        ? MediaType.APPLICATION_NDJSON
+                        : MediaType.APPLICATION_JSON;
+        return read
+                .flatMap(ducks -> ducks.length == 0 ? ServerResponse.noContent().build()
+                        : ServerResponse.ok().contentType(type).body(Flux.fromArray(ducks), Duck.class))
+                .onErrorResume(IOException.class, ReactiveCatalogHandler::internalError);
+    }
+
+    /**
+     * Makes a Data Access Object call once the response is subscribed to
+     *
+     * @param dao  The {@link DuckDAO Duck Data Access Object} called
+     * @param call The call, may return null
+     *
+     * @return The result of the call, empty if it was null
+     */
+    private static <T> Mono<T> read(DuckDAO dao, Callable<T> call) {
+        Mono<T> result = Mono.fromCallable(call);
+        return dao.hasNonBlockingReads() ? result : result.subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static Mono<ServerResponse> internalError(IOException e) {
+        LOG.log(Level.SEVERE, e.getLocalizedMessage());
+        return ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+    }
+}
@@ -0,0 +1,132 @@
+package com.ducks.api.ducksapi.controller;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.server.WebFilter;
+
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Serves the catalog reads of the {@linkplain ReactiveCatalogHandler reactive
+ * catalog handler} from a Reactor Netty server on a port of its own
+ * <br>
+ * The rest of the API stays on Tomcat. This server shares the Data Access
+ * Objects of the application context, so it always serves the same catalog as
+ * the {@link InventoryController} and the {@link CustomizeController}, and runs
+ * every request on a small, fixed set of event loop threads.
+ * <br>
+ * Opt in with catalog.reactive.enabled=true. The port is set with
+ * catalog.reactive.port and the number of event loop threads with
+ * catalog.reactive.threads.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.reactive.enabled", havingValue = "true")
+public class ReactiveCatalogServer {
+    private static final String UNMAPPED = "unmapped";
+
+    private final LoopResources loops; // The event loop threads
+    private final DisposableServer server; // The running server
+
+    /**
+     * Starts the server
+     *
+     * @param duckDao       The {@link DuckDAO Duck Data Access Object} of the
+     *                      inventory
+     * @param customDuckDao The {@link DuckDAO Duck Data Access Object} of the
+     *                      custom ducks
+     * @param objectMapper  Encodes the {@linkplain com.ducks.api.ducksapi.model.Duck
+     *                      ducks} the way the rest of the API does
+     * @param accessLog     Where completed requests are sent
+     * @param port          The port to listen on, 0 for any free port
+     * @param threads       The number of event loop threads
+     *                      <br>
+     *                      These dependencies are injected by the Spring
+     *                      Framework
+     */
+    public ReactiveCatalogServer(@Qualifier("duckFileDAO") DuckDAO duckDao,
+            @Qualifier("customDuckFileDAO") DuckDAO customDuckDao, ObjectMapper objectMapper,
+            AccessLogPipeline accessLog, @Value("${catalog.reactive.port:8081}") int port,
+            @Value("${catalog.reactive.threads:4}") int threads) {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .webFilter(corsFilter())
+                .webFilter(accessLogFilter(accessLog))
+                .build();
+        HttpHandler handler = RouterFunctions.toHttpHandler(new ReactiveCatalogHandler(duckDao, customDuckDao).routes(),
+                strategies);
+
+        this.loops = LoopResources.create("catalog-reactive", threads, true);
+        this.server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+    }
+
+    /**
+     * @return The port the server listens on
+     */
+    public int getPort() {
+        return server.port();
+    }
+
+    /**
+     * Stops the server and its event loop threads
+     */
+    @PreDestroy
+    public void close() {
+        server.disposeNow();
+        loops.dispose();
+    }
+
+    /**
+     * @return Allows the same cross origin reads as the rest of the API
+     */
+    private static WebFilter corsFilter() {
+        CorsConfiguration cors = new CorsConfiguration().applyPermitDefaultValues();
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", cors);
+        return new CorsWebFilter(source);
+    }
+
+    /**
+     * Feeds every request into the access log, by the route it was mapped to
+     * like the {@link AccessLogInterceptor} does for the rest of the API
+     *
+     * @param accessLog Where completed requests are sent
+     *
+     * @return The filter
+     */
+    private static WebFilter accessLogFilter(AccessLogPipeline accessLog) {
+        return (exchange, chain) -> {
+            long start = System.nanoTime();
+            return chain.filter(exchange).doFinally(signal -> {
+                Object pattern = exchange.getAttribute(RouterFunctions.MATCHING_PATTERN_ATTRIBUTE);
+                HttpStatus status = exchange.getResponse().getStatusCode();
+                accessLog.record(exchange.getRequest().getMethodValue(),
+                        pattern != null ? pattern.toString() : UNMAPPED,
+                        status != null ? status.value() : HttpStatus.OK.value(), System.nanoTime() - start, null);
+            });
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package com.ducks.api.ducksapi.controller;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the sessions of logged in {@linkplain com.ducks.api.ducksapi.model.Account
+ * accounts} in memory, keyed by an opaque token
+ * <br>
+ * A token is handed out when an account logs in and resolves back to the
+ * account id with a single map lookup. Every lookup pushes the expiry of the
+ * session back, so a session only lapses once it goes unused for the time to
+ * live. The number of sessions is bounded; once it is reached, expired
+ * sessions are dropped and, if that is not enough, a batch of the least
+ * recently used ones, so the next logins find room without looking through
+ * the sessions again. Nothing here is ever written to disk.
+ *
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and injects the instance into other classes as needed
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class SessionStore {
+    private static final int TOKEN_BYTES = 32;
+    private static final int EVICTION_BATCHES = 16; // A full store drops this fraction of its sessions at once
+
+    private final long ttlMs; // How long an unused session lasts
+    private final int maxSessions; // Most sessions held at once
+    private final SecureRandom random = new SecureRandom(); // Source of the tokens
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); // Token -> session
+
+    /**
+     * A session of a logged in account
+     */
+    private static final class Session {
+        private final int accountId; // The account that logged in
+        private volatile long lastUsed; // When the session was last resolved, in milliseconds since the epoch
+
+        Session(int accountId, long now) {
+            this.accountId = accountId;
+            this.lastUsed = now;
+        }
+
+        boolean isExpired(long now, long ttlMs) {
+            return now - lastUsed >= ttlMs;
+        }
+    }
+
+    /**
+     * Creates the session store
+     *
+     * @param ttlMs       How long an unused session lasts, in milliseconds
+     * @param maxSessions Most sessions held at once
+     */
+    public SessionStore(@Value("${sessions.ttl.ms:1800000}") long ttlMs,
+            @Value("${sessions.max:10000}") int maxSessions) {
+        if (maxSessions < 1) {
+            throw new IllegalArgumentException("sessions.max must be at least 1");
+        }
+        this.ttlMs = ttlMs;
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Starts a session for an account
+     *
+     * @param accountId The id of the account that logged in
+     *
+     * @return The token of the new session
+     */
+    public String open(int accountId) {
+        long now = System.currentTimeMillis();
+        if (sessions.size() >= maxSessions) {
+            makeRoom(now);
+        }
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        sessions.put(token, new Session(accountId, now));
+        return token;
+    }
+
+    /**
+     * Finds the account a session belongs to and pushes back its expiry
+     *
+     * @param token The token of the session
+     *
+     * @return The id of the account, or null if there is no such session or it
+     *         has expired
+     */
+    public Integer resolve(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (session.isExpired(now, ttlMs)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.lastUsed = now;
+        return session.accountId;
+    }
+
+    /**
+     * Ends a session
+     *
+     * @param token The token of the session
+     *
+     * @return true if the session was open
+     */
+    public boolean close(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    /**
+     * Ends every session of an account, such as when it is deleted
+     *
+     * @param accountId The id of the account
+     */
+    public void closeAll(int accountId) {
+        sessions.values().removeIf(session -> session.accountId == accountId);
+    }
+
+    /**
+     * @return The number of sessions held, including expired ones that have not
+     *         been dropped yet
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Drops expired sessions and, if the store is still full, the least
+     * recently used sixteenth of the sessions
+     * <br>
+     * Only runs once the store is full, and each run frees room for a batch of
+     * logins, so the sessions are looked through once per batch rather than
+     * once per login
+     *
+     * @param now The current time in milliseconds since the epoch
+     */
+    private void makeRoom(long now) {
+        sessions.values().removeIf(session -> session.isExpired(now, ttlMs));
+        int excess = sessions.size() - maxSessions + 1;
+        if (excess <= 0) {
+            return;
+        }
+        int batch = Math.max(excess, maxSessions / EVICTION_BATCHES);
+        // Holds the batch least recently used so far, the most recent of them on top
+        PriorityQueue<Map.Entry<String, Long>> oldest = new PriorityQueue<>(batch + 1,
+                Map.Entry.<String, Long>comparingByValue().reversed());
+        for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+            oldest.add(Map.entry(entry.getKey(), entry.getValue().lastUsed));
+            if (oldest.size() > batch) {
+                oldest.poll();
+            }
+        }
+        for (Map.Entry<String, Long> entry : oldest) {
+            sessions.remove(entry.getKey());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -13,10 +14,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.persistence.Page;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Handles the REST API requests for the Shopping Cart resource
@@ -34,16 +38,20 @@ public class ShoppingCartController {
 
     private static final Logger LOG = Logger.getLogger(ShoppingCartController.class.getName());
     private ShoppingCartDAO cartDao;
+    private ObjectMapper objectMapper;
 
     /**
      * Creates a REST API controller to reponds to shopping cart requests
      * 
-     * @param cartDao The {@link ShoppingCatDAO Cart Data Access Object} to perform
-     *                CRUD operations<br>
-     *                This dependency is injected by the Spring Framework
+     * @param cartDao      The {@link ShoppingCatDAO Cart Data Access Object} to
+     *                     perform CRUD operations<br>
+     *                     This dependency is injected by the Spring Framework
+     * @param objectMapper Trims carts down to the requested fields
      */
-    public ShoppingCartController(ShoppingCartDAO cartDao) {
+    @Autowired
+    public ShoppingCartController(ShoppingCartDAO cartDao, ObjectMapper objectMapper) {
         this.cartDao = cartDao;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -61,7 +69,6 @@ public class ShoppingCartController {
      */
     @GetMapping("/{id}")
     public ResponseEntity<ShoppingCart> getShoppingCart(@PathVariable int id) {
-        LOG.log(Level.INFO, "GET /cart/{0}", id);
         try {
             ShoppingCart cart = cartDao.getShoppingCart(id);
             if (cart != null) {
@@ -85,7 +92,6 @@ public class ShoppingCartController {
      */
     @GetMapping("")
     public ResponseEntity<ShoppingCart[]> getShoppingCarts() {
-        LOG.log(Level.INFO, "GET /cart");
         try {
             ShoppingCart[] carts = cartDao.getShoppingCarts();
             if (carts != null && carts.length != 0) {
@@ -99,6 +105,26 @@ public class ShoppingCartController {
         }
     }
 
+    /**
+     * Responds to the GET request for one page of {@linkplain ShoppingCart
+     * Shopping carts}
+     * 
+     * @param limit  The most {@link ShoppingCart carts} to return
+     * @param cursor The cursor of the previous page, absent for the first page
+     * @param fields Comma separated names of the fields to keep on each cart,
+     *               absent to keep every field
+     * 
+     * @return ResponseEntity with the page and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if the limit is out
+     *         of range or the cursor is malformed<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<Page<?>> getShoppingCartsPage(@RequestParam int limit,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) String fields) {
+        return PageResponses.respond(cartDao::getShoppingCartsPage, cursor, limit, fields, objectMapper, LOG);
+    }
+
     /**
      * Creates a {@linkplain ShoppingCart shoppingCart}
      * 
@@ -112,7 +138,6 @@ public class ShoppingCartController {
      */
     @PostMapping("")
     public ResponseEntity<ShoppingCart> createShoppingCart(@RequestBody ShoppingCart cart) {
-        LOG.log(Level.INFO, "POST /cart {0}", cart);
         try {
             ShoppingCart newCart = cartDao.createShoppingCart(cart);
             if (newCart != null) {
@@ -139,7 +164,6 @@ public class ShoppingCartController {
      */
     @PutMapping("")
     public ResponseEntity<ShoppingCart> updateShoppingCart(@RequestBody ShoppingCart cart) {
-        LOG.log(Level.INFO, "PUT /cart {0}", cart);
         try {
             ShoppingCart updateCart = cartDao.updateShoppingCart(cart);
             if (updateCart != null) {
@@ -165,7 +189,6 @@ public class ShoppingCartController {
      */
     @DeleteMapping("/{id}")
     public ResponseEntity<ShoppingCart> deleteShoppingCart(@PathVariable int id) {
-        LOG.log(Level.INFO, "DELETE /cart/{0}", id);
         try {
             if (cartDao.deleteShoppingCart(id)) {
                 return new ResponseEntity<>(HttpStatus.OK);
@@ -1,25 +1,30 @@
 package com.ducks.api.ducksapi.controller;
 
 import java.io.IOException;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.ducks.api.ducksapi.model.Account;
-import com.ducks.api.ducksapi.model.UserAccount;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
 import com.ducks.api.ducksapi.persistence.AccountDAO;
+import com.ducks.api.ducksapi.persistence.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * 
@@ -37,19 +42,32 @@ import com.ducks.api.ducksapi.persistence.AccountDAO;
 public class UserController {
     private static final Logger LOG = Logger.getLogger(UserController.class.getName());
 
+    /**
+     * Header the session token is handed out in by a login and sent back in by
+     * later requests
+     */
+    public static final String SESSION_HEADER = "X-Session-Token";
+
     private AccountDAO accountDAO;
+    private ObjectMapper objectMapper;
+    private SessionStore sessions;
 
     /**
      * Creates a REST API controller to reponds to requests specifically for
      * accoount data
      * 
-     * @param accountDAO The {@link AccountDAO Account Data Access Object} to
-     *                   perform CRUD operations
+     * @param accountDAO   The {@link AccountDAO Account Data Access Object} to
+     *                     perform CRUD operations
      * 
-     *                   This dependency is injected by the Spring Framework
+     *                     This dependency is injected by the Spring Framework
+     * @param objectMapper Trims accounts down to the requested fields
+     * @param sessions     The {@link SessionStore sessions} of logged in accounts
      */
-    public UserController(AccountDAO accountDAO) {
+    @Autowired
+    public UserController(AccountDAO accountDAO, ObjectMapper objectMapper, SessionStore sessions) {
         this.accountDAO = accountDAO;
+        this.objectMapper = objectMapper;
+        this.sessions = sessions;
     }
 
     /**
@@ -69,7 +87,6 @@ public class UserController {
         // curl.exe -X POST -H 'Content-Type:application/json'
         // 'http://localhost:8080/accounts' -d '{\"type\":\"UserAccount\",
         // \"id\":1,\"username\":\"TEST\",\"plainPassword\":\"TEST\"}'
-        LOG.log(Level.INFO, "POST /accounts {0}", account);
         try {
             Account newAccount = accountDAO.createAccount(account);
             // Username doesn't already exist in system, OK to create account
@@ -95,9 +112,10 @@ public class UserController {
      * login to the site
      * We want to get the database account to load all their data.
      * 
-     * @param username The username of the login attempt
+     * @param username The username of the login attempt, in any case
      * @param password The password of the login attempt
      * @return The account in the database if attempt successful with all saved data
+     *         and the token of a new session in the X-Session-Token header
      * 
      *         HttpStatus OK if the authentication was successful
      *         HttpStatus CONFLICT if the authentication failed
@@ -108,28 +126,23 @@ public class UserController {
     @GetMapping("/login")
     public ResponseEntity<Account> loginUser(@RequestParam String username, @RequestParam String password) {
         // curl.exe -X GET 'http://localhost:8080/login?username=TEST&password=TEST'
-        LOG.log(Level.INFO, "GET /login {0}", username + " " + password);
 
         try {
-            Account[] databaseAccounts = accountDAO.findAccounts(username);
-            // This means account does exist in system
-            if (databaseAccounts.length != 0) {
-                // Create a temporary account. Only one account with the username can exist so
-                // ID doesn't matter
-                UserAccount tempAccount = new UserAccount(-100, username, password);
-                for (Account databaseAccount : databaseAccounts) {
-                    // Same username and hashed password
-                    if (databaseAccount.equals(tempAccount)) {
-                        return new ResponseEntity<>(databaseAccount, HttpStatus.OK);
-                    }
-                }
-                // Account exists in the system, but wrong login information was provided by
-                // user.
-                return new ResponseEntity<>(HttpStatus.CONFLICT);
-                // Account does not exist in system, need to tell user to create one
-            } else {
+            Account databaseAccount = accountDAO.findAccountByUsername(username);
+            // Account does not exist in system, need to tell user to create one
+            if (databaseAccount == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+            // Usernames match ignoring case, the same way the DAO looks them up, so
+            // only the password is left to check
+            if (databaseAccount.getPlainPassword().equals(password)) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(SESSION_HEADER, sessions.open(databaseAccount.getId()));
+                return new ResponseEntity<>(databaseAccount, headers, HttpStatus.OK);
+            }
+            // Account exists in the system, but wrong login information was provided by
+            // user.
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
             // Something went wrong not related to user authentication.
         } catch (IOException ioe) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
@@ -137,36 +150,59 @@ public class UserController {
     }
 
     /**
-     * Responds to the POST request for a {@linkplain Account account} attempting to
-     * logout of the site
-     * Saves current changes to account
+     * Responds to the GET request for the {@linkplain Account account} of the
+     * session the request belongs to
      * 
-     * @param account The account to be updated.
-     * @return
-     *         HttpStatus OK if the account was saved successfully
-     *         HttpStatus CONFLICT if the account failed to save
+     * @param token The token handed out at login
+     * @return The account the session belongs to
+     * 
+     *         HttpStatus OK if the session is open
+     *         HttpStatus UNAUTHORIZED if there is no such session, it expired or
+     *         no token was sent
+     *         HttpStatus NOT_FOUND if the account was deleted
      *         HttpStatus INTERNAL_SERVER_ERROR otherwise.
      */
-    @PutMapping("/logout")
-    public ResponseEntity<Account> logoutUser(@RequestBody Account account) {
-        // curl.exe -X PUT -H 'Content-Type:application/json'
-        // 'http://localhost:8080/logout' -d '{\"type\":\"UserAccount\",
-        // \"id\":1,\"username\":\"TEST\",\"plainPassword\":\"TEST1#sdf7csdf\"}'
-        LOG.log(Level.INFO, "PUT /logout {0}", account);
+    @GetMapping("/session")
+    public ResponseEntity<Account> getSessionAccount(
+            @RequestHeader(value = SESSION_HEADER, required = false) String token) {
+        Integer accountId = sessions.resolve(token);
+        if (accountId == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
         try {
-            Account updatedAccount = accountDAO.updateAccount(account);
-            // Account saved successfully
-            if (updatedAccount != null) {
-                return new ResponseEntity<>(HttpStatus.OK);
+            Account account = accountDAO.getAccount(accountId);
+            if (account == null) {
+                sessions.close(token);
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
-            // Account did not save. Most likely an empty account body was entered (not
-            // logged in)
-            return new ResponseEntity<>(HttpStatus.CONFLICT);
+            return new ResponseEntity<>(account, HttpStatus.OK);
         } catch (IOException ioe) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Responds to the PUT request for a session to logout of the site
+     * <br>
+     * Only ends the session. Changes to the account are saved as they are made,
+     * so nothing is written.
+     * 
+     * @param token The token handed out at login
+     * @return
+     *         HttpStatus OK if the session was ended
+     *         HttpStatus UNAUTHORIZED if there is no such session or no token was
+     *         sent
+     */
+    @PutMapping("/logout")
+    public ResponseEntity<Account> logoutSession(
+            @RequestHeader(value = SESSION_HEADER, required = false) String token) {
+        // curl.exe -X PUT -H 'X-Session-Token:TOKEN' 'http://localhost:8080/logout'
+        if (sessions.close(token)) {
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+    }
+
     /**
      * Responds to the GET request for a {@linkplain Account account}
      * 
@@ -180,7 +216,6 @@ public class UserController {
     @GetMapping("/{id}")
     public ResponseEntity<Account> getAccount(@PathVariable int id) {
         // curl.exe -X GET 'http://localhost:8080/TESTID
-        LOG.log(Level.INFO, "GET /{0}", id);
 
         try {
             Account account = accountDAO.getAccount(id);
@@ -205,7 +240,6 @@ public class UserController {
     @GetMapping("")
     public ResponseEntity<Account[]> getAccounts() {
         // curl.exe -X GET 'http://localhost:8080/
-        LOG.log(Level.INFO, "GET /");
 
         try {
             Account[] accounts = accountDAO.getAccounts();
@@ -219,6 +253,26 @@ public class UserController {
         }
     }
 
+    /**
+     * Responds to the GET request for one page of {@linkplain Account accounts}
+     * 
+     * @param limit  The most {@link Account accounts} to return
+     * @param cursor The cursor of the previous page, absent for the first page
+     * @param fields Comma separated names of the fields to keep on each account,
+     *               absent to keep every field
+     * 
+     * @return ResponseEntity with the page and HTTP status of OK<br>
+     *         ResponseEntity with HTTP status of BAD_REQUEST if the limit is out
+     *         of range or the cursor is malformed<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    @GetMapping(value = "", params = "limit")
+    public ResponseEntity<Page<?>> getAccountsPage(@RequestParam int limit,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) String fields) {
+        // curl.exe -X GET 'http://localhost:8080/?limit=50&fields=id,username'
+        return PageResponses.respond(accountDAO::getAccountsPage, cursor, limit, fields, objectMapper, LOG);
+    }
+
     /**
      * Endpoint for updating an account
      * 
@@ -230,7 +284,6 @@ public class UserController {
      */
     @PutMapping("/updateaccount")
     public ResponseEntity<Account> updateAccount(@RequestBody Account account) {
-        LOG.log(Level.INFO, "PUT /updateaccount {0}", account);
         try {
             // Check if account exists
             if (accountDAO.getAccount(account.getId()) == null) {
@@ -251,6 +304,46 @@ public class UserController {
         }
     }
 
+    /**
+     * Responds to the PATCH request for changing several profile fields of the
+     * {@linkplain Account account} of the session the request belongs to
+     * <br>
+     * Every change is applied and saved together, so a filled in shipping form
+     * costs a single write rather than one per field. The account is the one
+     * the session was opened for, never one named by the client.
+     * 
+     * @param token  The token handed out at login
+     * @param update The changes to apply, fields left out are kept
+     * 
+     * @return ResponseEntity with the updated {@link Account account} and HTTP
+     *         status of OK<br>
+     *         ResponseEntity with HTTP status of UNAUTHORIZED if there is no such
+     *         session, it expired or no token was sent<br>
+     *         ResponseEntity with HTTP status of NOT_FOUND if the account was
+     *         deleted<br>
+     *         ResponseEntity with HTTP status of INTERNAL_SERVER_ERROR otherwise
+     */
+    @PatchMapping("/session")
+    public ResponseEntity<Account> updateProfile(
+            @RequestHeader(value = SESSION_HEADER, required = false) String token,
+            @RequestBody ProfileUpdate update) {
+        // curl.exe -X PATCH -H 'X-Session-Token:TOKEN' -H 'Content-Type:application/json'
+        // 'http://localhost:8080/session' -d '{\"city\":\"Rochester\",\"zipCode\":\"14623\"}'
+        Integer accountId = sessions.resolve(token);
+        if (accountId == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+        try {
+            Account updated = accountDAO.updateProfile(accountId, update);
+            if (updated == null) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            return new ResponseEntity<>(updated, HttpStatus.OK);
+        } catch (IOException e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     /**
      * Deletes a {@linkplain Account account} with the given id
      * 
@@ -263,10 +356,10 @@ public class UserController {
     @DeleteMapping("/{id}")
     public ResponseEntity<Account> deleteAccount(@PathVariable int id) {
         // curl.exe -X DELETE 'http://localhost:8080/TESTID
-        LOG.log(Level.INFO, "DELETE /{0}", id);
         try {
             boolean accountDeleted = accountDAO.deleteAccount(id);
             if (accountDeleted) {
+                sessions.closeAll(id);
                 return new ResponseEntity<>(HttpStatus.OK);
             } else {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -0,0 +1,164 @@
+package com.ducks.api.ducksapi.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents a set of profile changes to apply to an {@linkplain Account
+ * account} at once, such as a filled in shipping form
+ * <br>
+ * Fields left out of the request are null and leave the account as it is. The
+ * payment details are saved together, keeping the current value of any of the
+ * three that are left out.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class ProfileUpdate {
+
+    protected static final String FORMAT = "ProfileUpdate [firstName=%s, lastName=%s, address=%s, city=%s, zipCode=%s, payment=%b]";
+
+    @JsonProperty("firstName")
+    private final String firstName;
+
+    @JsonProperty("lastName")
+    private final String lastName;
+
+    @JsonProperty("address")
+    private final String address;
+
+    @JsonProperty("city")
+    private final String city;
+
+    @JsonProperty("zipCode")
+    private final String zipCode;
+
+    @JsonProperty("card")
+    private final String card;
+
+    @JsonProperty("expDate")
+    private final String expDate;
+
+    @JsonProperty("cvv")
+    private final Integer cvv;
+
+    /**
+     * Creates a set of profile changes
+     *
+     * @param firstName The new first name, or null to keep it
+     * @param lastName  The new last name, or null to keep it
+     * @param address   The new address, or null to keep it
+     * @param city      The new city, or null to keep it
+     * @param zipCode   The new zip code, or null to keep it
+     * @param card      The new credit card number, or null to keep it
+     * @param expDate   The new expiration date on the card, or null to keep it
+     * @param cvv       The new CVV code, or null to keep it
+     */
+    @JsonCreator
+    public ProfileUpdate(@JsonProperty("firstName") String firstName, @JsonProperty("lastName") String lastName,
+            @JsonProperty("address") String address, @JsonProperty("city") String city,
+            @JsonProperty("zipCode") String zipCode, @JsonProperty("card") String card,
+            @JsonProperty("expDate") String expDate, @JsonProperty("cvv") Integer cvv) {
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.address = address;
+        this.city = city;
+        this.zipCode = zipCode;
+        this.card = card;
+        this.expDate = expDate;
+        this.cvv = cvv;
+    }
+
+    /**
+     * @return The new first name, or null to keep it
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * @return The new last name, or null to keep it
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * @return The new address, or null to keep it
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * @return The new city, or null to keep it
+     */
+    public String getCity() {
+        return city;
+    }
+
+    /**
+     * @return The new zip code, or null to keep it
+     */
+    public String getZipCode() {
+        return zipCode;
+    }
+
+    /**
+     * @return The new credit card number, or null to keep it
+     */
+    public String getCard() {
+        return card;
+    }
+
+    /**
+     * @return The new expiration date on the card, or null to keep it
+     */
+    public String getExpDate() {
+        return expDate;
+    }
+
+    /**
+     * @return The new CVV code, or null to keep it
+     */
+    public Integer getCVV() {
+        return cvv;
+    }
+
+    /**
+     * Applies every change to an account
+     *
+     * @param account The {@link Account account} to change
+     */
+    public void applyTo(Account account) {
+        if (firstName != null) {
+            account.setFirstName(firstName);
+        }
+        if (lastName != null) {
+            account.setLastName(lastName);
+        }
+        if (address != null) {
+            account.setAddress(address);
+        }
+        if (city != null) {
+            account.setCity(city);
+        }
+        if (zipCode != null) {
+            account.setZipCode(zipCode);
+        }
+        if (card != null || expDate != null || cvv != null) {
+            account.savePayment(card != null ? card : account.getCard(),
+                    expDate != null ? expDate : account.getExpDate(),
+                    cvv != null ? cvv : account.getCVV());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        // Leave the payment details themselves out of logs
+        return String.format(FORMAT, firstName, lastName, address, city, zipCode,
+                card != null || expDate != null || cvv != null);
+    }
+}
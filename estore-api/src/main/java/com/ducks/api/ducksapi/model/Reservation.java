@@ -0,0 +1,93 @@
+package com.ducks.api.ducksapi.model;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents a time-limited hold on inventory placed while a customer checks
+ * out
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class Reservation {
+
+    protected static final String FORMAT = "Reservation [id=%s, customerId=%d, items=%s, expiresAt=%d]";
+
+    @JsonProperty("id")
+    private final String id;
+
+    @JsonProperty("customerId")
+    private final int customerId;
+
+    @JsonProperty("items")
+    private final Map<Integer, Integer> items;
+
+    @JsonProperty("expiresAt")
+    private final long expiresAt;
+
+    /**
+     * Creates a reservation
+     *
+     * @param id         The unique id of the reservation
+     * @param customerId The customer holding the reservation
+     * @param items      The id of each held duck and how many are held
+     * @param expiresAt  When the hold lapses, in milliseconds since the epoch
+     */
+    @JsonCreator
+    public Reservation(@JsonProperty("id") String id, @JsonProperty("customerId") int customerId,
+            @JsonProperty("items") Map<Integer, Integer> items, @JsonProperty("expiresAt") long expiresAt) {
+        this.id = id;
+        this.customerId = customerId;
+        this.items = Map.copyOf(items);
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * @return The unique id of the reservation
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return The customer holding the reservation
+     */
+    public int getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return The id of each held duck and how many are held
+     */
+    public Map<Integer, Integer> getItems() {
+        return items;
+    }
+
+    /**
+     * @return When the hold lapses, in milliseconds since the epoch
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Checks whether the hold has lapsed
+     *
+     * @param now The current time in milliseconds since the epoch
+     *
+     * @return true if the hold lapsed at or before now
+     */
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format(FORMAT, id, customerId, items, expiresAt);
+    }
+}
@@ -3,6 +3,7 @@ package com.ducks.api.ducksapi.persistence;
 import java.io.IOException;
 
 import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
 
 /**
  * Defines the interface for account object persistence
@@ -21,6 +22,19 @@ public interface AccountDAO {
 
     Account[] getAccounts() throws IOException;
 
+    /**
+     * Retrieves one page of {@linkplain Account accounts}, in ascending id order
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @param limit  The most {@link Account accounts} to return
+     * 
+     * @return The page, with a cursor for the next one if there are more
+     * 
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws IOException if an issue with underlying storage
+     */
+    Page<Account> getAccountsPage(String cursor, int limit) throws IOException;
+
     /**
      * Finds all {@linkplain Account accounts} whose username contains the given text
      * 
@@ -32,6 +46,19 @@ public interface AccountDAO {
      */
     Account[] findAccounts(String containsText) throws IOException;
 
+    /**
+     * Retrieves the {@linkplain Account account} with the given username, ignoring case
+     * 
+     * @param username The username of the {@link Account account} to get
+     * 
+     * @return a {@link Account account} object with the matching username
+     * <br>
+     * null if no {@link Account account} with a matching username is found
+     * 
+     * @throws IOException if an issue with underlying storage
+     */
+    Account findAccountByUsername(String username) throws IOException;
+
     /**
      * Retrieves a {@linkplain Account account} with the given id
      * 
@@ -176,4 +203,20 @@ public interface AccountDAO {
      */
     boolean changeZipCode(int id, String newZipCode) throws IOException;
 
+    /**
+     * Applies a set of profile changes to a {@linkplain Account account} at once
+     * and saves them together
+     * 
+     * @param id     The id of the {@link Account account} to change
+     * 
+     * @param update The changes to apply, fields left null are kept
+     * 
+     * @return the updated {@link Account account}
+     * <br>
+     * null if no {@link Account account} with a matching id is found
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    Account updateProfile(int id, ProfileUpdate update) throws IOException;
+
 }
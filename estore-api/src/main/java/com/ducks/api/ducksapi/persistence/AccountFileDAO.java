@@ -2,34 +2,72 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import com.ducks.api.ducksapi.model.Account;
 import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
 import com.ducks.api.ducksapi.model.UserAccount;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Implements the functionality for JSON file-based persistance for Accounts
+ * <br>
+ * This is the default account storage. Setting accounts.storage to lazy
+ * selects the {@link LazyAccountFileDAO lazily loading} one instead, which
+ * exports its accounts back to the file when it stops.
+ * <br>
+ * With the journal enabled, a change to one account is appended to an
+ * {@link AccountJournal account journal} instead of rewriting the whole file.
+ * The journal is folded back into the file in the background once it holds
+ * enough records.
  * 
  * @author Travis Hill
  */
 
 @Component
+@ConditionalOnProperty(name = "accounts.storage", havingValue = "file", matchIfMissing = true)
 public class AccountFileDAO implements AccountDAO {
+    private static final Logger LOG = Logger.getLogger(AccountFileDAO.class.getName());
+    private static final long COMPACTOR_SHUTDOWN_SECONDS = 30; // Longest wait for a running compaction on close
 
-    Map<Integer, Account> accounts; // Creates a local cache of account objects so the file doesn't have to
+    NavigableMap<Integer, Account> accounts; // Creates a local cache of account objects so the file doesn't have to
                                     // be read from each time
+    private final ReentrantLock accountsLock = new ReentrantLock(); // Guards the accounts, the username index and
+                                                                    // the journal
     private ObjectMapper objectMapper; // Provides conversion between Account objects and JSON text format
                                        // written to the file
     private static int nextID; // The next ID to assign to a account
     private String filename; // Filename to read and write to
     private Account adminAccount = new OwnerAccount(); // Reserved owner account.
+    private Map<String, Integer> idsByUsername; // Case-folded username -> account id, guarded by accountsLock
+    private AccountJournal journal; // Change log next to the file, null when not journaled
+    private int compactThreshold; // Number of journal records that triggers a compaction
+    private ExecutorService compactor; // Folds the journal into the file in the background
+    private boolean compactionPending; // Whether a compaction was handed to the compactor, guarded by accountsLock
 
     /**
      * Creates a Account File Data Access Object
@@ -40,9 +78,41 @@ public class AccountFileDAO implements AccountDAO {
      * 
      * @throws IOException when file cannot be accessed or read from
      */
-    public AccountFileDAO(@Value("${accounts.file}") String filename, ObjectMapper objectMapper) throws IOException {
+    public AccountFileDAO(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, false, 0);
+    }
+
+    /**
+     * Creates a Account File Data Access Object, optionally journaling changes
+     * 
+     * @param filename         Filename to read from and write to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         Serialization/Deserialization
+     * @param journaled        Whether changes are journaled
+     * @param compactThreshold Number of journal records that triggers a
+     *                         compaction
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public AccountFileDAO(@Value("${accounts.file}") String filename, ObjectMapper objectMapper,
+            @Value("${accounts.journal.enabled:false}") boolean journaled,
+            @Value("${accounts.journal.compact.threshold:1000}") int compactThreshold) throws IOException {
         this.filename = filename;
         this.objectMapper = objectMapper;
+        if (LazyAccountFileDAO.hasUnexportedChanges(filename)) {
+            throw new IOException(filename + " is older than the lazy account storage next to it,"
+                    + " start with accounts.storage=lazy and stop cleanly to export it first");
+        }
+        if (journaled) {
+            this.journal = new AccountJournal(filename, objectMapper);
+            this.compactThreshold = compactThreshold;
+            this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "account-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
         load();
         createAccount(adminAccount);
     }
@@ -54,15 +124,211 @@ public class AccountFileDAO implements AccountDAO {
      * @throws IOException when file cannot be accessed or written to
      */
     private boolean save() throws IOException {
+        FileIoEvent io = PersistenceMetrics.startIo();
         Account[] accountArray = getAccountsArray();
 
         // Serializes the Java Objects to JSON objects into the file
         // Throws IOException if an error occurs reading/writing to the file
         objectMapper.writeValue(new File(filename), accountArray);
+        PersistenceMetrics.saved(filename, io, Paths.get(filename), accountArray.length);
 
         return true;
     }
 
+    /**
+     * Records a created or updated {@linkplain Account account}, either by
+     * appending it to the journal or by saving every account
+     * <br>
+     * Must be called with accountsLock held
+     * 
+     * @param account The {@link Account account} that changed
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private boolean persist(Account account) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        journal.appendPut(account);
+        return compactIfNeeded();
+    }
+
+    /**
+     * Records a change to one profile field of an {@linkplain Account account},
+     * either by appending just that field to the journal or by saving every
+     * account
+     * <br>
+     * Must be called with accountsLock held, after the field was set
+     * 
+     * @param id    The id of the {@link Account account}
+     * @param field The field that changed
+     * @param value The new value of the field
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private boolean persist(int id, AccountJournal.Field field, String value) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        journal.appendSet(id, field, value);
+        return compactIfNeeded();
+    }
+
+    /**
+     * Records the delete of an {@linkplain Account account}, either by appending
+     * it to the journal or by saving every account
+     * <br>
+     * Must be called with accountsLock held
+     * 
+     * @param id The id of the deleted {@link Account account}
+     * 
+     * @return true if the change was written successfully
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private boolean persistDelete(int id) throws IOException {
+        if (journal == null) {
+            return save();
+        }
+        journal.appendDelete(id);
+        return compactIfNeeded();
+    }
+
+    /**
+     * Hands a compaction to the compactor once the journal has grown past the
+     * threshold and none is pending yet
+     * <br>
+     * Must be called with accountsLock held. A compaction that failed is tried
+     * again on the next change.
+     * 
+     * @return true
+     */
+    private boolean compactIfNeeded() {
+        if (journal.getEntries() >= compactThreshold && !compactionPending) {
+            compactionPending = true;
+            compactor.execute(this::compactQuietly);
+        }
+        return true;
+    }
+
+    /**
+     * Folds the journal into the file
+     * <br>
+     * The accounts are changed in place, so they are encoded while locked. The
+     * file itself is written without the lock held, so logins and profile edits
+     * are not blocked for the length of the write. Records appended while the
+     * file is being written stay in the journal for the next compaction.
+     * 
+     * @throws IOException when the file or journal cannot be written to
+     */
+    void compact() throws IOException {
+        Account[] accountArray;
+        byte[] json;
+        long mark;
+        accountsLock.lock();
+        try {
+            if (journal == null || journal.getEntries() == 0) {
+                return;
+            }
+            accountArray = getAccountsArray();
+            json = objectMapper.writerFor(Account[].class).writeValueAsBytes(accountArray);
+            mark = journal.mark();
+        } finally {
+            accountsLock.unlock();
+        }
+
+        saveReplacing(json, accountArray.length);
+
+        accountsLock.lock();
+        try {
+            journal.trim(mark);
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * Writes encoded {@linkplain Account accounts} to a temporary file and moves
+     * it over the file, so a crash part way through never leaves the journal
+     * without a whole file to be replayed on top of
+     * 
+     * @param json    The encoded {@link Account accounts}
+     * @param records The number of {@link Account accounts} encoded
+     * 
+     * @throws IOException when the file cannot be written to
+     */
+    private void saveReplacing(byte[] json, int records) throws IOException {
+        FileIoEvent io = PersistenceMetrics.startIo();
+        Path path = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        Files.write(temp, json);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        PersistenceMetrics.saved(filename, io, path, records);
+    }
+
+    /**
+     * Runs a compaction on the compactor thread, logging instead of throwing if
+     * it fails so the journal is left for the next attempt
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not fold the account journal into " + filename, e);
+        } finally {
+            accountsLock.lock();
+            try {
+                compactionPending = false;
+            } finally {
+                accountsLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return Whether a compaction was handed to the compactor and has not
+     *         finished yet
+     */
+    boolean isCompactionPending() {
+        accountsLock.lock();
+        try {
+            return compactionPending;
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the compactor, waits for a compaction it is running and folds
+     * whatever is left in the journal into the file
+     * 
+     * @throws IOException when the file or journal cannot be written to
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        compactor.shutdown();
+        // A compaction already handed to the compactor must finish first, or
+        // it would write the file and trim the journal alongside this one
+        try {
+            if (!compactor.awaitTermination(COMPACTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                throw new IOException("Journal compaction of " + filename + " did not finish in "
+                        + COMPACTOR_SHUTDOWN_SECONDS + " seconds, the journal is left to be replayed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the journal compaction of " + filename);
+        }
+        compact();
+        journal.close();
+    }
+
     /**
      * Loads {@linkplain Account accounts} from the JSON file and stores them into a
      * Map.
@@ -75,16 +341,33 @@ public class AccountFileDAO implements AccountDAO {
      */
     private boolean load() throws IOException {
         accounts = new TreeMap<>();
+        idsByUsername = new HashMap<>();
         nextID = 0;
 
         // Deserializes the JSON Objects in the file to an array of accounts.
         // Throws IOException if an error occurs reading/accessing the file
+        FileIoEvent io = PersistenceMetrics.startIo();
         Account[] accountArray = objectMapper.readValue(new File(filename), Account[].class);
+        PersistenceMetrics.loaded(filename, io, Paths.get(filename), accountArray.length);
 
-        // Add each account to the tree map and find the greatest ID.
+        // Add each account to the tree map
         for (Account account : accountArray) {
             // Uses account ID as key in map, stores account as value to key.
             accounts.put(account.getId(), account);
+        }
+        if (journal != null) {
+            journal.replay(accounts);
+            if (journal.getEntries() > 0) {
+                // Fold what the last run left in the journal into the file
+                Account[] replayed = getAccountsArray();
+                saveReplacing(objectMapper.writerFor(Account[].class).writeValueAsBytes(replayed), replayed.length);
+                journal.clear();
+            }
+        }
+
+        // Index the usernames and find the greatest ID.
+        for (Account account : accounts.values()) {
+            idsByUsername.putIfAbsent(usernameKey(account.getUsername()), account.getId());
             int currAccountID = account.getId();
             if (currAccountID > nextID) {
                 nextID = currAccountID;
@@ -134,6 +417,40 @@ public class AccountFileDAO implements AccountDAO {
         return accountArray;
     }
 
+    /**
+     * Case-folds a username so that usernames differing only in case map to the
+     * same key
+     * <br>
+     * Folds one character at a time the same way
+     * {@link String#equalsIgnoreCase(String)} compares them
+     * 
+     * @param username The username to fold
+     * 
+     * @return The key for the username index
+     */
+    private static String usernameKey(String username) {
+        char[] chars = username.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Finds the {@linkplain Account account} with the given username, ignoring
+     * case
+     * <br>
+     * Must be called with accountsLock held
+     * 
+     * @param username The username to look for
+     * 
+     * @return The {@link Account account}, or null if there is none
+     */
+    private Account getAccountByUsername(String username) {
+        Integer id = idsByUsername.get(usernameKey(username));
+        return id == null ? null : accounts.get(id);
+    }
+
     /**
      * Generates the next id for a new {@linkplain} Account account}
      * 
@@ -151,21 +468,70 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account[] getAccounts() throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // No filter
             return getAccountsArray();
+        } finally {
+            accountsLock.unlock();
         }
     }
 
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Page<Account> getAccountsPage(String cursor, int limit) throws IOException {
+        int afterId = Page.decodeCursor(cursor);
+        List<Account> accountList = new ArrayList<>();
+        // Handles multiple click events
+        accountsLock.lock();
+        try {
+            // Take one extra account to find out whether there is another page
+            for (Account account : accounts.tailMap(afterId, false).values()) {
+                if (accountList.size() > limit) {
+                    break;
+                }
+                accountList.add(account);
+            }
+        } finally {
+            accountsLock.unlock();
+        }
+        return Page.of(accountList, limit, Account::getId);
+    }
+
     /**
      * * {@inheritDoc}}
      */
     @Override
     public Account[] findAccounts(String containsText) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // With filter
             return getAccountsArray(containsText);
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account findAccountByUsername(String username) throws IOException {
+        if (username == null) {
+            return null;
+        }
+        accountsLock.lock();
+        try {
+            return getAccountByUsername(username);
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -175,13 +541,18 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account getAccount(int id) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // If accounts has account id return it.
             if (accounts.containsKey(id)) {
                 return accounts.get(id);
             }
             // If the ID doesn't exist, return null
             return null;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -191,16 +562,15 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account createAccount(Account account) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Create new account object with nextID as its unique ID.
             // First we check if the account username already exists
-            Account[] accountArray = getAccountsArray(account.getUsername());
-            for (Account existingAccount : accountArray) {
-                String existingUsername = existingAccount.getUsername();
+            if (getAccountByUsername(account.getUsername()) != null) {
                 // Username already exists in the inventory, return null
-                if (existingUsername.equalsIgnoreCase(account.getUsername())) {
-                    return null;
-                }
+                return null;
             }
             Account newAccount;
             // This account should be the only admin account made by the FileDAO. The rest
@@ -217,10 +587,13 @@ public class AccountFileDAO implements AccountDAO {
             // feedback purposes.
             if (account.validateStrongPassword(account.getPlainPassword())) {
                 accounts.put(newAccount.getId(), newAccount);
+                idsByUsername.put(usernameKey(newAccount.getUsername()), newAccount.getId());
                 // Save changes to the database
-                save();
+                persist(newAccount);
             }
             return newAccount;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -230,7 +603,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public Account updateAccount(Account account) throws IOException {
         // Handles multiple click events
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             int accountID = account.getId();
             // Fail account update if password is not strong
             if (!account.validateStrongPassword(account.getPlainPassword())) {
@@ -238,12 +614,21 @@ public class AccountFileDAO implements AccountDAO {
             }
             // If the database has the account in it, put the changed account into it.
             if (accounts.containsKey(accountID)) {
-                accounts.put(accountID, account);
+                Account oldAccount = accounts.put(accountID, account);
+                // Keep the username index in step if the account was renamed
+                String oldKey = usernameKey(oldAccount.getUsername());
+                String newKey = usernameKey(account.getUsername());
+                if (!oldKey.equals(newKey)) {
+                    idsByUsername.remove(oldKey, accountID);
+                    idsByUsername.putIfAbsent(newKey, accountID);
+                }
                 // Save changes to database.
-                save();
+                persist(account);
                 return account;
             }
             return null;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -253,15 +638,21 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean deleteAccount(int id) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
-                accounts.remove(id);
-                save();
+                Account removed = accounts.remove(id);
+                idsByUsername.remove(usernameKey(removed.getUsername()), id);
+                persistDelete(id);
                 return true;
             }
             // Account is not in database, therefore cannot be deleted
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -271,7 +662,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changePassword(int id, String originalPass, String newPass) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
                 Account account = getAccount(id);
@@ -282,11 +676,13 @@ public class AccountFileDAO implements AccountDAO {
                     // changes password
                     account.setPassword(newPass);
                     // Save changes to database
-                    return save();
+                    return persist(id, AccountJournal.Field.PASSWORD, newPass);
                 }
             }
             // Account not in database, can't change password
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -296,7 +692,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changeFirstName(int id, String newFirstName) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
 
@@ -307,10 +706,12 @@ public class AccountFileDAO implements AccountDAO {
                 account.setFirstName(newFirstName);
 
                 // Save changes to database
-                return save();
+                return persist(id, AccountJournal.Field.FIRST_NAME, newFirstName);
             }
             // Account not in database, can't change First Name
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -320,7 +721,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changeLastName(int id, String newLastName) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
 
@@ -331,10 +735,12 @@ public class AccountFileDAO implements AccountDAO {
                 account.setLastName(newLastName);
 
                 // Save changes to database
-                return save();
+                return persist(id, AccountJournal.Field.LAST_NAME, newLastName);
             }
             // Account not in database, can't change Last Name
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -344,7 +750,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changeAddress(int id, String newAddress) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
 
@@ -355,10 +764,12 @@ public class AccountFileDAO implements AccountDAO {
                 account.setAddress(newAddress);
 
                 // Save changes to database
-                return save();
+                return persist(id, AccountJournal.Field.ADDRESS, newAddress);
             }
             // Account not in database, can't change Address
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -368,7 +779,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changeCity(int id, String newCity) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
 
@@ -379,10 +793,12 @@ public class AccountFileDAO implements AccountDAO {
                 account.setCity(newCity);
 
                 // Save changes to database
-                return save();
+                return persist(id, AccountJournal.Field.CITY, newCity);
             }
             // Account not in database, can't change City
             return false;
+        } finally {
+            accountsLock.unlock();
         }
     }
 
@@ -392,7 +808,10 @@ public class AccountFileDAO implements AccountDAO {
     @Override
     public boolean changeZipCode(int id, String newZipCode) throws IOException {
         // Handles multiple clickEvents
-        synchronized (accounts) {
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // Checks if account is in database
             if (accounts.containsKey(id)) {
 
@@ -403,10 +822,36 @@ public class AccountFileDAO implements AccountDAO {
                 account.setZipCode(newZipCode);
 
                 // Save changes to database
-                return save();
+                return persist(id, AccountJournal.Field.ZIP_CODE, newZipCode);
             }
             // Account not in database, can't change ZipCode
             return false;
+        } finally {
+            accountsLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account updateProfile(int id, ProfileUpdate update) throws IOException {
+        // Handles multiple clickEvents
+        long waitStart = System.nanoTime();
+        accountsLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = accounts.get(id);
+            // Account not in database, can't change its profile
+            if (account == null) {
+                return null;
+            }
+            update.applyTo(account);
+            // Save every change with a single write
+            persist(account);
+            return account;
+        } finally {
+            accountsLock.unlock();
         }
     }
 }
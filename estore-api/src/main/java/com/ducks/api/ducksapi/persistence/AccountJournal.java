@@ -0,0 +1,194 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only log of {@linkplain Account account} changes that sits next to the
+ * accounts file
+ * <br>
+ * A profile edit is logged as a single record naming the account, the field and
+ * its new value, so it costs a few dozen bytes no matter how many accounts there
+ * are. Creates and updates log the whole account and deletes log the id. Every
+ * record sets state rather than changing it, so replaying one twice leaves the
+ * accounts the same.
+ * <br>
+ * Like every {@link Journal journal}, this class is not thread safe, callers
+ * are expected to hold the lock that guards the accounts map while using it.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class AccountJournal extends Journal<AccountJournal.Entry> {
+    /**
+     * Opens the journal that belongs to the given accounts file, creating it if
+     * it does not exist yet
+     *
+     * @param accountsFilename The accounts file the journal belongs to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     *
+     * @throws IOException when the journal cannot be opened
+     */
+    public AccountJournal(String accountsFilename, ObjectMapper objectMapper) throws IOException {
+        super(accountsFilename, objectMapper, Entry.class);
+    }
+
+    /**
+     * Replays every record in the journal on top of the given map
+     *
+     * @param accounts The map loaded from the file, updated in place
+     *
+     * @return The greatest account id created in the journal, or -1 if there
+     *         were no account records
+     *
+     * @throws IOException when the journal cannot be read
+     */
+    public int replay(Map<Integer, Account> accounts) throws IOException {
+        int maxId = -1;
+        for (Entry entry : readEntries()) {
+            if (entry.op == Op.PUT) {
+                accounts.put(entry.account.getId(), entry.account);
+                maxId = Math.max(maxId, entry.account.getId());
+            } else if (entry.op == Op.DELETE) {
+                accounts.remove(entry.id);
+            } else {
+                Account account = accounts.get(entry.id);
+                if (account != null) {
+                    entry.field.apply(account, entry.value);
+                }
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * Appends a record storing the full state of the given account
+     *
+     * @param account The created or updated account
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendPut(Account account) throws IOException {
+        append(new Entry(Op.PUT, account.getId(), account, null, null));
+    }
+
+    /**
+     * Appends a record deleting the account with the given id
+     *
+     * @param id The id of the deleted account
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendDelete(int id) throws IOException {
+        append(new Entry(Op.DELETE, id, null, null, null));
+    }
+
+    /**
+     * Appends a record setting one field of an account
+     *
+     * @param id    The id of the account
+     * @param field The field that changed
+     * @param value The new value of the field
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendSet(int id, Field field, String value) throws IOException {
+        append(new Entry(Op.SET, id, null, field, value));
+    }
+
+    /**
+     * The kind of change a journal record describes
+     */
+    enum Op {
+        PUT,
+        DELETE,
+        SET
+    }
+
+    /**
+     * The profile fields that are logged on their own
+     */
+    public enum Field {
+        FIRST_NAME {
+            @Override
+            void apply(Account account, String value) {
+                account.setFirstName(value);
+            }
+        },
+        LAST_NAME {
+            @Override
+            void apply(Account account, String value) {
+                account.setLastName(value);
+            }
+        },
+        ADDRESS {
+            @Override
+            void apply(Account account, String value) {
+                account.setAddress(value);
+            }
+        },
+        CITY {
+            @Override
+            void apply(Account account, String value) {
+                account.setCity(value);
+            }
+        },
+        ZIP_CODE {
+            @Override
+            void apply(Account account, String value) {
+                account.setZipCode(value);
+            }
+        },
+        PASSWORD {
+            @Override
+            void apply(Account account, String value) {
+                account.setPassword(value);
+            }
+        };
+
+        /**
+         * Sets the field on an account
+         *
+         * @param account The account
+         * @param value   The new value of the field
+         */
+        abstract void apply(Account account, String value);
+    }
+
+    /**
+     * A single line of the journal
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Entry {
+        @JsonProperty("op")
+        Op op;
+
+        @JsonProperty("id")
+        int id;
+
+        @JsonProperty("account")
+        Account account;
+
+        @JsonProperty("field")
+        Field field;
+
+        @JsonProperty("value")
+        String value;
+
+        Entry() {
+        }
+
+        Entry(Op op, int id, Account account, Field field, String value) {
+            this.op = op;
+            this.id = id;
+            this.account = account;
+            this.field = field;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Reads and writes the compact binary snapshots the file DAOs can keep instead
+ * of their JSON files
+ * <br>
+ * A snapshot is a fixed size header followed by the records. The header holds
+ * a magic number, the format version, the kind of record, the number of
+ * records, the length of the records in bytes and a CRC32 of those bytes. Each
+ * record is prefixed by its own length, so a reader can step over fields added
+ * by a newer codec. A snapshot is written to a temporary file and moved into
+ * place, and is read back with sequential channel reads, never through a
+ * parser.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class BinarySnapshot {
+    static final String SUFFIX = ".snapshot"; // Appended to the JSON filename
+
+    static final byte DUCKS = 1; // Kind of record: ducks
+    static final byte CARTS = 2; // Kind of record: shopping carts
+
+    private static final int MAGIC = 0x51434b53; // "QCKS"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 24; // magic, version, kind, reserved, count, length, crc
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Gets the snapshot kept for a JSON file
+     *
+     * @param filename The JSON file
+     *
+     * @return The path of its snapshot
+     */
+    static Path pathFor(String filename) {
+        return Paths.get(filename + SUFFIX);
+    }
+
+    /**
+     * Checks whether the snapshot should be loaded instead of the JSON file
+     * <br>
+     * A JSON file newer than the snapshot was put there to be imported, so it
+     * wins
+     *
+     * @param filename The JSON file
+     *
+     * @return true if the snapshot exists and is at least as new as the JSON file
+     *
+     * @throws IOException when the files cannot be read
+     */
+    static boolean isCurrent(String filename) throws IOException {
+        Path snapshot = pathFor(filename);
+        if (!Files.exists(snapshot)) {
+            return false;
+        }
+        Path json = Paths.get(filename);
+        return !Files.exists(json)
+                || Files.getLastModifiedTime(snapshot).compareTo(Files.getLastModifiedTime(json)) >= 0;
+    }
+
+    /**
+     * Writes records to a snapshot, replacing the old one in a single move
+     *
+     * @param <T>     The type of record
+     * @param path    The snapshot
+     * @param kind    The kind of record
+     * @param records The records
+     * @param codec   Writes each record
+     *
+     * @throws IOException when the snapshot cannot be written
+     */
+    static <T> void write(Path path, byte kind, Collection<T> records, SnapshotCodec<T> codec)
+            throws IOException {
+        Path temp = Paths.get(path + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_BYTES);
+            CRC32 crc = new CRC32();
+            // The buffer sits between the checksum and the data stream, so the checksum
+            // is updated a block at a time rather than a byte at a time
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(256);
+            DataOutputStream recordOut = new DataOutputStream(recordBytes);
+            long length = 0;
+            int count = 0;
+            for (T record : records) {
+                recordBytes.reset();
+                codec.write(recordOut, record);
+                out.writeInt(recordBytes.size());
+                recordBytes.writeTo(out);
+                length += Integer.BYTES + recordBytes.size();
+                ++count;
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putShort(VERSION).put(kind).put((byte) 0).putInt(count).putLong(length)
+                    .putInt((int) crc.getValue());
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads every record in a snapshot
+     *
+     * @param <T>   The type of record
+     * @param path  The snapshot
+     * @param kind  The kind of record expected
+     * @param codec Reads each record
+     *
+     * @return The records in the order they were written
+     *
+     * @throws IOException when the snapshot cannot be read, is not a snapshot of
+     *                     the expected kind, or fails its checksum
+     */
+    static <T> List<T> read(Path path, byte kind, SnapshotCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, path);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported snapshot version " + version);
+            }
+            if (header.get() != kind) {
+                throw new IOException(path + " holds a different kind of record");
+            }
+            header.get(); // reserved
+            int count = header.getInt();
+            long length = header.getLong();
+            int expectedCrc = header.getInt();
+            if (count < 0 || length < 0 || length > Integer.MAX_VALUE
+                    || length != channel.size() - HEADER_BYTES) {
+                throw new IOException(path + " is truncated or corrupt");
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate((int) length);
+            readFully(channel, payload, path);
+            payload.flip();
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException(path + " failed its checksum");
+            }
+
+            List<T> records = new ArrayList<>(count);
+            try {
+                for (int i = 0; i < count; ++i) {
+                    int recordLength = payload.getInt();
+                    ByteBuffer record = payload.slice();
+                    record.limit(recordLength);
+                    records.add(codec.read(record));
+                    payload.position(payload.position() + recordLength);
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException(path + " holds a malformed record", e);
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Writes a string that may be null
+     *
+     * @param out   Where the string is written
+     * @param value The string
+     *
+     * @throws IOException when the string cannot be written
+     */
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString(DataOutput, String)}
+     *
+     * @param in The record being read
+     *
+     * @return The string, may be null
+     */
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Fills a buffer from a channel
+     *
+     * @param channel The channel
+     * @param buffer  The buffer
+     * @param path    The file, for the error message
+     *
+     * @throws IOException when the channel ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException(path + " is truncated");
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every call into the {@linkplain DuckDAO duck},
+ * {@linkplain ShoppingCartDAO shopping cart} and {@linkplain AccountDAO
+ * account} Data Access Objects
+ * <br>
+ * Each DAO bean is wrapped in a proxy of its DAO interface that records a
+ * persistence.dao timer tagged with the bean, the method and the exception the
+ * call threw, if any. The beans are still injected by their interface as
+ * before. The {@link LazyAccountFileDAO lazily loading account DAO} also has
+ * its cache counters published.
+ *
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and has it post process every other bean
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class DaoMetricsPostProcessor implements BeanPostProcessor {
+    private static final Class<?>[] DAO_TYPES = { DuckDAO.class, ShoppingCartDAO.class, AccountDAO.class };
+
+    private final MeterRegistry registry; // Where the timers are registered
+
+    /**
+     * Creates the post processor, registering with the global registry that
+     * Spring Boot feeds into /actuator/prometheus
+     */
+    public DaoMetricsPostProcessor() {
+        this(Metrics.globalRegistry);
+    }
+
+    /**
+     * Creates the post processor
+     *
+     * @param registry Where the timers are registered
+     */
+    DaoMetricsPostProcessor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> daoType = daoTypeOf(bean);
+        if (daoType == null) {
+            return bean;
+        }
+        if (bean instanceof LazyAccountFileDAO) {
+            bindCache((LazyAccountFileDAO) bean, beanName);
+        }
+        ProxyFactory factory = new ProxyFactory(bean);
+        factory.setInterfaces(daoType);
+        factory.addAdvice(new TimingInterceptor(registry, daoType.getSimpleName(), beanName));
+        return factory.getProxy(bean.getClass().getClassLoader());
+    }
+
+    /**
+     * @param bean A bean
+     *
+     * @return The DAO interface the bean implements, or null if it is not a DAO
+     */
+    private static Class<?> daoTypeOf(Object bean) {
+        for (Class<?> type : DAO_TYPES) {
+            if (type.isInstance(bean)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Publishes the cache counters of the lazily loading account DAO
+     *
+     * @param dao      The DAO
+     * @param beanName The name of its bean
+     */
+    private void bindCache(LazyAccountFileDAO dao, String beanName) {
+        FunctionCounter.builder("persistence.cache.hits", dao, LazyAccountFileDAO::getCacheHits)
+                .tag("cache", beanName).register(registry);
+        FunctionCounter.builder("persistence.cache.misses", dao, LazyAccountFileDAO::getCacheMisses)
+                .tag("cache", beanName).register(registry);
+        FunctionCounter.builder("persistence.cache.evictions", dao, LazyAccountFileDAO::getCacheEvictions)
+                .tag("cache", beanName).register(registry);
+        Gauge.builder("persistence.cache.size", dao, LazyAccountFileDAO::getCacheSize)
+                .tag("cache", beanName).register(registry);
+    }
+
+    /**
+     * Times each call made through a DAO proxy
+     */
+    static final class TimingInterceptor implements MethodInterceptor {
+        private final MeterRegistry registry; // Where the timers are registered
+        private final String dao; // The DAO interface
+        private final String bean; // The name of the bean
+        private final Map<Method, Timer> timers = new ConcurrentHashMap<>(); // Timers of calls that returned
+
+        TimingInterceptor(MeterRegistry registry, String dao, String bean) {
+            this.registry = registry;
+            this.dao = dao;
+            this.bean = bean;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            long start = System.nanoTime();
+            try {
+                Object result = invocation.proceed();
+                timers.computeIfAbsent(method, m -> timer(m, "none")).record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+                return result;
+            } catch (Throwable t) {
+                timer(method, t.getClass().getSimpleName()).record(System.nanoTime() - start,
+                        TimeUnit.NANOSECONDS);
+                throw t;
+            }
+        }
+
+        /**
+         * @param method    The DAO method
+         * @param exception The simple name of the exception the call threw, or
+         *                  none
+         *
+         * @return The timer of calls to the method
+         */
+        private Timer timer(Method method, String exception) {
+            return Timer.builder("persistence.dao")
+                    .description("Calls into the Data Access Objects")
+                    .tag("dao", dao)
+                    .tag("bean", bean)
+                    .tag("method", method.getName())
+                    .tag("exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
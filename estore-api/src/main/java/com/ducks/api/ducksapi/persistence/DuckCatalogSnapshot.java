@@ -0,0 +1,87 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.ducks.api.ducksapi.model.Duck;
+
+/**
+ * An immutable, versioned view of a duck catalog
+ * <br>
+ * The DAO builds a new snapshot after every committed write and publishes it
+ * through a volatile reference, so readers can use whichever snapshot they
+ * picked up without taking the writer lock and without copying the catalog.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class DuckCatalogSnapshot {
+    private final long version; // Bumped on every committed write
+    private final Duck[] ducks; // The ducks, sorted by id
+    private final int[] ids; // The id of each duck in ducks, for binary search
+
+    /**
+     * Creates a snapshot of the given ducks
+     *
+     * @param version The version of the catalog
+     * @param ducks   The ducks, in ascending id order
+     */
+    DuckCatalogSnapshot(long version, Collection<Duck> ducks) {
+        this.version = version;
+        this.ducks = ducks.toArray(new Duck[0]);
+        this.ids = new int[this.ducks.length];
+        for (int i = 0; i < this.ducks.length; ++i) {
+            ids[i] = this.ducks[i].getId();
+        }
+    }
+
+    /**
+     * @return The version of the catalog this snapshot was taken at
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets every duck in the snapshot
+     * <br>
+     * The array is shared by every reader of this snapshot and must not be
+     * modified
+     *
+     * @return The ducks, sorted by id
+     */
+    public Duck[] getDucks() {
+        return ducks;
+    }
+
+    /**
+     * Finds the duck with the given id
+     *
+     * @param id The id of the duck
+     *
+     * @return The duck, or null if the snapshot does not contain it
+     */
+    public Duck getDuck(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? ducks[index] : null;
+    }
+
+    /**
+     * Finds where the ducks after the given id start
+     *
+     * @param id The id to start after
+     *
+     * @return The index of the first duck with a greater id, the size of the
+     *         snapshot if there is none
+     */
+    public int indexAfter(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    /**
+     * @return The number of ducks in the snapshot
+     */
+    public int size() {
+        return ducks.length;
+    }
+}
@@ -1,6 +1,7 @@
 package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
+import java.util.Map;
 
 import com.ducks.api.ducksapi.model.Duck;
 
@@ -19,6 +20,40 @@ public interface DuckDAO {
      */
     Duck[] getDucks() throws IOException;
 
+    /**
+     * Retrieves the version of the catalog
+     * <br>
+     * The version changes every time a {@linkplain Duck duck} is created, updated
+     * or deleted, so anything derived from {@link #getDucks()} can be reused for
+     * as long as the version stays the same
+     * 
+     * @return The current version of the catalog
+     */
+    long getCatalogVersion();
+
+    /**
+     * Tells whether the read methods return without waiting on a lock or on
+     * storage, so they can be called from an event loop thread
+     * 
+     * @return true if reads never block, false by default
+     */
+    default boolean hasNonBlockingReads() {
+        return false;
+    }
+
+    /**
+     * Retrieves one page of {@linkplain Duck ducks}, in ascending id order
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @param limit  The most {@link Duck ducks} to return
+     * 
+     * @return The page, with a cursor for the next one if there are more
+     * 
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws IOException if an issue with underlying storage
+     */
+    Page<Duck> getDucksPage(String cursor, int limit) throws IOException;
+
     /**
      * Finds all {@linkplain Duck ducks} whose name contains the given text
      * 
@@ -31,6 +66,20 @@ public interface DuckDAO {
      */
     Duck[] findDucks(String containsText) throws IOException;
 
+    /**
+     * Finds all {@linkplain Duck ducks} whose name contains the given text,
+     * optionally ignoring case
+     * 
+     * @param containsText The text to match against
+     * @param ignoreCase   Whether upper and lower case letters match each other
+     * 
+     * @return An array of {@link Duck ducks} whose names contain the given text,
+     *         may be empty
+     * 
+     * @throws IOException if an issue with underlying storage
+     */
+    Duck[] findDucks(String containsText, boolean ignoreCase) throws IOException;
+
     /**
      * Retrieves a {@linkplain Duck duck} with the given id
      * 
@@ -80,6 +129,22 @@ public interface DuckDAO {
      */
     Duck updateDuck(Duck duck) throws IOException;
 
+    /**
+     * Takes the given quantities out of the inventory, all or nothing
+     * <br>
+     * Every {@linkplain Duck duck} is checked before any is changed, and the
+     * change is saved once for all of them
+     * 
+     * @param quantities The id of each {@link Duck duck} and how many to take
+     * 
+     * @return true if every quantity was taken<br>
+     *         false if a {@link Duck duck} does not exist or has too few left, in
+     *         which case nothing was changed
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    boolean decrementQuantities(Map<Integer, Integer> quantities) throws IOException;
+
     /**
      * Deletes a {@linkplain Duck duck} with the given id
      * 
@@ -2,7 +2,9 @@ package com.ducks.api.ducksapi.persistence;
 
 import java.io.IOException;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,11 +14,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * 
  * {@literal @}Component Spring annotation instantiates a single instance of
  * this
- * class and injects the instance into other classes as needed
+ * class and injects the instance into other classes as needed, unless
+ * ducks.storage selects {@link MappedDuckStorage another storage engine}
  * 
  * @author SWEN Faculty
  */
 @Component("duckFileDAO")
+@ConditionalOnProperty(name = "ducks.storage", havingValue = "file", matchIfMissing = true)
 public class DuckFileDAO extends DuckFileDAOAbstract {
     
     /**
@@ -28,8 +32,52 @@ public class DuckFileDAO extends DuckFileDAOAbstract {
      * 
      * @throws IOException when file cannot be accessed or read from
      */
-    public DuckFileDAO(@Value("${ducks.file}") String filename, ObjectMapper objectMapper) throws IOException {
+    public DuckFileDAO(String filename, ObjectMapper objectMapper) throws IOException {
         super(filename, objectMapper);
     }
 
+    /**
+     * Creates a Duck File Data Access Object, optionally journaling mutations
+     * instead of rewriting the whole file each time
+     * 
+     * @param filename          Filename to read from and write to
+     * @param objectMapper      Provides JSON Object to/from Java Object
+     *                          serialization and deserialization
+     * @param journaled         Whether mutations are journaled
+     * @param compactIntervalMs How often the journal is folded into the file
+     * @param compactThreshold  Number of journal records that triggers an early
+     *                          compaction
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    public DuckFileDAO(String filename, ObjectMapper objectMapper, boolean journaled, long compactIntervalMs,
+            int compactThreshold) throws IOException {
+        this(filename, objectMapper, journaled, compactIntervalMs, compactThreshold, false);
+    }
+
+    /**
+     * Creates a Duck File Data Access Object, optionally journaling mutations
+     * instead of rewriting the whole file each time and keeping the ducks in a
+     * binary snapshot
+     * 
+     * @param filename          Filename to read from and write to
+     * @param objectMapper      Provides JSON Object to/from Java Object
+     *                          serialization and deserialization
+     * @param journaled         Whether mutations are journaled
+     * @param compactIntervalMs How often the journal is folded into the file
+     * @param compactThreshold  Number of journal records that triggers an early
+     *                          compaction
+     * @param binarySnapshot    Whether the ducks are kept in a binary snapshot
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public DuckFileDAO(@Value("${ducks.file}") String filename, ObjectMapper objectMapper,
+            @Value("${ducks.journal.enabled:false}") boolean journaled,
+            @Value("${ducks.journal.compact.interval.ms:5000}") long compactIntervalMs,
+            @Value("${ducks.journal.compact.threshold:1000}") int compactThreshold,
+            @Value("${persistence.snapshot.binary:false}") boolean binarySnapshot) throws IOException {
+        super(filename, objectMapper, journaled, compactIntervalMs, compactThreshold, binarySnapshot);
+    }
+
 }
@@ -1,18 +1,49 @@
 package com.ducks.api.ducksapi.persistence;
 
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
 
 import org.springframework.stereotype.Component;
 
+import com.ducks.api.ducksapi.model.Colors;
 import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Implements the functionality for JSON file-based peristance for Ducks
+ * <br>
+ * Writers change the map while holding its lock and then publish an immutable
+ * {@link DuckCatalogSnapshot snapshot} of it. Readers only ever look at the
+ * latest snapshot, so they never wait on a writer or on a save. Name searches
+ * go through an n-gram {@link DuckNameIndex index} that is updated alongside
+ * the map, and exact lookups by name through a case-folded hash index.
+ * <br>
+ * The ducks can be kept in a compact {@link BinarySnapshot binary snapshot}
+ * next to the JSON file instead of in the JSON file itself, which is then only
+ * read when it is newer than the snapshot and written on shutdown.
  * 
  * {@literal @}Component Spring annotation instantiates a single instance of
  * this
@@ -22,14 +53,62 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Component("duckFileDAO")
 public abstract class DuckFileDAOAbstract implements DuckDAO {
+    private static final Logger LOG = Logger.getLogger(DuckFileDAOAbstract.class.getName());
+    private static final long COMPACTOR_SHUTDOWN_SECONDS = 30; // Longest wait for a running compaction on close
+    private static final int INDEX_READ_ATTEMPTS = 3; // Name index reads a search tries before scanning every duck
+
+    /**
+     * Writes and reads the {@linkplain Duck ducks} in a binary snapshot
+     */
+    static final SnapshotCodec<Duck> DUCK_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(DataOutput out, Duck duck) throws IOException {
+            out.writeInt(duck.getId());
+            BinarySnapshot.writeString(out, duck.getName());
+            out.writeInt(duck.getQuantity());
+            out.writeDouble(duck.getPrice());
+            BinarySnapshot.writeString(out, duck.getSize() == null ? null : duck.getSize().name());
+            BinarySnapshot.writeString(out, duck.getColor() == null ? null : duck.getColor().name());
+            DuckOutfit outfit = duck.getOutfit();
+            out.writeBoolean(outfit != null);
+            if (outfit != null) {
+                for (int uid : outfit.getOutfitAsArray()) {
+                    out.writeInt(uid);
+                }
+            }
+        }
+
+        @Override
+        public Duck read(ByteBuffer in) {
+            int id = in.getInt();
+            String name = BinarySnapshot.readString(in);
+            int quantity = in.getInt();
+            double price = in.getDouble();
+            String size = BinarySnapshot.readString(in);
+            String color = BinarySnapshot.readString(in);
+            DuckOutfit outfit = in.get() == 0 ? null
+                    : new DuckOutfit(in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt());
+            return new Duck(id, name, quantity, price, size == null ? null : Size.valueOf(size),
+                    color == null ? null : Colors.valueOf(color), outfit);
+        }
+    };
+
     protected Map<Integer, Duck> ducks; // Provides a local cache of the duck objects
                               // so that we don't need to read from the file
                               // each time
+    private final ReentrantLock ducksLock = new ReentrantLock(); // Guards the map, the indexes and the journal
     private ObjectMapper objectMapper; // Provides conversion between Duck
                                        // objects and JSON text format written
                                        // to the file
     private static int nextId; // The next Id to assign to a new duck
     private String filename; // Filename to read from and write to
+    private DuckJournal journal; // Mutation log next to the file, null when not journaled
+    private int compactThreshold; // Number of journal records that triggers an early compaction
+    private ScheduledExecutorService compactor; // Folds the journal into the file in the background
+    private volatile DuckCatalogSnapshot snapshot; // What readers see, replaced on every committed write
+    private DuckNameIndex nameIndex; // N-gram index of the duck names for substring search
+    private Map<String, Integer> idsByName; // Case-folded name -> id, for exact lookups by name
+    private boolean binarySnapshot; // Whether the ducks are kept in a binary snapshot instead of the file
 
     /**
      * Creates a Duck File Data Access Object
@@ -41,9 +120,70 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      * @throws IOException when file cannot be accessed or read from
      */
     protected DuckFileDAOAbstract(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, false, 0, 0);
+    }
+
+    /**
+     * Creates a Duck File Data Access Object
+     * <br>
+     * When journaled, every mutation is appended to a journal next to the file
+     * instead of rewriting the whole file. A background compactor folds the
+     * journal back into the file every compactIntervalMs milliseconds, or sooner
+     * once compactThreshold records have piled up.
+     * 
+     * @param filename          Filename to read from and write to
+     * @param objectMapper      Provides JSON Object to/from Java Object
+     *                          serialization and deserialization
+     * @param journaled         Whether mutations are journaled
+     * @param compactIntervalMs How often the journal is folded into the file
+     * @param compactThreshold  Number of journal records that triggers an early
+     *                          compaction
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    protected DuckFileDAOAbstract(String filename, ObjectMapper objectMapper, boolean journaled,
+            long compactIntervalMs, int compactThreshold) throws IOException {
+        this(filename, objectMapper, journaled, compactIntervalMs, compactThreshold, false);
+    }
+
+    /**
+     * Creates a Duck File Data Access Object
+     * <br>
+     * With a binary snapshot, the ducks are saved to and loaded from a
+     * {@link BinarySnapshot snapshot} next to the file. The file is only loaded
+     * when it is newer than the snapshot, so a JSON file can still be dropped
+     * in to be imported, and it is written from the snapshot on shutdown.
+     * 
+     * @param filename          Filename to read from and write to
+     * @param objectMapper      Provides JSON Object to/from Java Object
+     *                          serialization and deserialization
+     * @param journaled         Whether mutations are journaled
+     * @param compactIntervalMs How often the journal is folded into the file
+     * @param compactThreshold  Number of journal records that triggers an early
+     *                          compaction
+     * @param binarySnapshot    Whether the ducks are kept in a binary snapshot
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    protected DuckFileDAOAbstract(String filename, ObjectMapper objectMapper, boolean journaled,
+            long compactIntervalMs, int compactThreshold, boolean binarySnapshot) throws IOException {
         this.filename = filename;
         this.objectMapper = objectMapper;
+        this.binarySnapshot = binarySnapshot;
+        if (journaled) {
+            this.journal = new DuckJournal(filename, objectMapper);
+            this.compactThreshold = compactThreshold;
+        }
         load(); // load the ducks from the file
+        if (journaled) {
+            compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "duck-journal-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            compactor.scheduleWithFixedDelay(this::compactQuietly, compactIntervalMs, compactIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -58,30 +198,79 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
     }
 
     /**
-     * Generates an array of {@linkplain Duck ducks} from the tree map
+     * Gets every {@linkplain Duck duck} in the current snapshot
+     * <br>
+     * The array is shared with every other reader and must not be modified
      * 
      * @return The array of {@link Duck ducks}, may be empty
      */
     private Duck[] getDucksArray() {
-        return getDucksArray(null);
+        return snapshot.getDucks();
     }
 
     /**
-     * Generates an array of {@linkplain Duck ducks} from the tree map for any
-     * {@linkplain Duck ducks} that contains the text specified by containsText
+     * Generates an array of {@linkplain Duck ducks} from the current snapshot for
+     * any {@linkplain Duck ducks} that contains the text specified by
+     * containsText
      * <br>
      * If containsText is null, the array contains all of the {@linkplain Duck
-     * ducks}
-     * in the tree map
+     * ducks} in the snapshot
      * 
      * @return The array of {@link Duck ducks}, may be empty
      */
     private Duck[] getDucksArray(String containsText) { // if containsText == null, no filter
-        ArrayList<Duck> duckArrayList = new ArrayList<>();
+        return getDucksArray(containsText, false);
+    }
 
-        for (Duck duck : ducks.values()) {
-            if (containsText == null || duck.getName().contains(containsText)) {
-                duckArrayList.add(duck);
+    /**
+     * Generates an array of {@linkplain Duck ducks} from the current snapshot for
+     * any {@linkplain Duck ducks} that contains the text specified by
+     * containsText
+     * <br>
+     * Only the {@linkplain Duck ducks} the name index offers as candidates are
+     * looked at. If containsText is null or empty, the array contains all of the
+     * {@linkplain Duck ducks} in the snapshot
+     * 
+     * @param containsText The text to match against
+     * @param ignoreCase   Whether the match ignores case
+     * 
+     * @return The array of {@link Duck ducks}, may be empty
+     */
+    private Duck[] getDucksArray(String containsText, boolean ignoreCase) {
+        if (containsText == null || containsText.isEmpty()) {
+            return getDucksArray();
+        }
+
+        // A name's grams are added before the snapshot holding it is published,
+        // and only dropped after one without it is. So when the same snapshot is
+        // current before and after the index is read, the candidates cover every
+        // match in it. A write in between, such as a rename, makes it try again,
+        // and a search that keeps losing to writers scans the snapshot instead.
+        DuckCatalogSnapshot current = snapshot;
+        int[] candidates = null;
+        for (int attempt = 0; attempt < INDEX_READ_ATTEMPTS && candidates == null; ++attempt) {
+            int[] read = nameIndex.candidates(containsText);
+            DuckCatalogSnapshot after = snapshot;
+            if (after == current) {
+                candidates = read;
+            }
+            current = after;
+        }
+        String foldedText = ignoreCase ? DuckNameIndex.fold(containsText) : null;
+
+        ArrayList<Duck> duckArrayList = new ArrayList<>();
+        if (candidates == null) {
+            for (Duck duck : current.getDucks()) {
+                if (nameMatches(duck, containsText, foldedText)) {
+                    duckArrayList.add(duck);
+                }
+            }
+        } else {
+            for (int id : candidates) {
+                Duck duck = current.getDuck(id);
+                if (duck != null && nameMatches(duck, containsText, foldedText)) {
+                    duckArrayList.add(duck);
+                }
             }
         }
 
@@ -90,6 +279,68 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
         return duckArray;
     }
 
+    /**
+     * Tells whether the name of a {@linkplain Duck duck} contains the text
+     * 
+     * @param duck         The {@link Duck duck}
+     * @param containsText The text to match against
+     * @param foldedText   The case-folded text when the match ignores case, or
+     *                     null when it does not
+     * 
+     * @return true if the name matches
+     */
+    private static boolean nameMatches(Duck duck, String containsText, String foldedText) {
+        return foldedText != null ? DuckNameIndex.fold(duck.getName()).contains(foldedText)
+                : duck.getName().contains(containsText);
+    }
+
+    /**
+     * Indexes the name of a {@linkplain Duck duck} for lookups by name
+     * <br>
+     * If another duck already has the same name ignoring case, that duck keeps
+     * the entry
+     * 
+     * @param duck The {@link Duck duck} to index
+     */
+    private void indexName(Duck duck) {
+        idsByName.putIfAbsent(DuckNameIndex.fold(duck.getName()), duck.getId());
+    }
+
+    /**
+     * Removes a name of a {@linkplain Duck duck} from the lookups by name
+     * <br>
+     * Must be called with the map locked, after the duck was removed or renamed
+     * in it. If another duck has the same name ignoring case it takes over the
+     * entry.
+     * 
+     * @param id   The id of the {@link Duck duck}
+     * @param name The name to remove
+     */
+    private void unindexName(int id, String name) {
+        String key = DuckNameIndex.fold(name);
+        if (!idsByName.remove(key, id)) {
+            return;
+        }
+        for (Duck duck : ducks.values()) {
+            if (DuckNameIndex.fold(duck.getName()).equals(key)) {
+                idsByName.putIfAbsent(key, duck.getId());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes a new snapshot of the map for readers
+     * <br>
+     * Must be called with the map locked, after every change to it. It copies
+     * the whole map, so a write that changes several ducks, such as a checkout,
+     * publishes once for all of them.
+     */
+    private void publish() {
+        long version = snapshot == null ? 1 : snapshot.getVersion() + 1;
+        snapshot = new DuckCatalogSnapshot(version, ducks.values());
+    }
+
     /**
      * Saves the {@linkplain Duck ducks} from the map into the file as an array of
      * JSON objects
@@ -99,17 +350,199 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      * @throws IOException when file cannot be accessed or written to
      */
     private boolean save() throws IOException {
+        FileIoEvent io = PersistenceMetrics.startIo();
         Duck[] duckArray = getDucksArray();
+        if (binarySnapshot) {
+            Path snapshotPath = BinarySnapshot.pathFor(filename);
+            BinarySnapshot.write(snapshotPath, BinarySnapshot.DUCKS, Arrays.asList(duckArray), DUCK_CODEC);
+            PersistenceMetrics.saved(filename, io, snapshotPath, duckArray.length);
+            return true;
+        }
 
         // Serializes the Java Objects to JSON objects into the file
         // writeValue will thrown an IOException if there is an issue
         // with the file or reading from the file
         objectMapper.writeValue(new File(filename), duckArray);
+        PersistenceMetrics.saved(filename, io, Paths.get(filename), duckArray.length);
         return true;
     }
 
     /**
-     * Loads {@linkplain Duck ducks} from the JSON file into the map
+     * Records a created or updated {@linkplain Duck duck}, either by appending it
+     * to the journal or by saving the whole map
+     * 
+     * @param duck The {@link Duck duck} that changed
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private void persist(Duck duck) throws IOException {
+        if (journal == null) {
+            save();
+            return;
+        }
+        journal.appendPut(duck);
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Records a batch of updated {@linkplain Duck ducks} with a single journal
+     * flush or a single save of the whole map
+     * 
+     * @param changed The {@link Duck ducks} that changed
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private void persistAll(List<Duck> changed) throws IOException {
+        if (journal == null) {
+            save();
+            return;
+        }
+        int before = journal.getEntries();
+        journal.appendPuts(changed);
+        if (before < compactThreshold && journal.getEntries() >= compactThreshold) {
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Records the delete of a {@linkplain Duck duck}, either by appending it to
+     * the journal or by saving the whole map
+     * 
+     * @param id The id of the deleted {@link Duck duck}
+     * 
+     * @throws IOException when the journal or file cannot be written to
+     */
+    private void persistDelete(int id) throws IOException {
+        if (journal == null) {
+            save();
+            return;
+        }
+        journal.appendDelete(id);
+        scheduleCompactionIfNeeded();
+    }
+
+    /**
+     * Hands a compaction to the compactor thread once the journal has grown past
+     * the threshold
+     */
+    private void scheduleCompactionIfNeeded() {
+        if (journal.getEntries() == compactThreshold) {
+            compactor.execute(this::compactQuietly);
+        }
+    }
+
+    /**
+     * Folds the journal into the file
+     * <br>
+     * The map is only locked while it is copied and while the journal is trimmed.
+     * The file itself is written without the lock held, so readers and writers
+     * are not blocked for the length of the write. Records appended while the
+     * file is being written stay in the journal for the next compaction.
+     * 
+     * @throws IOException when the file or journal cannot be written to
+     */
+    void compact() throws IOException {
+        Duck[] duckArray;
+        long mark;
+        ducksLock.lock();
+        try {
+            if (journal == null || journal.getEntries() == 0) {
+                return;
+            }
+            duckArray = getDucksArray();
+            mark = journal.mark();
+        } finally {
+            ducksLock.unlock();
+        }
+
+        FileIoEvent io = PersistenceMetrics.startIo();
+        if (binarySnapshot) {
+            Path snapshotPath = BinarySnapshot.pathFor(filename);
+            BinarySnapshot.write(snapshotPath, BinarySnapshot.DUCKS, Arrays.asList(duckArray), DUCK_CODEC);
+            PersistenceMetrics.saved(filename, io, snapshotPath, duckArray.length);
+            ducksLock.lock();
+            try {
+                journal.trim(mark);
+            } finally {
+                ducksLock.unlock();
+            }
+            return;
+        }
+
+        // Write to a temporary file first so a crash mid-write never leaves a
+        // half written snapshot behind
+        Path path = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        objectMapper.writeValue(temp.toFile(), duckArray);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        PersistenceMetrics.saved(filename, io, path, duckArray.length);
+
+        ducksLock.lock();
+        try {
+            journal.trim(mark);
+        } finally {
+            ducksLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a compaction on the compactor thread, logging instead of throwing
+     */
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException ioe) {
+            LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Stops the compactor, waits for a compaction it is running and folds
+     * whatever is left in the journal into the file
+     * <br>
+     * With a binary snapshot, also exports the ducks to the JSON file
+     * 
+     * @throws IOException when the file or journal cannot be written to
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (journal != null) {
+            compactor.shutdown();
+            // A compaction already handed to the compactor must finish first, or
+            // it would write the file and trim the journal alongside this one
+            try {
+                if (!compactor.awaitTermination(COMPACTOR_SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                    throw new IOException("Journal compaction of " + filename + " did not finish in "
+                            + COMPACTOR_SHUTDOWN_SECONDS + " seconds, the journal is left to be replayed");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted waiting for the journal compaction of " + filename);
+            }
+            compact();
+            journal.close();
+        }
+        if (binarySnapshot) {
+            exportJson();
+        }
+    }
+
+    /**
+     * Writes the {@linkplain Duck ducks} to the JSON file without making it look
+     * newer than the snapshot, so the next start still loads the snapshot
+     * 
+     * @throws IOException when the file or snapshot cannot be written to
+     */
+    void exportJson() throws IOException {
+        objectMapper.writeValue(new File(filename), getDucksArray());
+        Files.setLastModifiedTime(BinarySnapshot.pathFor(filename), Files.getLastModifiedTime(Paths.get(filename)));
+    }
+
+    /**
+     * Loads {@linkplain Duck ducks} from the JSON file or the binary snapshot into
+     * the map
+     * <br>
+     * When journaled, the journal is replayed on top of the file afterwards
      * <br>
      * Also sets next id to one more than the greatest id found in the file
      * 
@@ -119,12 +552,21 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     private boolean load() throws IOException {
         ducks = new TreeMap<>();
+        nameIndex = new DuckNameIndex();
+        idsByName = new ConcurrentHashMap<>();
         nextId = 0;
 
         // Deserializes the JSON objects from the file into an array of ducks
         // readValue will throw an IOException if there's an issue with the file
         // or reading from the file
-        Duck[] duckArray = objectMapper.readValue(new File(filename), Duck[].class);
+        FileIoEvent io = PersistenceMetrics.startIo();
+        boolean fromSnapshot = binarySnapshot && BinarySnapshot.isCurrent(filename);
+        Duck[] duckArray = fromSnapshot
+                ? BinarySnapshot.read(BinarySnapshot.pathFor(filename), BinarySnapshot.DUCKS, DUCK_CODEC)
+                        .toArray(new Duck[0])
+                : objectMapper.readValue(new File(filename), Duck[].class);
+        PersistenceMetrics.loaded(filename, io,
+                fromSnapshot ? BinarySnapshot.pathFor(filename) : Paths.get(filename), duckArray.length);
 
         // Add each duck to the tree map and keep track of the greatest id
         for (Duck duck : duckArray) {
@@ -133,8 +575,20 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
                 nextId = duck.getId();
             }
         }
+        if (journal != null) {
+            nextId = Math.max(nextId, journal.replay(ducks));
+        }
+        for (Duck duck : ducks.values()) {
+            nameIndex.add(duck.getId(), duck.getName());
+            indexName(duck);
+        }
         // Make the next id one greater than the maximum from the file
         ++nextId;
+        publish();
+        if (binarySnapshot && !fromSnapshot) {
+            // Import the JSON file so the snapshot is current from here on
+            save();
+        }
         return true;
     }
 
@@ -143,9 +597,38 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck[] getDucks() {
-        synchronized (ducks) {
-            return getDucksArray();
-        }
+        return getDucksArray();
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Page<Duck> getDucksPage(String cursor, int limit) {
+        int afterId = Page.decodeCursor(cursor);
+        DuckCatalogSnapshot current = snapshot;
+        int from = current.indexAfter(afterId);
+        // Take one extra duck to find out whether there is another page
+        int to = (int) Math.min((long) from + limit + 1, current.size());
+        return Page.of(Arrays.asList(current.getDucks()).subList(from, to), limit, Duck::getId);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public long getCatalogVersion() {
+        return snapshot.getVersion();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Every read looks at the published snapshot without taking the lock
+     */
+    @Override
+    public boolean hasNonBlockingReads() {
+        return true;
     }
 
     /**
@@ -153,9 +636,15 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck[] findDucks(String containsText) {
-        synchronized (ducks) {
-            return getDucksArray(containsText);
-        }
+        return getDucksArray(containsText);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText, boolean ignoreCase) {
+        return getDucksArray(containsText, ignoreCase);
     }
 
     /**
@@ -163,27 +652,23 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck getDuck(int id) {
-        synchronized (ducks) {
-            if (ducks.containsKey(id))
-                return ducks.get(id);
-            else
-                return null;
-        }
+        return snapshot.getDuck(id);
     }
 
     /**
      * {@inheritDoc}
      */
     public Duck getDuckByName(String name) {
-        synchronized (ducks) {
-            Duck[] duckArr = getDucksArray(name);
-            for (Duck duck : duckArr) {
-                if (duck.getName().equalsIgnoreCase(name)) {
-                    return duck;
-                }
-            }
+        if (name == null) {
             return null;
         }
+        Integer id = idsByName.get(DuckNameIndex.fold(name));
+        if (id == null) {
+            return null;
+        }
+        // The entry may belong to a write that is not published yet
+        Duck duck = snapshot.getDuck(id);
+        return duck != null && duck.getName().equalsIgnoreCase(name) ? duck : null;
     }
 
     /**
@@ -191,7 +676,10 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck createDuck(Duck duck) throws IOException {
-        synchronized (ducks) {
+        long waitStart = System.nanoTime();
+        ducksLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             // We create a new duck object because the id field is immutable
             // and we need to assign the next unique id
             // Modified the constructor to handle duck accessories # Travis 2/15
@@ -202,9 +690,14 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
 
             Duck newDuck = new Duck(nextId(), duck.getName(), duck.getQuantity(), duck.getPrice(), duck.getSize(),
                     duck.getColor(), duck.getOutfit());
+            nameIndex.add(newDuck.getId(), newDuck.getName());
+            indexName(newDuck);
             ducks.put(newDuck.getId(), newDuck);
-            save(); // may throw an IOException
+            publish();
+            persist(newDuck); // may throw an IOException
             return newDuck;
+        } finally {
+            ducksLock.unlock();
         }
     }
 
@@ -213,13 +706,61 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public Duck updateDuck(Duck duck) throws IOException {
-        synchronized (ducks) {
-            if (!ducks.containsKey(duck.getId()))
+        long waitStart = System.nanoTime();
+        ducksLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Duck oldDuck = ducks.get(duck.getId());
+            if (oldDuck == null)
                 return null; // duck does not exist
 
+            // Index the new name before readers can see it and drop the old one
+            // only once they can no longer see it
+            nameIndex.add(duck.getId(), duck.getName());
+            indexName(duck);
             ducks.put(duck.getId(), duck);
-            save(); // may throw an IOException
+            publish();
+            nameIndex.remove(duck.getId(), oldDuck.getName(), duck.getName());
+            if (!oldDuck.getName().equalsIgnoreCase(duck.getName())) {
+                unindexName(duck.getId(), oldDuck.getName());
+            }
+            persist(duck); // may throw an IOException
             return duck;
+        } finally {
+            ducksLock.unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean decrementQuantities(Map<Integer, Integer> quantities) throws IOException {
+        long waitStart = System.nanoTime();
+        ducksLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            // Check every line before touching any of them
+            List<Duck> changed = new ArrayList<>(quantities.size());
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                Duck duck = ducks.get(entry.getKey());
+                int quantity = entry.getValue();
+                if (duck == null || quantity < 0 || duck.getQuantity() < quantity) {
+                    return false;
+                }
+                // Published ducks are shared with readers, so change a copy
+                changed.add(new Duck(duck.getId(), duck.getName(), duck.getQuantity() - quantity, duck.getPrice(),
+                        duck.getSize(), duck.getColor(), duck.getOutfit()));
+            }
+
+            for (Duck duck : changed) {
+                ducks.put(duck.getId(), duck);
+            }
+            publish();
+            persistAll(changed); // may throw an IOException
+            return true;
+        } finally {
+            ducksLock.unlock();
         }
     }
 
@@ -228,12 +769,21 @@ public abstract class DuckFileDAOAbstract implements DuckDAO {
      */
     @Override
     public boolean deleteDuck(int id) throws IOException {
-        synchronized (ducks) {
+        long waitStart = System.nanoTime();
+        ducksLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
             if (ducks.containsKey(id)) {
-                ducks.remove(id);
-                return save();
+                Duck oldDuck = ducks.remove(id);
+                publish();
+                nameIndex.remove(id, oldDuck.getName(), null);
+                unindexName(id, oldDuck.getName());
+                persistDelete(id);
+                return true;
             } else
                 return false;
+        } finally {
+            ducksLock.unlock();
         }
     }
 }
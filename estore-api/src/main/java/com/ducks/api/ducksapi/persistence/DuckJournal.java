@@ -0,0 +1,133 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only log of {@linkplain Duck duck} mutations that sits next to a duck
+ * snapshot file
+ * <br>
+ * Each line of the journal is a single JSON record describing either a put
+ * (create or update) of a whole duck or the delete of a duck id. Records carry
+ * the full state of the duck, so replaying a record more than once leaves the
+ * map in the same state. That lets the compactor write a new snapshot first and
+ * trim the journal afterwards without losing anything if it is interrupted in
+ * between.
+ * <br>
+ * Like every {@link Journal journal}, this class is not thread safe, callers
+ * are expected to hold the lock that guards the ducks map while using it
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class DuckJournal extends Journal<DuckJournal.Entry> {
+    /**
+     * Opens the journal that belongs to the given snapshot file, creating it if
+     * it does not exist yet
+     *
+     * @param snapshotFilename The snapshot file the journal belongs to
+     * @param objectMapper     Provides JSON Object to/from Java Object
+     *                         serialization and deserialization
+     *
+     * @throws IOException when the journal cannot be opened
+     */
+    public DuckJournal(String snapshotFilename, ObjectMapper objectMapper) throws IOException {
+        super(snapshotFilename, objectMapper, Entry.class);
+    }
+
+    /**
+     * Replays every record in the journal on top of the given map
+     *
+     * @param ducks The map loaded from the snapshot, updated in place
+     *
+     * @return The greatest duck id seen in the journal, or -1 if there were no
+     *         put records
+     *
+     * @throws IOException when the journal cannot be read
+     */
+    public int replay(Map<Integer, Duck> ducks) throws IOException {
+        int maxId = -1;
+        for (Entry entry : readEntries()) {
+            if (entry.op == Op.PUT) {
+                ducks.put(entry.duck.getId(), entry.duck);
+                maxId = Math.max(maxId, entry.duck.getId());
+            } else {
+                ducks.remove(entry.id);
+            }
+        }
+        return maxId;
+    }
+
+    /**
+     * Appends a record storing the full state of the given duck
+     *
+     * @param duck The created or updated duck
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendPut(Duck duck) throws IOException {
+        append(new Entry(Op.PUT, duck.getId(), duck));
+    }
+
+    /**
+     * Appends a record deleting the duck with the given id
+     *
+     * @param id The id of the deleted duck
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendDelete(int id) throws IOException {
+        append(new Entry(Op.DELETE, id, null));
+    }
+
+    /**
+     * Appends one record per created or updated duck, flushing them together
+     *
+     * @param ducks The ducks as they are now
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    public void appendPuts(Collection<Duck> ducks) throws IOException {
+        for (Duck duck : ducks) {
+            write(new Entry(Op.PUT, duck.getId(), duck));
+        }
+        flush();
+    }
+
+    /**
+     * The kind of mutation a journal record describes
+     */
+    enum Op {
+        PUT,
+        DELETE
+    }
+
+    /**
+     * A single line of the journal
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Entry {
+        @JsonProperty("op")
+        Op op;
+
+        @JsonProperty("id")
+        int id;
+
+        @JsonProperty("duck")
+        Duck duck;
+
+        Entry() {
+        }
+
+        Entry(Op op, int id, Duck duck) {
+            this.op = op;
+            this.id = id;
+            this.duck = duck;
+        }
+    }
+}
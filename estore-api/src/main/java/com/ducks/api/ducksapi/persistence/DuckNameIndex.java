@@ -0,0 +1,154 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An inverted index from the n-grams of duck names to the ids of the ducks
+ * whose names contain them
+ * <br>
+ * Every 1, 2 and 3 character substring of a name is indexed, case-folded, so a
+ * substring search only has to look at the ducks that share every trigram of
+ * the query instead of at the whole catalog. The index may briefly hold ids
+ * that no longer match while a write is in progress, so callers must check the
+ * candidates it returns against the actual names.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+class DuckNameIndex {
+    static final int GRAM = 3; // Length of the longest indexed substring
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>(); // n-gram -> ids
+
+    /**
+     * Case-folds text one character at a time
+     * <br>
+     * Unlike {@link String#toLowerCase()} this never changes the length of the
+     * text, so a folded name contains a folded query exactly when the name
+     * contains the query ignoring case
+     *
+     * @param text The text to fold
+     *
+     * @return The folded text
+     */
+    static String fold(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Indexes a name for a duck
+     *
+     * @param id   The id of the duck
+     * @param name The name of the duck
+     */
+    void add(int id, String name) {
+        String folded = fold(name);
+        for (int length = 1; length <= GRAM; ++length) {
+            for (int i = 0; i + length <= folded.length(); ++i) {
+                postings.computeIfAbsent(folded.substring(i, i + length), gram -> ConcurrentHashMap.newKeySet())
+                        .add(id);
+            }
+        }
+    }
+
+    /**
+     * Removes a name of a duck from the index
+     * <br>
+     * Grams that the duck's current name shares with the removed name are kept
+     *
+     * @param id      The id of the duck
+     * @param name    The name to remove
+     * @param newName The name the duck has now, or null if it was deleted
+     */
+    void remove(int id, String name, String newName) {
+        String folded = fold(name);
+        String keep = newName == null ? null : fold(newName);
+        for (int length = 1; length <= GRAM; ++length) {
+            for (int i = 0; i + length <= folded.length(); ++i) {
+                String gram = folded.substring(i, i + length);
+                if (keep != null && keep.contains(gram)) {
+                    continue;
+                }
+                postings.computeIfPresent(gram, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    /**
+     * Finds the ids of the ducks whose names may contain the given text
+     *
+     * @param text The text to search for, must not be empty
+     *
+     * @return The candidate ids in ascending order, may be empty
+     */
+    int[] candidates(String text) {
+        String folded = fold(text);
+        if (folded.length() <= GRAM) {
+            return toSortedArray(postings.get(folded));
+        }
+
+        // Start from the rarest trigram and drop ids missing from any other
+        Set<Integer> smallest = null;
+        for (int i = 0; i + GRAM <= folded.length(); ++i) {
+            Set<Integer> ids = postings.get(folded.substring(i, i + GRAM));
+            if (ids == null) {
+                return new int[0];
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+
+        int[] result = new int[smallest.size()];
+        int count = 0;
+        candidate: for (Integer id : smallest) {
+            for (int i = 0; i + GRAM <= folded.length(); ++i) {
+                Set<Integer> ids = postings.get(folded.substring(i, i + GRAM));
+                if (ids == null || !ids.contains(id)) {
+                    continue candidate;
+                }
+            }
+            if (count == result.length) {
+                result = Arrays.copyOf(result, count * 2 + 1);
+            }
+            result[count++] = id;
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Copies a set of ids into a sorted array
+     *
+     * @param ids The ids, may be null
+     *
+     * @return The sorted ids
+     */
+    private static int[] toSortedArray(Set<Integer> ids) {
+        if (ids == null) {
+            return new int[0];
+        }
+        int[] result = new int[ids.size()];
+        int count = 0;
+        for (Integer id : ids) {
+            if (count == result.length) {
+                // The set grew while it was being copied
+                result = Arrays.copyOf(result, count * 2 + 1);
+            }
+            result[count++] = id;
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ducks.api.ducksapi.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event covering one whole-file read or write of a Data
+ * Access Object, serialization included
+ * <br>
+ * Begun by {@link PersistenceMetrics#startIo()} and committed by
+ * {@link PersistenceMetrics#saved} or {@link PersistenceMetrics#loaded}, so it
+ * spans the same time as the persistence.save and persistence.load timers.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Name("com.ducks.api.ducksapi.FileIo")
+@Label("Persistence File I/O")
+@Category({ "Ducks API", "Persistence" })
+@Description("Reading or writing a whole data file, serialization included")
+public final class FileIoEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    @Description("load or save")
+    String operation;
+
+    @Label("File")
+    @Description("The configured data file")
+    String file;
+
+    @Label("Path")
+    @Description("The file or snapshot actually read or written")
+    String path;
+
+    @Label("Records")
+    int records;
+
+    @Label("Size")
+    @DataAmount
+    long bytes;
+
+    // When the operation started, for the timers; transient fields are not recorded
+    transient long startNanos;
+}
@@ -0,0 +1,291 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.Reservation;
+
+/**
+ * Holds inventory for customers while they check out, so two customers can
+ * never be promised the same units
+ * <br>
+ * Each duck has one atomic counter of how many of its units are held. A hold
+ * is only taken if the duck's quantity minus the units already held covers it,
+ * and the check and the take are a single compare-and-set on that counter, so
+ * holds on different ducks never wait on each other and holds on the same duck
+ * never need a lock. A hold is turned into a sale with
+ * {@link #commit(int)}, given back with {@link #release(int)}, or given back
+ * by the sweeper once it expires.
+ *
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and injects the instance into other classes as needed
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+public class InventoryReservations {
+    private static final long RESERVED_MASK = 0xFFFFFFFFL; // Low half of a counter: units held
+    private static final long VERSION_STEP = 1L << 32; // High half of a counter: bumped on every give back
+
+    private final DuckDAO duckDao; // The inventory being held
+    private final long ttlMs; // How long a hold lasts
+    private final Map<Integer, AtomicLong> counters = new ConcurrentHashMap<>(); // Duck id -> version and units held
+    private final Map<Integer, Reservation> holds = new ConcurrentHashMap<>(); // Customer id -> their hold
+    private ScheduledExecutorService sweeper; // Gives back expired holds, null if they are only checked lazily
+
+    /**
+     * Creates the reservations without a sweeper. Expired holds are only given
+     * back when their customer next reserves or commits.
+     *
+     * @param duckDao The {@link DuckDAO Duck Data Access Object} holding the
+     *                inventory
+     * @param ttlMs   How long a hold lasts, in milliseconds
+     */
+    public InventoryReservations(DuckDAO duckDao, long ttlMs) {
+        this.duckDao = duckDao;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Creates the reservations and starts the sweeper
+     *
+     * @param duckDao         The {@link DuckDAO Duck Data Access Object} holding
+     *                        the inventory
+     * @param ttlMs           How long a hold lasts, in milliseconds
+     * @param sweepIntervalMs How often expired holds are given back
+     */
+    @Autowired
+    public InventoryReservations(@Qualifier("duckFileDAO") DuckDAO duckDao,
+            @Value("${reservations.ttl.ms:600000}") long ttlMs,
+            @Value("${reservations.sweep.interval.ms:30000}") long sweepIntervalMs) {
+        this(duckDao, ttlMs);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Holds the given quantities for a customer, replacing any hold they already
+     * have
+     *
+     * @param customerId The customer checking out
+     * @param items      The id of each duck and how many to hold
+     *
+     * @return The new {@link Reservation reservation}, or null if a duck does
+     *         not exist or does not have enough units left, in which case nothing
+     *         is held
+     *
+     * @throws IOException if an issue with underlying storage
+     */
+    public Reservation reserve(int customerId, Map<Integer, Integer> items) throws IOException {
+        release(customerId);
+
+        List<Map.Entry<Integer, Integer>> taken = new ArrayList<>(items.size());
+        for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+            if (!take(item.getKey(), item.getValue())) {
+                // All or nothing, give back what this call already took
+                for (Map.Entry<Integer, Integer> undo : taken) {
+                    giveBack(undo.getKey(), undo.getValue());
+                }
+                return null;
+            }
+            taken.add(item);
+        }
+
+        Reservation reservation = new Reservation(UUID.randomUUID().toString(), customerId, items,
+                System.currentTimeMillis() + ttlMs);
+        Reservation previous = holds.put(customerId, reservation);
+        if (previous != null) {
+            // A concurrent reserve for the same customer got in first
+            giveBackAll(previous);
+        }
+        return reservation;
+    }
+
+    /**
+     * Gets the hold a customer currently has
+     *
+     * @param customerId The customer
+     *
+     * @return The {@link Reservation reservation}, or null if they have none or
+     *         it expired
+     */
+    public Reservation getReservation(int customerId) {
+        Reservation reservation = holds.get(customerId);
+        if (reservation != null && reservation.isExpired(System.currentTimeMillis())) {
+            expire(reservation);
+            return null;
+        }
+        return reservation;
+    }
+
+    /**
+     * Turns a customer's hold into a sale by taking the held units out of the
+     * inventory
+     *
+     * @param customerId The customer checking out
+     *
+     * @return true if the units were taken out of the inventory<br>
+     *         false if the customer has no live hold or the inventory no longer
+     *         covers it, in which case the hold is given back
+     *
+     * @throws IOException if an issue with underlying storage
+     */
+    public boolean commit(int customerId) throws IOException {
+        Reservation reservation = holds.get(customerId);
+        if (reservation == null || !holds.remove(customerId, reservation)) {
+            return false;
+        }
+        try {
+            if (reservation.isExpired(System.currentTimeMillis())) {
+                return false;
+            }
+            // Take the units out of the inventory before giving back the hold, so they
+            // are never counted as available in between
+            return duckDao.decrementQuantities(reservation.getItems());
+        } finally {
+            giveBackAll(reservation);
+        }
+    }
+
+    /**
+     * Gives back a customer's hold
+     *
+     * @param customerId The customer
+     *
+     * @return true if the customer had a hold
+     */
+    public boolean release(int customerId) {
+        Reservation reservation = holds.remove(customerId);
+        if (reservation == null) {
+            return false;
+        }
+        giveBackAll(reservation);
+        return true;
+    }
+
+    /**
+     * Gets how many units of a duck are not held by anyone
+     *
+     * @param duckId The id of the duck
+     *
+     * @return The units available, 0 if the duck does not exist
+     *
+     * @throws IOException if an issue with underlying storage
+     */
+    public int getAvailable(int duckId) throws IOException {
+        AtomicLong counter = counters.get(duckId);
+        long held = counter == null ? 0 : counter.get() & RESERVED_MASK;
+        Duck duck = duckDao.getDuck(duckId);
+        return duck == null ? 0 : (int) Math.max(0, duck.getQuantity() - held);
+    }
+
+    /**
+     * Gives back every hold that has expired
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        for (Reservation reservation : holds.values()) {
+            if (reservation.isExpired(now)) {
+                expire(reservation);
+            }
+        }
+    }
+
+    /**
+     * Stops the sweeper
+     */
+    @PreDestroy
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * Gives back an expired hold unless it was committed or released meanwhile
+     *
+     * @param reservation The expired {@link Reservation reservation}
+     */
+    private void expire(Reservation reservation) {
+        if (holds.remove(reservation.getCustomerId(), reservation)) {
+            giveBackAll(reservation);
+        }
+    }
+
+    /**
+     * Holds units of a duck if enough are left
+     * <br>
+     * The counter is read before the quantity. A commit takes units out of the
+     * inventory before it gives back their hold, and every give back bumps the
+     * counter's version, so whichever order those land in around this call the
+     * compare-and-set either fails or was checked against a quantity that does
+     * not overstate what is left.
+     *
+     * @param duckId   The id of the duck
+     * @param quantity How many units to hold
+     *
+     * @return true if the units are now held
+     *
+     * @throws IOException if an issue with underlying storage
+     */
+    private boolean take(int duckId, int quantity) throws IOException {
+        if (quantity <= 0) {
+            return quantity == 0;
+        }
+        AtomicLong counter = counters.computeIfAbsent(duckId, id -> new AtomicLong());
+        while (true) {
+            long state = counter.get();
+            Duck duck = duckDao.getDuck(duckId);
+            if (duck == null || duck.getQuantity() - (state & RESERVED_MASK) < quantity) {
+                return false;
+            }
+            if (counter.compareAndSet(state, state + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives back held units of a duck
+     *
+     * @param duckId   The id of the duck
+     * @param quantity How many units to give back
+     */
+    private void giveBack(int duckId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        counters.get(duckId).addAndGet(VERSION_STEP - quantity);
+    }
+
+    /**
+     * Gives back every unit of a hold
+     *
+     * @param reservation The {@link Reservation reservation}
+     */
+    private void giveBackAll(Reservation reservation) {
+        for (Map.Entry<Integer, Integer> item : reservation.getItems().entrySet()) {
+            giveBack(item.getKey(), item.getValue());
+        }
+    }
+}
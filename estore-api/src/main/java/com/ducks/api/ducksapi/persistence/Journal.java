@@ -0,0 +1,220 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Append-only log of changes that sits next to the file it changes
+ * <br>
+ * Each line of the journal is a single record, converted to and from JSON as
+ * the record type of the subclass. The compactor marks the journal, writes the
+ * file without holding the lock and then trims everything before the mark, so
+ * records appended during the write are kept. Records are expected to set state
+ * rather than change it, so replaying one that also made it into the file
+ * leaves the same result.
+ * <br>
+ * This class is not thread safe, callers are expected to hold the lock that
+ * guards the records the journal belongs to while using it.
+ *
+ * @param <E> The type of a record
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public abstract class Journal<E> implements Closeable {
+    static final String JOURNAL_SUFFIX = ".journal"; // Appended to the filename for the journal
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path path; // Path of the journal file
+    private final ObjectMapper objectMapper; // Converts records to and from JSON
+    private final Class<E> entryType; // The type records are read as
+    private OutputStream out; // Open append stream into the journal
+    private long position; // Number of bytes written to the journal so far
+    private int entries; // Number of records in the journal
+
+    /**
+     * Opens the journal that belongs to the given file, creating it if it does
+     * not exist yet
+     *
+     * @param filename     The file the journal belongs to
+     * @param objectMapper Provides JSON Object to/from Java Object
+     *                     serialization and deserialization
+     * @param entryType    The type records are read as
+     *
+     * @throws IOException when the journal cannot be opened
+     */
+    protected Journal(String filename, ObjectMapper objectMapper, Class<E> entryType) throws IOException {
+        this.path = Paths.get(filename + JOURNAL_SUFFIX);
+        this.objectMapper = objectMapper;
+        this.entryType = entryType;
+        this.position = Files.exists(path) ? Files.size(path) : 0;
+        open(StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Reads every record in the journal, in the order they were appended
+     *
+     * @return The records
+     *
+     * @throws IOException when the journal cannot be read
+     */
+    protected List<E> readEntries() throws IOException {
+        List<E> read = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                read.add(objectMapper.readValue(line, entryType));
+            }
+        }
+        entries = read.size();
+        return read;
+    }
+
+    /**
+     * @return The number of records currently in the journal
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Empties the journal once everything in it is in the file
+     *
+     * @throws IOException when the journal cannot be rewritten
+     */
+    public void clear() throws IOException {
+        out.close();
+        open(StandardOpenOption.TRUNCATE_EXISTING);
+        position = 0;
+        entries = 0;
+    }
+
+    /**
+     * Marks the current end of the journal. Everything before the mark is
+     * expected to be in the file before {@link #trim(long)} is called with it
+     *
+     * @return The mark
+     */
+    public long mark() {
+        return position;
+    }
+
+    /**
+     * Drops everything before the given mark, keeping only the records that were
+     * appended after it
+     *
+     * @param mark A value previously returned by {@link #mark()}
+     *
+     * @throws IOException when the journal cannot be rewritten
+     */
+    public void trim(long mark) throws IOException {
+        out.close();
+        byte[] tail;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            tail = new byte[(int) (channel.size() - mark)];
+            channel.position(mark);
+            ByteBuffer buffer = ByteBuffer.wrap(tail);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                continue; // a single read may return fewer bytes than asked for
+            }
+        }
+
+        Path temp = Paths.get(path + TEMP_SUFFIX);
+        Files.write(temp, tail);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        position = tail.length;
+        entries = countLines(tail);
+        open(StandardOpenOption.APPEND);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Serializes the record as a single line and appends it to the journal
+     *
+     * @param entry The record to append
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    protected void append(E entry) throws IOException {
+        write(entry);
+        flush();
+    }
+
+    /**
+     * Writes one record into the append stream without flushing it, so several
+     * can be flushed together
+     *
+     * @param entry The record
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    protected void write(E entry) throws IOException {
+        byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        out.write(line);
+        position += line.length;
+        ++entries;
+    }
+
+    /**
+     * Flushes the records written since the last flush into the journal
+     *
+     * @throws IOException when the journal cannot be written to
+     */
+    protected void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Opens the append stream into the journal
+     *
+     * @param mode Whether to keep or drop what the journal holds
+     *
+     * @throws IOException when the journal cannot be opened
+     */
+    private void open(StandardOpenOption mode) throws IOException {
+        out = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode));
+    }
+
+    /**
+     * Counts the records in a chunk of journal bytes
+     *
+     * @param bytes The chunk
+     *
+     * @return The number of newline terminated records
+     */
+    private static int countLines(byte[] bytes) {
+        int lines = 0;
+        for (byte b : bytes) {
+            if (b == '\n') {
+                ++lines;
+            }
+        }
+        return lines;
+    }
+}
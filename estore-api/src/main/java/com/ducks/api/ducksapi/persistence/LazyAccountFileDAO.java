@@ -0,0 +1,896 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
+import com.ducks.api.ducksapi.model.UserAccount;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Implements persistence for Accounts that only keeps the usernames resident
+ * <br>
+ * Every account is kept in its own JSON file in a directory next to the
+ * accounts file, and only the id and username of each account are held in
+ * memory. Full accounts are read when they are first asked for and kept in a
+ * least recently used cache of a fixed size, so the heap holds the accounts of
+ * active users rather than every account. The ids and usernames are kept in an
+ * append-only index log in the same directory, so a start reads the log
+ * rather than every account.
+ * <br>
+ * On first use the accounts file is imported into the directory, and it is
+ * imported again whenever it is newer than the index log, such as after the
+ * {@link AccountFileDAO file storage} changed it. A clean shutdown exports every
+ * account back to the accounts file, so switching accounts.storage back to file
+ * keeps the changes. After a crash the accounts file is not exported, and the
+ * file storage refuses to start on it until this one was started and stopped
+ * again.
+ *
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and injects the instance into other classes as needed, when
+ * accounts.storage is set to lazy
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Component
+@ConditionalOnProperty(name = "accounts.storage", havingValue = "lazy")
+public class LazyAccountFileDAO implements AccountDAO {
+    private static final Logger LOG = Logger.getLogger(LazyAccountFileDAO.class.getName());
+    static final String DIRECTORY_SUFFIX = ".d"; // Appended to the accounts filename for the directory
+    static final String INDEX_FILE = "index.log"; // Name of the index log in the directory
+
+    private final String filename; // The accounts file the directory belongs to
+    private final ObjectMapper objectMapper; // Converts accounts to and from JSON
+    private final ObjectWriter accountWriter; // Writes accounts with their type
+    private final Path directory; // Holds a file per account and the index log
+    private final NavigableMap<Integer, String> usernamesById = new TreeMap<>(); // Resident index, guarded by usernamesLock
+    private final ReentrantLock usernamesLock = new ReentrantLock(); // Guards the index, the cache and the files
+    private final Map<String, Integer> idsByUsername = new HashMap<>(); // Case-folded username -> id
+    private final Map<Integer, Account> cache; // Least recently used accounts, guarded by usernamesLock
+    private final AtomicLong hits = new AtomicLong(); // Lookups served from the cache
+    private final AtomicLong misses = new AtomicLong(); // Lookups that read an account file
+    private final AtomicLong evictions = new AtomicLong(); // Accounts dropped from the cache
+    private long writes; // Account files written or deleted, guarded by usernamesLock
+    private BufferedWriter indexLog; // Appends to the index log
+    private int nextID; // The next ID to assign to a account
+
+    /**
+     * Creates a lazily loading Account Data Access Object
+     *
+     * @param filename     The accounts file, imported when there is no directory
+     *                     yet. The directory is kept next to it.
+     * @param objectMapper Provides JSON Object to/from Java Object
+     *                     Serialization/Deserialization
+     * @param cacheSize    The most accounts kept in memory
+     *
+     * @throws IOException when the files cannot be accessed, read or written
+     */
+    @Autowired
+    public LazyAccountFileDAO(@Value("${accounts.file}") String filename, ObjectMapper objectMapper,
+            @Value("${accounts.cache.size:10000}") int cacheSize) throws IOException {
+        this.filename = filename;
+        this.objectMapper = objectMapper;
+        this.accountWriter = objectMapper.writerFor(Account.class);
+        this.directory = Paths.get(filename + DIRECTORY_SUFFIX);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Account> eldest) {
+                if (size() > cacheSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Path index = directory.resolve(INDEX_FILE);
+        if (!Files.exists(index)) {
+            importAccounts(new File(filename));
+        } else if (isNewer(Paths.get(filename), index)) {
+            LOG.info(filename + " changed since it was last exported, importing it again");
+            importAccounts(new File(filename));
+        } else {
+            loadIndex(index);
+        }
+        indexLog = Files.newBufferedWriter(index, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        createAccount(new OwnerAccount());
+    }
+
+    /**
+     * Writes every account in the accounts file to its own file and starts the
+     * index log
+     *
+     * @param file The accounts file
+     *
+     * @throws IOException when the files cannot be read or written
+     */
+    private void importAccounts(File file) throws IOException {
+        Path journal = Paths.get(filename + Journal.JOURNAL_SUFFIX);
+        if (Files.exists(journal) && Files.size(journal) > 0) {
+            throw new IOException(journal + " has changes that are not in " + filename
+                    + ", start with accounts.storage=file and stop cleanly to fold them in first");
+        }
+        Files.createDirectories(directory);
+        // Files of accounts deleted outside the directory would be left behind
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory, "*.json")) {
+            for (Path path : stale) {
+                Files.delete(path);
+            }
+        }
+        Account[] accountArray = objectMapper.readValue(file, Account[].class);
+        for (Account account : accountArray) {
+            writeAccount(account);
+            usernamesById.put(account.getId(), account.getUsername());
+            idsByUsername.putIfAbsent(usernameKey(account.getUsername()), account.getId());
+            nextID = Math.max(nextID, account.getId() + 1);
+        }
+        // The index is written last, so an interrupted import is started over
+        rewriteIndex();
+    }
+
+    /**
+     * Tells whether the accounts file has changes the directory of an accounts
+     * file does not, because it was written after the index log
+     *
+     * @param file  The accounts file
+     * @param index The index log in its directory
+     *
+     * @return true if the accounts file was modified after the index log
+     *
+     * @throws IOException when the times cannot be read
+     */
+    private static boolean isNewer(Path file, Path index) throws IOException {
+        return Files.exists(file)
+                && Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(index)) > 0;
+    }
+
+    /**
+     * Tells whether the directory of an accounts file has changes that were not
+     * exported to it, because the lazy storage was stopped without a clean
+     * shutdown
+     *
+     * @param filename The accounts file
+     *
+     * @return true if the index log was modified after the accounts file
+     *
+     * @throws IOException when the times cannot be read
+     */
+    static boolean hasUnexportedChanges(String filename) throws IOException {
+        Path index = Paths.get(filename + DIRECTORY_SUFFIX, INDEX_FILE);
+        return Files.exists(index) && isNewer(index, Paths.get(filename));
+    }
+
+    /**
+     * Writes every account to the accounts file, and marks the index log as no
+     * newer than it so the next start does not import it again
+     * <br>
+     * Must be called with usernamesLock held
+     *
+     * @throws IOException when the files cannot be read or written
+     */
+    private void exportAccounts() throws IOException {
+        List<Integer> ids = new ArrayList<>(usernamesById.keySet());
+        List<Account> accountList = readUncached(ids, cachedAccounts(ids));
+        FileIoEvent io = PersistenceMetrics.startIo();
+        Path path = Paths.get(filename);
+        Path temp = Paths.get(filename + ".tmp");
+        objectMapper.writerFor(Account[].class).writeValue(temp.toFile(), accountList.toArray(new Account[0]));
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        PersistenceMetrics.saved(filename, io, path, accountList.size());
+        Files.setLastModifiedTime(directory.resolve(INDEX_FILE), Files.getLastModifiedTime(path));
+    }
+
+    /**
+     * Replays the index log, and rewrites it if most of it is out of date
+     *
+     * @param index The index log
+     *
+     * @throws IOException when the log cannot be read or written
+     */
+    private void loadIndex(Path index) throws IOException {
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                ++lines;
+                JsonNode entry = objectMapper.readTree(line);
+                int id = entry.get("id").asInt();
+                nextID = Math.max(nextID, id + 1);
+                // The last entry for an id wins, and an entry without a username is a delete
+                JsonNode username = entry.get("username");
+                if (username == null || username.isNull()) {
+                    usernamesById.remove(id);
+                } else {
+                    usernamesById.put(id, username.asText());
+                }
+            }
+        }
+        for (Map.Entry<Integer, String> entry : usernamesById.entrySet()) {
+            idsByUsername.putIfAbsent(usernameKey(entry.getValue()), entry.getKey());
+        }
+        if (lines > 2 * usernamesById.size() + 16) {
+            rewriteIndex();
+        }
+    }
+
+    /**
+     * Replaces the index log with one entry per account
+     *
+     * @throws IOException when the log cannot be written
+     */
+    private void rewriteIndex() throws IOException {
+        Path temp = directory.resolve(INDEX_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<Integer, String> entry : usernamesById.entrySet()) {
+                writer.write(indexEntry(entry.getKey(), entry.getValue()));
+                writer.newLine();
+            }
+        }
+        Files.move(temp, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Formats one line of the index log
+     *
+     * @param id       The id of the account
+     * @param username Its username, or null if it was deleted
+     *
+     * @return The line
+     *
+     * @throws IOException when the line cannot be formatted
+     */
+    private String indexEntry(int id, String username) throws IOException {
+        ObjectNode entry = objectMapper.createObjectNode();
+        entry.put("id", id);
+        if (username != null) {
+            entry.put("username", username);
+        }
+        return objectMapper.writeValueAsString(entry);
+    }
+
+    /**
+     * Records an account's username, or its deletion, in the index
+     * <br>
+     * Must be called with usernamesLock held
+     *
+     * @param id       The id of the account
+     * @param username Its username, or null if it was deleted
+     *
+     * @throws IOException when the log cannot be written
+     */
+    private void logIndex(int id, String username) throws IOException {
+        String old = username == null ? usernamesById.remove(id) : usernamesById.put(id, username);
+        if (old != null) {
+            idsByUsername.remove(usernameKey(old), id);
+        }
+        if (username != null) {
+            idsByUsername.putIfAbsent(usernameKey(username), id);
+        }
+        indexLog.write(indexEntry(id, username));
+        indexLog.newLine();
+        indexLog.flush();
+    }
+
+    /**
+     * Gets the file of an account
+     *
+     * @param id The id of the account
+     *
+     * @return The file
+     */
+    private Path accountPath(int id) {
+        return directory.resolve(id + ".json");
+    }
+
+    /**
+     * Writes an account to its own file
+     *
+     * @param account The {@link Account account}
+     *
+     * @throws IOException when the file cannot be written
+     */
+    private void writeAccount(Account account) throws IOException {
+        FileIoEvent io = PersistenceMetrics.startIo();
+        Path path = accountPath(account.getId());
+        Path temp = directory.resolve(account.getId() + ".json.tmp");
+        accountWriter.writeValue(temp.toFile(), account);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        ++writes;
+        PersistenceMetrics.saved(filename, io, path, 1);
+    }
+
+    /**
+     * Gets an account from the cache, reading its file if it is not cached
+     * <br>
+     * Must be called with usernamesLock held, by the writes that read and change
+     * an account as one step. Lookups use {@link #lookup(Supplier)} instead.
+     *
+     * @param id The id of the account
+     *
+     * @return The {@link Account account}, or null if there is none
+     *
+     * @throws IOException when the file cannot be read
+     */
+    private Account load(int id) throws IOException {
+        Account account = cache.get(id);
+        if (account != null) {
+            hits.incrementAndGet();
+            return account;
+        }
+        if (!usernamesById.containsKey(id)) {
+            return null;
+        }
+        account = readAccount(id);
+        if (account != null) {
+            cache.put(id, account);
+        }
+        return account;
+    }
+
+    /**
+     * Gets an account from the cache, reading its file without holding
+     * usernamesLock if it is not cached
+     * <br>
+     * Must be called without usernamesLock held. The id is taken and the cache
+     * checked under the lock, then the file is read after letting go of it. The
+     * account read is only added to the cache if no account file was written or
+     * deleted in the meantime, so a slow read never puts back an older copy than
+     * a write that finished while it ran.
+     *
+     * @param idOf Gives the id of the account, or null if there is none. Called
+     *             with usernamesLock held.
+     *
+     * @return The {@link Account account}, or null if there is none
+     *
+     * @throws IOException when the file cannot be read
+     */
+    private Account lookup(Supplier<Integer> idOf) throws IOException {
+        int id;
+        long writesBefore;
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Integer found = idOf.get();
+            if (found == null || !usernamesById.containsKey(found)) {
+                return null;
+            }
+            id = found;
+            Account account = cache.get(id);
+            if (account != null) {
+                hits.incrementAndGet();
+                return account;
+            }
+            writesBefore = writes;
+        } finally {
+            usernamesLock.unlock();
+        }
+
+        Account account = readAccount(id);
+
+        waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            if (writes != writesBefore) {
+                // A write finished during the read, so a cached copy is the newer one
+                Account cached = cache.get(id);
+                return cached != null ? cached : account;
+            }
+            if (account != null) {
+                cache.put(id, account);
+            }
+            return account;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * Reads an account from its file
+     * <br>
+     * Account files are replaced atomically, so this does not need
+     * usernamesLock to read a whole account
+     *
+     * @param id The id of the account
+     *
+     * @return The {@link Account account}, or null if it has no file
+     *
+     * @throws IOException when the file cannot be read
+     */
+    private Account readAccount(int id) throws IOException {
+        misses.incrementAndGet();
+        FileIoEvent io = PersistenceMetrics.startIo();
+        Path path = accountPath(id);
+        Account account;
+        try {
+            account = objectMapper.readValue(path.toFile(), Account.class);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        PersistenceMetrics.loaded(filename, io, path, 1);
+        return account;
+    }
+
+    /**
+     * Takes the cached accounts among some ids, leaving a gap for each one whose
+     * file has to be read
+     * <br>
+     * Must be called with usernamesLock held
+     *
+     * @param ids The ids of the accounts
+     *
+     * @return The cached {@link Account accounts}, in the order of the ids
+     */
+    private Account[] cachedAccounts(List<Integer> ids) {
+        Account[] accountArray = new Account[ids.size()];
+        for (int i = 0; i < accountArray.length; ++i) {
+            accountArray[i] = cache.get(ids.get(i));
+            if (accountArray[i] != null) {
+                hits.incrementAndGet();
+            }
+        }
+        return accountArray;
+    }
+
+    /**
+     * Fills the gaps left by {@link #cachedAccounts(List)} from the account
+     * files, without adding them to the cache
+     * <br>
+     * Does not need usernamesLock, so listings call it after letting go of it.
+     * An account deleted since the ids were taken is left out.
+     *
+     * @param ids          The ids of the accounts
+     * @param accountArray The cached {@link Account accounts}, in the order of
+     *                     the ids
+     *
+     * @return The {@link Account accounts}
+     *
+     * @throws IOException when a file cannot be read
+     */
+    private List<Account> readUncached(List<Integer> ids, Account[] accountArray) throws IOException {
+        List<Account> accountList = new ArrayList<>(accountArray.length);
+        for (int i = 0; i < accountArray.length; ++i) {
+            Account account = accountArray[i] != null ? accountArray[i] : readAccount(ids.get(i));
+            if (account != null) {
+                accountList.add(account);
+            }
+        }
+        return accountList;
+    }
+
+    /**
+     * Case-folds a username so that usernames differing only in case map to the
+     * same key
+     *
+     * @param username The username to fold
+     *
+     * @return The key for the username index
+     */
+    private static String usernameKey(String username) {
+        char[] chars = username.toCharArray();
+        for (int i = 0; i < chars.length; ++i) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return How many lookups were served from the cache
+     */
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return How many lookups had to read an account file
+     */
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return How many accounts were dropped from the cache to make room
+     */
+    public long getCacheEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return How many accounts are in the cache
+     */
+    public int getCacheSize() {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            return cache.size();
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     * <br>
+     * Reads every account that is not cached without adding it to the cache,
+     * after letting go of the lock
+     */
+    @Override
+    public Account[] getAccounts() throws IOException {
+        List<Integer> ids;
+        Account[] accountArray;
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            ids = new ArrayList<>(usernamesById.keySet());
+            accountArray = cachedAccounts(ids);
+        } finally {
+            usernamesLock.unlock();
+        }
+        return readUncached(ids, accountArray).toArray(new Account[0]);
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Page<Account> getAccountsPage(String cursor, int limit) throws IOException {
+        int afterId = Page.decodeCursor(cursor);
+        List<Integer> ids = new ArrayList<>();
+        Account[] accountArray;
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            // Take one extra account to find out whether there is another page
+            for (int id : usernamesById.tailMap(afterId, false).keySet()) {
+                if (ids.size() > limit) {
+                    break;
+                }
+                ids.add(id);
+            }
+            accountArray = cachedAccounts(ids);
+        } finally {
+            usernamesLock.unlock();
+        }
+        return Page.of(readUncached(ids, accountArray), limit, Account::getId);
+    }
+
+    /**
+     * * {@inheritDoc}}
+     * <br>
+     * Only the accounts whose usernames match are read, after letting go of the
+     * lock
+     */
+    @Override
+    public Account[] findAccounts(String containsText) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        Account[] accountArray;
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            for (Map.Entry<Integer, String> entry : usernamesById.entrySet()) {
+                if (containsText == null || entry.getValue().contains(containsText)) {
+                    ids.add(entry.getKey());
+                }
+            }
+            accountArray = cachedAccounts(ids);
+        } finally {
+            usernamesLock.unlock();
+        }
+        return readUncached(ids, accountArray).toArray(new Account[0]);
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account findAccountByUsername(String username) throws IOException {
+        if (username == null) {
+            return null;
+        }
+        String key = usernameKey(username);
+        return lookup(() -> idsByUsername.get(key));
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account getAccount(int id) throws IOException {
+        return lookup(() -> id);
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account createAccount(Account account) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            if (idsByUsername.containsKey(usernameKey(account.getUsername()))) {
+                // Username already exists, return null
+                return null;
+            }
+            Account newAccount;
+            // This account should be the only admin account made by the DAO
+            if (account.getUsername().equals("admin")) {
+                newAccount = new OwnerAccount();
+            } else {
+                newAccount = new UserAccount(nextID++, account.getUsername(), account.getPlainPassword());
+            }
+
+            // Don't save an account with a weak password, but hand it back for feedback
+            if (account.validateStrongPassword(account.getPlainPassword())) {
+                writeAccount(newAccount);
+                logIndex(newAccount.getId(), newAccount.getUsername());
+                cache.put(newAccount.getId(), newAccount);
+            }
+            return newAccount;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account updateAccount(Account account) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            int accountID = account.getId();
+            // Fail account update if password is not strong
+            if (!account.validateStrongPassword(account.getPlainPassword())) {
+                return null;
+            }
+            String oldUsername = usernamesById.get(accountID);
+            if (oldUsername == null) {
+                return null;
+            }
+            writeAccount(account);
+            cache.put(accountID, account);
+            if (!oldUsername.equals(account.getUsername())) {
+                logIndex(accountID, account.getUsername());
+            }
+            return account;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean deleteAccount(int id) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            if (!usernamesById.containsKey(id)) {
+                return false;
+            }
+            logIndex(id, null);
+            cache.remove(id);
+            Files.deleteIfExists(accountPath(id));
+            ++writes;
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changePassword(int id, String originalPass, String newPass) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            // Checks permission to change the password and that the new one is strong
+            if (account == null || !originalPass.equals(account.getPlainPassword())
+                    || !account.validateStrongPassword(newPass)) {
+                return false;
+            }
+            account.setPassword(newPass);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeFirstName(int id, String newFirstName) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return false;
+            }
+            account.setFirstName(newFirstName);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeLastName(int id, String newLastName) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return false;
+            }
+            account.setLastName(newLastName);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeAddress(int id, String newAddress) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return false;
+            }
+            account.setAddress(newAddress);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeCity(int id, String newCity) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return false;
+            }
+            account.setCity(newCity);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public boolean changeZipCode(int id, String newZipCode) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return false;
+            }
+            account.setZipCode(newZipCode);
+            writeAccount(account);
+            return true;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * * {@inheritDoc}}
+     */
+    @Override
+    public Account updateProfile(int id, ProfileUpdate update) throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            Account account = load(id);
+            if (account == null) {
+                return null;
+            }
+            update.applyTo(account);
+            writeAccount(account);
+            return account;
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the index log and exports every account to the accounts file
+     *
+     * @throws IOException when the log cannot be closed or the accounts file
+     *                     cannot be written
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        long waitStart = System.nanoTime();
+        usernamesLock.lock();
+        try {
+            PersistenceMetrics.lockAcquired(filename, waitStart);
+            indexLog.close();
+            exportAccounts();
+        } finally {
+            usernamesLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.ducks.api.ducksapi.persistence;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event for a Data Access Object call that had to wait
+ * for the lock guarding its records
+ * <br>
+ * Committed by {@link PersistenceMetrics#lockAcquired} once the lock is held.
+ * Only waits of at least {@link PersistenceMetrics#LOCK_WAIT_EVENT_NANOS} are
+ * recorded, so uncontended calls never produce an event.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Name("com.ducks.api.ducksapi.LockWait")
+@Label("Persistence Lock Wait")
+@Category({ "Ducks API", "Persistence" })
+@Description("Time a Data Access Object call spent waiting for the lock on its records")
+public final class LockWaitEvent extends jdk.jfr.Event {
+    @Label("File")
+    @Description("The configured data file the lock guards")
+    String file;
+
+    @Label("Waited")
+    @Timespan(Timespan.NANOSECONDS)
+    long waited;
+}
@@ -0,0 +1,606 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PreDestroy;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Implements persistence for Ducks in a memory-mapped file of fixed-size slots
+ * <br>
+ * Every duck lives in one 64 byte slot of the slot file, which is mapped into
+ * memory, so a quantity change is a write of four bytes into the mapping
+ * rather than a rewrite of the catalog, and the operating system's page cache
+ * decides how much of the catalog stays resident. Names have no fixed width,
+ * so they are appended to a side file and the slot holds their offset and
+ * length. Only the slot of each id and the name indexes are kept on the heap.
+ * <br>
+ * On first use the JSON file is imported into the slot file. After that the
+ * slot file is the only copy that is kept up to date.
+ * <br>
+ * Sizes and colors are stored by ordinal, so their enums may only ever be
+ * appended to. Renames leave the old name behind in the side file.
+ * <br>
+ * Changes go to the page cache and are only forced to disk on
+ * {@link #close()}. They survive the process dying, but a crash of the machine
+ * may lose recent changes or leave a slot half written.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class MappedDuckDAO implements DuckDAO {
+    static final String SLOTS_SUFFIX = ".slots"; // Appended to the JSON filename for the slot file
+    static final String NAMES_SUFFIX = ".names"; // Appended to the JSON filename for the name file
+
+    private static final int MAGIC = 0x51434b4d; // "QCKM"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16; // magic, version, slots in use, reserved
+    private static final int SLOTS_IN_USE = 8; // Header offset of the number of slots ever used
+    private static final int SLOT_BYTES = 64;
+    private static final int MIN_CAPACITY = 1024; // Slots mapped for a new file
+
+    // Offsets of the fields within a slot
+    private static final int LIVE = 0; // byte, 1 while the slot holds a duck
+    private static final int ID = 4;
+    private static final int QUANTITY = 8;
+    private static final int SIZE = 12; // ordinal, -1 for none
+    private static final int COLOR = 16; // ordinal, -1 for none
+    private static final int HAS_OUTFIT = 20;
+    private static final int PRICE = 24;
+    private static final int OUTFIT = 32; // five UIDs
+    private static final int NAME_OFFSET = 52;
+    private static final int NAME_LENGTH = 60; // -1 for no name
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock(); // Reads share, writes are exclusive
+    private final FileChannel slotChannel; // The slot file
+    private final FileChannel nameChannel; // The name file
+    private MappedByteBuffer slots; // The mapped slot file, replaced when it grows
+    private int capacity; // Number of slots mapped
+    private int slotsInUse; // Number of slots ever handed out
+    private final NavigableMap<Integer, Integer> slotsById = new TreeMap<>(); // Duck id -> slot
+    private final Deque<Integer> freeSlots = new ArrayDeque<>(); // Slots of deleted ducks
+    private final DuckNameIndex nameIndex = new DuckNameIndex(); // N-gram index of the duck names
+    private final Map<String, Integer> idsByName = new ConcurrentHashMap<>(); // Case-folded name -> id
+    private int nextId; // The next id to assign to a new duck
+    private volatile long version = 1; // Changes on every committed write
+
+    /**
+     * Creates a memory-mapped Duck Data Access Object
+     *
+     * @param filename     The JSON file, imported when there is no slot file yet.
+     *                     The slot and name files are kept next to it.
+     * @param objectMapper Reads the JSON file
+     *
+     * @throws IOException when the files cannot be accessed, read or written
+     */
+    public MappedDuckDAO(String filename, ObjectMapper objectMapper) throws IOException {
+        Path slotPath = Paths.get(filename + SLOTS_SUFFIX);
+        // A slot file too short for its header was left behind by a failed import
+        boolean importJson = !Files.exists(slotPath) || Files.size(slotPath) < HEADER_BYTES;
+        slotChannel = FileChannel.open(slotPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        nameChannel = FileChannel.open(Paths.get(filename + NAMES_SUFFIX), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (importJson) {
+                nameChannel.truncate(0);
+                Duck[] duckArray = objectMapper.readValue(new File(filename), Duck[].class);
+                map(Math.max(MIN_CAPACITY, duckArray.length * 2));
+                for (Duck duck : duckArray) {
+                    add(duck);
+                }
+                // Only a finished import is marked as a slot file
+                slots.putInt(4, VERSION).putInt(0, MAGIC);
+                slots.force();
+            } else {
+                open(slotPath);
+            }
+        } catch (IOException | RuntimeException e) {
+            slotChannel.close();
+            nameChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the slot file with room for a number of slots, growing the file if
+     * needed
+     *
+     * @param slotCount The number of slots
+     *
+     * @throws IOException when the file cannot be mapped
+     */
+    private void map(int slotCount) throws IOException {
+        long bytes = HEADER_BYTES + (long) slotCount * SLOT_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IOException("The slot file cannot hold " + slotCount + " ducks");
+        }
+        slots = slotChannel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        capacity = slotCount;
+    }
+
+    /**
+     * Maps an existing slot file and rebuilds the slot table and name indexes
+     * from it
+     *
+     * @param slotPath The slot file
+     *
+     * @throws IOException when the file is not a slot file or cannot be read
+     */
+    private void open(Path slotPath) throws IOException {
+        long size = slotChannel.size();
+        if (size < HEADER_BYTES) {
+            throw new IOException(slotPath + " is not a slot file");
+        }
+        map((int) ((size - HEADER_BYTES) / SLOT_BYTES));
+        if (slots.getInt(0) != MAGIC || slots.getInt(4) != VERSION) {
+            throw new IOException(slotPath + " is not a slot file of version " + VERSION);
+        }
+        slotsInUse = slots.getInt(SLOTS_IN_USE);
+        if (slotsInUse < 0 || slotsInUse > capacity) {
+            throw new IOException(slotPath + " is corrupt");
+        }
+        for (int slot = 0; slot < slotsInUse; ++slot) {
+            if (slots.get(base(slot) + LIVE) == 0) {
+                freeSlots.push(slot);
+                continue;
+            }
+            int id = slots.getInt(base(slot) + ID);
+            slotsById.put(id, slot);
+            String name = readName(slot);
+            index(id, name);
+            nextId = Math.max(nextId, id + 1);
+        }
+    }
+
+    /**
+     * Gets where a slot starts in the mapping
+     *
+     * @param slot The slot
+     *
+     * @return The offset of the slot
+     */
+    private static int base(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    /**
+     * Stores a new duck in a free slot, keeping its id
+     * <br>
+     * Must be called with the write lock held
+     *
+     * @param duck The {@link Duck duck}
+     *
+     * @throws IOException when the files cannot be written
+     */
+    private void add(Duck duck) throws IOException {
+        Integer slot = freeSlots.poll();
+        if (slot == null) {
+            if (slotsInUse == capacity) {
+                map(Math.max(MIN_CAPACITY, capacity * 2));
+            }
+            slot = slotsInUse++;
+            slots.putInt(SLOTS_IN_USE, slotsInUse);
+        }
+        write(slot, duck, appendName(duck.getName()));
+        slotsById.put(duck.getId(), slot);
+        index(duck.getId(), duck.getName());
+        nextId = Math.max(nextId, duck.getId() + 1);
+    }
+
+    /**
+     * Writes every field of a duck into its slot, in place
+     * <br>
+     * Nothing is forced to disk, so this is not atomic across a crash. A slot
+     * being updated is already live and may be left with a mix of old and new
+     * fields.
+     *
+     * @param slot The slot
+     * @param duck The {@link Duck duck}
+     * @param name The offset and length of the duck's name in the name file
+     */
+    private void write(int slot, Duck duck, long[] name) {
+        int base = base(slot);
+        slots.putInt(base + ID, duck.getId());
+        slots.putInt(base + QUANTITY, duck.getQuantity());
+        slots.putInt(base + SIZE, duck.getSize() == null ? -1 : duck.getSize().ordinal());
+        slots.putInt(base + COLOR, duck.getColor() == null ? -1 : duck.getColor().ordinal());
+        slots.putDouble(base + PRICE, duck.getPrice());
+        DuckOutfit outfit = duck.getOutfit();
+        slots.putInt(base + HAS_OUTFIT, outfit == null ? 0 : 1);
+        int[] uids = outfit == null ? new int[5] : outfit.getOutfitAsArray();
+        for (int i = 0; i < uids.length; ++i) {
+            slots.putInt(base + OUTFIT + i * Integer.BYTES, uids[i]);
+        }
+        slots.putLong(base + NAME_OFFSET, name[0]);
+        slots.putInt(base + NAME_LENGTH, (int) name[1]);
+        slots.put(base + LIVE, (byte) 1);
+    }
+
+    /**
+     * Reads the duck in a slot
+     *
+     * @param slot The slot
+     *
+     * @return The {@link Duck duck}
+     *
+     * @throws IOException when the name cannot be read
+     */
+    private Duck read(int slot) throws IOException {
+        int base = base(slot);
+        int size = slots.getInt(base + SIZE);
+        int color = slots.getInt(base + COLOR);
+        DuckOutfit outfit = null;
+        if (slots.getInt(base + HAS_OUTFIT) != 0) {
+            outfit = new DuckOutfit(slots.getInt(base + OUTFIT), slots.getInt(base + OUTFIT + 4),
+                    slots.getInt(base + OUTFIT + 8), slots.getInt(base + OUTFIT + 12),
+                    slots.getInt(base + OUTFIT + 16));
+        }
+        return new Duck(slots.getInt(base + ID), readName(slot), slots.getInt(base + QUANTITY),
+                slots.getDouble(base + PRICE), size < 0 ? null : Size.values()[size],
+                color < 0 ? null : Colors.values()[color], outfit);
+    }
+
+    /**
+     * Reads the name of the duck in a slot from the name file
+     *
+     * @param slot The slot
+     *
+     * @return The name, may be null
+     *
+     * @throws IOException when the name file cannot be read
+     */
+    private String readName(int slot) throws IOException {
+        int length = slots.getInt(base(slot) + NAME_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        long offset = slots.getLong(base(slot) + NAME_OFFSET);
+        while (bytes.hasRemaining()) {
+            if (nameChannel.read(bytes, offset + bytes.position()) < 0) {
+                throw new IOException("The name file is truncated");
+            }
+        }
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a name to the name file
+     *
+     * @param name The name, may be null
+     *
+     * @return The offset and length of the name
+     *
+     * @throws IOException when the name file cannot be written
+     */
+    private long[] appendName(String name) throws IOException {
+        if (name == null) {
+            return new long[] { 0, -1 };
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(name.getBytes(StandardCharsets.UTF_8));
+        long offset = nameChannel.size();
+        while (bytes.hasRemaining()) {
+            nameChannel.write(bytes, offset + bytes.position());
+        }
+        return new long[] { offset, bytes.capacity() };
+    }
+
+    /**
+     * Adds a name to the name indexes
+     *
+     * @param id   The id of the duck
+     * @param name The name of the duck
+     */
+    private void index(int id, String name) {
+        if (name != null) {
+            nameIndex.add(id, name);
+            idsByName.putIfAbsent(DuckNameIndex.fold(name), id);
+        }
+    }
+
+    /**
+     * Removes a name from the lookups by name, handing the entry to another duck
+     * with the same name ignoring case if there is one
+     * <br>
+     * Must be called with the write lock held, after the duck was removed or
+     * renamed
+     *
+     * @param id   The id of the duck
+     * @param name The name to remove
+     *
+     * @throws IOException when a name cannot be read
+     */
+    private void unindexName(int id, String name) throws IOException {
+        String key = DuckNameIndex.fold(name);
+        if (!idsByName.remove(key, id)) {
+            return;
+        }
+        for (Map.Entry<Integer, Integer> entry : slotsById.entrySet()) {
+            String other = readName(entry.getValue());
+            if (other != null && DuckNameIndex.fold(other).equals(key)) {
+                idsByName.putIfAbsent(key, entry.getKey());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the ducks in a range of the slot table
+     * <br>
+     * Must be called with the read lock held
+     *
+     * @param bySlot The ids and slots to read, in order
+     * @param limit  The most ducks to read
+     *
+     * @return The {@link Duck ducks}
+     *
+     * @throws IOException when a name cannot be read
+     */
+    private List<Duck> readAll(Map<Integer, Integer> bySlot, int limit) throws IOException {
+        List<Duck> duckList = new ArrayList<>(Math.min(limit, bySlot.size()));
+        for (int slot : bySlot.values()) {
+            if (duckList.size() == limit) {
+                break;
+            }
+            duckList.add(read(slot));
+        }
+        return duckList;
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] getDucks() throws IOException {
+        lock.readLock().lock();
+        try {
+            return readAll(slotsById, Integer.MAX_VALUE).toArray(new Duck[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public long getCatalogVersion() {
+        return version;
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Page<Duck> getDucksPage(String cursor, int limit) throws IOException {
+        int afterId = Page.decodeCursor(cursor);
+        lock.readLock().lock();
+        try {
+            // Read one extra duck to find out whether there is another page
+            return Page.of(readAll(slotsById.tailMap(afterId, false), limit + 1), limit, Duck::getId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText) throws IOException {
+        return findDucks(containsText, false);
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck[] findDucks(String containsText, boolean ignoreCase) throws IOException {
+        if (containsText == null || containsText.isEmpty()) {
+            return getDucks();
+        }
+        String foldedText = ignoreCase ? DuckNameIndex.fold(containsText) : null;
+        lock.readLock().lock();
+        try {
+            List<Duck> duckList = new ArrayList<>();
+            for (int id : nameIndex.candidates(containsText)) {
+                Integer slot = slotsById.get(id);
+                if (slot == null) {
+                    continue;
+                }
+                String name = readName(slot);
+                boolean matches = name != null && (ignoreCase ? DuckNameIndex.fold(name).contains(foldedText)
+                        : name.contains(containsText));
+                if (matches) {
+                    duckList.add(read(slot));
+                }
+            }
+            return duckList.toArray(new Duck[0]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck getDuck(int id) throws IOException {
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsById.get(id);
+            return slot == null ? null : read(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck getDuckByName(String name) {
+        if (name == null) {
+            return null;
+        }
+        Integer id = idsByName.get(DuckNameIndex.fold(name));
+        if (id == null) {
+            return null;
+        }
+        try {
+            Duck duck = getDuck(id);
+            return duck != null && name.equalsIgnoreCase(duck.getName()) ? duck : null;
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe);
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck createDuck(Duck duck) throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (getDuckByName(duck.getName()) != null) {
+                return null;
+            }
+            Duck newDuck = new Duck(nextId, duck.getName(), duck.getQuantity(), duck.getPrice(), duck.getSize(),
+                    duck.getColor(), duck.getOutfit());
+            add(newDuck);
+            ++version;
+            return newDuck;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public Duck updateDuck(Duck duck) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.get(duck.getId());
+            if (slot == null) {
+                return null; // duck does not exist
+            }
+            String oldName = readName(slot);
+            boolean renamed = oldName == null ? duck.getName() != null : !oldName.equals(duck.getName());
+            long[] name = renamed ? appendName(duck.getName())
+                    : new long[] { slots.getLong(base(slot) + NAME_OFFSET), slots.getInt(base(slot) + NAME_LENGTH) };
+            write(slot, duck, name);
+            if (renamed) {
+                index(duck.getId(), duck.getName());
+                if (oldName != null) {
+                    nameIndex.remove(duck.getId(), oldName, duck.getName());
+                    if (duck.getName() == null || !oldName.equalsIgnoreCase(duck.getName())) {
+                        unindexName(duck.getId(), oldName);
+                    }
+                }
+            }
+            ++version;
+            return duck;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean decrementQuantities(Map<Integer, Integer> quantities) throws IOException {
+        lock.writeLock().lock();
+        try {
+            // Check every line before touching any of them
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                Integer slot = slotsById.get(entry.getKey());
+                int quantity = entry.getValue();
+                if (slot == null || quantity < 0 || slots.getInt(base(slot) + QUANTITY) < quantity) {
+                    return false;
+                }
+            }
+            // Each line is a single write into the mapping
+            for (Map.Entry<Integer, Integer> entry : quantities.entrySet()) {
+                int at = base(slotsById.get(entry.getKey())) + QUANTITY;
+                slots.putInt(at, slots.getInt(at) - entry.getValue());
+            }
+            ++version;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     ** {@inheritDoc}
+     */
+    @Override
+    public boolean deleteDuck(int id) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotsById.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            String name = readName(slot);
+            slots.put(base(slot) + LIVE, (byte) 0);
+            freeSlots.push(slot);
+            if (name != null) {
+                nameIndex.remove(id, name, null);
+                unindexName(id, name);
+            }
+            ++version;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the mapping back to the slot file and closes the files
+     *
+     * @throws IOException when the files cannot be written
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!slotChannel.isOpen()) {
+                return;
+            }
+            slots.force();
+            nameChannel.force(true);
+            slotChannel.close();
+            nameChannel.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Registers {@link MappedDuckDAO memory-mapped} Duck DAOs under the names the
+ * controllers inject, in place of the JSON file DAOs
+ * <br>
+ * Only active when ducks.storage is set to mapped
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Configuration
+@ConditionalOnProperty(name = "ducks.storage", havingValue = "mapped")
+public class MappedDuckStorage {
+
+    /**
+     * Creates the Duck DAO for the inventory
+     *
+     * @param filename     The JSON file of the inventory
+     * @param objectMapper Reads the JSON file on first use
+     *
+     * @return The {@link MappedDuckDAO DAO}
+     *
+     * @throws IOException when the files cannot be accessed
+     */
+    @Bean("duckFileDAO")
+    public MappedDuckDAO duckFileDAO(@Value("${ducks.file}") String filename, ObjectMapper objectMapper)
+            throws IOException {
+        return new MappedDuckDAO(filename, objectMapper);
+    }
+
+    /**
+     * Creates the Duck DAO for the customized ducks
+     *
+     * @param filename     The JSON file of the customized ducks
+     * @param objectMapper Reads the JSON file on first use
+     *
+     * @return The {@link MappedDuckDAO DAO}
+     *
+     * @throws IOException when the files cannot be accessed
+     */
+    @Bean("customDuckFileDAO")
+    public MappedDuckDAO customDuckFileDAO(@Value("${custom_ducks.file}") String filename,
+            ObjectMapper objectMapper) throws IOException {
+        return new MappedDuckDAO(filename, objectMapper);
+    }
+}
@@ -0,0 +1,122 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One page of records from a DAO, in ascending id order
+ * <br>
+ * The cursor handed out with a page is opaque to clients. It holds the id of
+ * the last record on the page, so the next page starts right after it even if
+ * records were added or removed in between.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class Page<T> {
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    @JsonProperty("items")
+    private final List<T> items;
+    @JsonProperty("nextCursor")
+    private final String nextCursor;
+
+    /**
+     * Creates a page
+     *
+     * @param items      The records on the page
+     * @param nextCursor The cursor for the following page, null if this is the
+     *                   last page
+     */
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Creates a page of records in ascending id order
+     * <br>
+     * When there are more records than the limit, the extra record is dropped
+     * and the cursor points past the last kept record
+     *
+     * @param records The records, up to limit + 1 of them
+     * @param limit   The most records the page may hold
+     * @param idOf    Gets the id of a record
+     *
+     * @return The page
+     */
+    static <T> Page<T> of(List<T> records, int limit, Function<T, Integer> idOf) {
+        if (records.size() <= limit) {
+            return new Page<>(records, null);
+        }
+        List<T> items = new ArrayList<>(records.subList(0, limit));
+        return new Page<>(items, encodeCursor(idOf.apply(items.get(limit - 1))));
+    }
+
+    /**
+     * @return The records on the page
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The cursor for the following page, null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Converts every record on the page, keeping the cursor
+     *
+     * @param mapper Converts one record
+     *
+     * @return The converted page
+     */
+    public <R> Page<R> map(Function<T, R> mapper) {
+        List<R> mapped = new ArrayList<>(items.size());
+        for (T item : items) {
+            mapped.add(mapper.apply(item));
+        }
+        return new Page<>(mapped, nextCursor);
+    }
+
+    /**
+     * Creates the cursor that continues after the given id
+     *
+     * @param lastId The id of the last record handed out
+     *
+     * @return The opaque cursor
+     */
+    static String encodeCursor(int lastId) {
+        return ENCODER.encodeToString(ByteBuffer.allocate(Integer.BYTES).putInt(lastId).array());
+    }
+
+    /**
+     * Gets the id a cursor continues after
+     *
+     * @param cursor A cursor from {@link #getNextCursor()}, or null for the first
+     *               page
+     *
+     * @return The id of the last record already handed out, Integer.MIN_VALUE
+     *         for the first page
+     *
+     * @throws IllegalArgumentException if the cursor was not handed out by a page
+     */
+    public static int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Integer.MIN_VALUE;
+        }
+        byte[] bytes = DECODER.decode(cursor);
+        if (bytes.length != Integer.BYTES) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        return ByteBuffer.wrap(bytes).getInt();
+    }
+}
@@ -0,0 +1,164 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long the persistence tier spends reading, writing and waiting
+ * <br>
+ * The meters are registered with the global Micrometer registry, which Spring
+ * Boot feeds into the registry behind /actuator/prometheus. The DAOs are also
+ * created by hand in tests and benchmarks, so they record through these static
+ * helpers rather than having a registry injected. Without a registry attached
+ * to the global one, recording does nothing.
+ * <br>
+ * Meters are tagged with the name of the configured file, not the path, so
+ * the number of series stays fixed however the DAOs split their files up.
+ * <br>
+ * The same calls commit {@link FileIoEvent} and {@link LockWaitEvent} Java
+ * Flight Recorder events, which cost next to nothing while no recording is
+ * running.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public final class PersistenceMetrics {
+    /**
+     * Shortest lock wait recorded as a {@link LockWaitEvent}; taking a free lock
+     * takes far less
+     */
+    public static final long LOCK_WAIT_EVENT_NANOS = 10_000;
+
+    // Lock waits are recorded on every DAO call, so their timers are looked up
+    // once per file rather than on every call
+    private static final Map<String, Timer> LOCK_WAITS = new ConcurrentHashMap<>();
+
+    private PersistenceMetrics() {
+    }
+
+    /**
+     * Records the time spent waiting for the lock that guards the records of a
+     * file
+     * <br>
+     * Called first thing once the lock is held, with the time taken just before
+     * asking for it
+     *
+     * @param filename       The configured file the lock guards
+     * @param waitStartNanos {@link System#nanoTime()} just before the lock was
+     *                       asked for
+     */
+    public static void lockAcquired(String filename, long waitStartNanos) {
+        long nanos = System.nanoTime() - waitStartNanos;
+        LOCK_WAITS.computeIfAbsent(filename, f -> Timer.builder("persistence.lock.wait")
+                .description("Time spent waiting to take a persistence lock")
+                .tag("file", fileTag(f))
+                .register(Metrics.globalRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= LOCK_WAIT_EVENT_NANOS) {
+            LockWaitEvent event = new LockWaitEvent();
+            if (event.isEnabled()) {
+                event.file = fileTag(filename);
+                event.waited = nanos;
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Starts timing a read or write of a whole file
+     *
+     * @return The flight recorder event of the read or write, to pass to
+     *         {@link #saved} or {@link #loaded} once it is done
+     */
+    public static FileIoEvent startIo() {
+        FileIoEvent io = new FileIoEvent();
+        io.startNanos = System.nanoTime();
+        io.begin();
+        return io;
+    }
+
+    /**
+     * Records a write of a whole file
+     *
+     * @param filename The configured file being written
+     * @param io       Returned by {@link #startIo()} when the write started
+     * @param written  The file or snapshot that was written
+     * @param records  The number of records written
+     */
+    public static void saved(String filename, FileIoEvent io, Path written, int records) {
+        record("persistence.save", "save", filename, io, written, records);
+    }
+
+    /**
+     * Records a read of a whole file
+     *
+     * @param filename The configured file being read
+     * @param io       Returned by {@link #startIo()} when the read started
+     * @param read     The file or snapshot that was read
+     * @param records  The number of records read
+     */
+    public static void loaded(String filename, FileIoEvent io, Path read, int records) {
+        record("persistence.load", "load", filename, io, read, records);
+    }
+
+    /**
+     * Records the duration and size of a read or write
+     *
+     * @param name      The name of the meters
+     * @param operation load or save
+     * @param filename  The configured file
+     * @param io        Returned by {@link #startIo()} when the operation started
+     * @param path      The file that was read or written
+     * @param records   The number of records read or written
+     */
+    private static void record(String name, String operation, String filename, FileIoEvent io, Path path,
+            int records) {
+        long nanos = System.nanoTime() - io.startNanos;
+        io.end();
+        String file = fileTag(filename);
+        long bytes = sizeOf(path);
+        Timer.builder(name)
+                .tag("file", file)
+                .register(Metrics.globalRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(name + ".bytes")
+                .baseUnit("bytes")
+                .tag("file", file)
+                .register(Metrics.globalRegistry)
+                .record(bytes);
+        if (io.shouldCommit()) {
+            io.operation = operation;
+            io.file = file;
+            io.path = path.toString();
+            io.records = records;
+            io.bytes = bytes;
+            io.commit();
+        }
+    }
+
+    /**
+     * @param filename A configured file
+     *
+     * @return The name of the file without its directory
+     */
+    private static String fileTag(String filename) {
+        return Paths.get(filename).getFileName().toString();
+    }
+
+    /**
+     * @param path A file
+     *
+     * @return The size of the file, or 0 if it does not exist
+     */
+    private static long sizeOf(Path path) {
+        // File.length() returns 0 rather than throwing for a missing file
+        return new File(path.toString()).length();
+    }
+}
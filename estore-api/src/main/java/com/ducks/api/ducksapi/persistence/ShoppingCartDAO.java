@@ -21,6 +21,19 @@ public interface ShoppingCartDAO {
      */
     ShoppingCart[] getShoppingCarts() throws IOException;
 
+    /**
+     * Retrieves one page of {@linkplain ShoppingCart shopping carts}, in ascending id order
+     * 
+     * @param cursor The cursor of the previous page, null for the first page
+     * @param limit  The most {@link ShoppingCart shopping carts} to return
+     * 
+     * @return The page, with a cursor for the next one if there are more
+     * 
+     * @throws IllegalArgumentException if the cursor is malformed
+     * @throws IOException if an issue with underlying storage
+     */
+    Page<ShoppingCart> getShoppingCartsPage(String cursor, int limit) throws IOException;
+
 
     /**
      * Retrieves a {@linkplain ShoppingCart shopping cart} with the given customer id
@@ -72,4 +85,15 @@ public interface ShoppingCartDAO {
      * @throws IOException if underlying storage cannot be accessed
      */
     boolean deleteShoppingCart(int id) throws IOException;
+
+    /**
+     * Blocks until every change made to the {@linkplain ShoppingCart shopping
+     * carts} so far has been written to underlying storage
+     * <br>
+     * Only needed by callers that must know a change is durable, such as
+     * checkout. Storage that writes each change through returns right away.
+     * 
+     * @throws IOException if underlying storage cannot be accessed
+     */
+    void flush() throws IOException;
 }
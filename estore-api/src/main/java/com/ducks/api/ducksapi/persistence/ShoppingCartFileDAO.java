@@ -1,26 +1,197 @@
 package com.ducks.api.ducksapi.persistence;
 
+import java.io.DataOutput;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+/**
+ * Implements the functionality for JSON file-based persistence for Shopping
+ * Carts
+ * <br>
+ * Carts are kept in a concurrent map and every change is a single atomic
+ * operation on one customer's entry, so customers never wait on each other to
+ * read or change their own cart. Writing the file is serialized separately and
+ * happens outside of any cart operation. The carts can be split across several
+ * files by customer id, so a change only rewrites the file its cart is in.
+ * <br>
+ * The carts can be kept in a compact {@link BinarySnapshot binary snapshot}
+ * next to the JSON file instead of in the JSON file itself.
+ * 
+ * {@literal @}Component Spring annotation instantiates a single instance of
+ * this class and injects the instance into other classes as needed
+ * 
+ * @author Andrew Le
+ */
 @Component
 public class ShoppingCartFileDAO implements ShoppingCartDAO {
-    Map<Integer, ShoppingCart> carts; // Provides a local cache of the shopping cart objects
+    /**
+     * Writes and reads the {@linkplain ShoppingCart carts} in a binary snapshot
+     */
+    static final SnapshotCodec<ShoppingCart> CART_CODEC = new SnapshotCodec<>() {
+        @Override
+        public void write(DataOutput out, ShoppingCart cart) throws IOException {
+            out.writeInt(cart.getCustomerId());
+            Map<String, Integer> items = cart.getItems();
+            out.writeInt(items.size());
+            for (Map.Entry<String, Integer> item : items.entrySet()) {
+                BinarySnapshot.writeString(out, item.getKey());
+                out.writeInt(item.getValue());
+            }
+        }
+
+        @Override
+        public ShoppingCart read(ByteBuffer in) {
+            int customerId = in.getInt();
+            int size = in.getInt();
+            Map<String, Integer> items = new HashMap<>();
+            for (int i = 0; i < size; ++i) {
+                items.put(BinarySnapshot.readString(in), in.getInt());
+            }
+            return new ShoppingCart(customerId, items);
+        }
+    };
+
+    NavigableMap<Integer, ShoppingCart> carts; // Provides a local cache of the shopping cart objects
                                       // so that we don't need to read from the file
                                       // each time
     private ObjectMapper objectMapper; // Provides conversion between Duck
                                        // objects and JSON text format written
                                        // to the file
     private String filename; // Filename to read from and write to
+    private WriteBehindFlusher flusher; // Writes the carts in the background, null when writing through
+    private boolean binarySnapshot; // Whether the carts are kept in a binary snapshot instead of the file
+    private Shard[] shards; // The files the carts are split across, by customer id
+    private ExecutorService shardWriter; // Writes shards in parallel for the flusher, null with one shard
+
+    /**
+     * One of the files the carts are split across
+     * <br>
+     * A shard holds every cart whose customer id leaves its index as the
+     * remainder when divided by the number of shards. Each shard is written on
+     * its own, under its own lock, so a change only rewrites the shard of the
+     * cart that changed and different shards are written at the same time.
+     * <br>
+     * The shard keeps the ids of its carts, so a write only looks up its own
+     * carts instead of going through every cart. An id is added before its cart
+     * is, and stays after the cart is deleted; deleted carts are skipped when
+     * the shard is written.
+     */
+    private final class Shard {
+        private final int index; // Remainder of the customer ids in this shard
+        private final String file; // Filename of the shard
+        private final NavigableSet<Integer> customerIds = new ConcurrentSkipListSet<>(); // Ids of the shard's carts
+        private final AtomicLong changes = new AtomicLong(); // Number of changes made to the shard's carts
+        private final ReentrantLock lock = new ReentrantLock(); // Serializes writes of the shard
+        private long savedChanges; // Number of changes the file is known to hold, guarded by lock
+
+        /**
+         * @param index Remainder of the customer ids in this shard
+         * @param file  Filename of the shard
+         */
+        Shard(int index, String file) {
+            this.index = index;
+            this.file = file;
+        }
+
+        /**
+         * @return The {@link ShoppingCart carts} in this shard
+         */
+        ShoppingCart[] getCarts() {
+            if (shards.length == 1) {
+                return getShoppingCartArray();
+            }
+            List<ShoppingCart> cartList = new ArrayList<>(customerIds.size());
+            for (int customerId : customerIds) {
+                ShoppingCart cart = carts.get(customerId);
+                if (cart != null) {
+                    cartList.add(cart);
+                }
+            }
+            return cartList.toArray(new ShoppingCart[0]);
+        }
+
+        /**
+         * Makes sure the file holds the given change, writing it if no other
+         * write has covered it yet
+         * <br>
+         * Writes of a shard are serialized, and one write covers every change
+         * made before it copied the carts, so callers that queued up behind a
+         * write often find their change already saved
+         * 
+         * @param change The number of the change to save
+         * 
+         * @throws IOException when file cannot be accessed or written to
+         */
+        void saveThrough(long change) throws IOException {
+            long waitStart = System.nanoTime();
+            lock.lock();
+            try {
+                PersistenceMetrics.lockAcquired(filename, waitStart);
+                if (savedChanges >= change) {
+                    return;
+                }
+                long upTo = changes.get();
+                write(file, getCarts());
+                savedChanges = upTo;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Writes every change made to the shard so far
+         * 
+         * @throws IOException when file cannot be accessed or written to
+         */
+        void save() throws IOException {
+            saveThrough(Long.MAX_VALUE);
+        }
+
+        /**
+         * Writes the shard's carts to its JSON file without making it look newer
+         * than its snapshot
+         * 
+         * @throws IOException when the file or snapshot cannot be written to
+         */
+        void exportJson() throws IOException {
+            lock.lock();
+            try {
+                objectMapper.writeValue(new File(file), getCarts());
+                Files.setLastModifiedTime(BinarySnapshot.pathFor(file), Files.getLastModifiedTime(Paths.get(file)));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 
     /**
      * Creates a ShoppingCart File Data Access Object
@@ -31,55 +202,381 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      * 
      * @throws IOException when file cannot be accessed or read from
      */
-    public ShoppingCartFileDAO(@Value("${carts.file}") String filename, ObjectMapper objectMapper) throws IOException {
+    public ShoppingCartFileDAO(String filename, ObjectMapper objectMapper) throws IOException {
+        this(filename, objectMapper, false, 0, 0);
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object
+     * <br>
+     * In write-behind mode, changes only mark the carts dirty. A flusher thread
+     * writes every change made within windowMs milliseconds of the first one, or
+     * as soon as maxMutations changes pile up, in a single write. Callers that
+     * need a change on disk before moving on use {@link #flush()}.
+     * 
+     * @param filename     Filename to read from and write to
+     * @param objectMapper Provides JSON Object to/from Java Object serialization
+     *                     and deserialization
+     * @param writeBehind  Whether changes are written in the background
+     * @param windowMs     How long changes are coalesced for
+     * @param maxMutations Number of changes that forces a write before the window
+     *                     ends
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    public ShoppingCartFileDAO(String filename, ObjectMapper objectMapper, boolean writeBehind, long windowMs,
+            int maxMutations) throws IOException {
+        this(filename, objectMapper, writeBehind, windowMs, maxMutations, false);
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object
+     * <br>
+     * With a binary snapshot, the carts are saved to and loaded from a
+     * {@link BinarySnapshot snapshot} next to the file. The file is only loaded
+     * when it is newer than the snapshot, so a JSON file can still be dropped in
+     * to be imported, and it is written from the snapshot on shutdown.
+     * 
+     * @param filename       Filename to read from and write to
+     * @param objectMapper   Provides JSON Object to/from Java Object
+     *                       serialization and deserialization
+     * @param writeBehind    Whether changes are written in the background
+     * @param windowMs       How long changes are coalesced for
+     * @param maxMutations   Number of changes that forces a write before the
+     *                       window ends
+     * @param binarySnapshot Whether the carts are kept in a binary snapshot
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    public ShoppingCartFileDAO(String filename, ObjectMapper objectMapper, boolean writeBehind, long windowMs,
+            int maxMutations, boolean binarySnapshot) throws IOException {
+        this(filename, objectMapper, writeBehind, windowMs, maxMutations, binarySnapshot, 1);
+    }
+
+    /**
+     * Creates a ShoppingCart File Data Access Object
+     * <br>
+     * With more than one shard, the carts are split across that many files by
+     * customer id, and a change only rewrites the file of the cart that changed.
+     * The number of shards in use is recorded in a manifest next to the file.
+     * When it differs from shardCount, or on the first start with shards, the
+     * carts are read from the old layout and rewritten into the new one, and
+     * the manifest is only switched over once every new shard is written.
+     * 
+     * @param filename       Filename to read from and write to
+     * @param objectMapper   Provides JSON Object to/from Java Object
+     *                       serialization and deserialization
+     * @param writeBehind    Whether changes are written in the background
+     * @param windowMs       How long changes are coalesced for
+     * @param maxMutations   Number of changes that forces a write before the
+     *                       window ends
+     * @param binarySnapshot Whether the carts are kept in a binary snapshot
+     * @param shardCount     Number of files the carts are split across
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    @Autowired
+    public ShoppingCartFileDAO(@Value("${carts.file}") String filename, ObjectMapper objectMapper,
+            @Value("${carts.writebehind.enabled:false}") boolean writeBehind,
+            @Value("${carts.writebehind.window.ms:20}") long windowMs,
+            @Value("${carts.writebehind.max.mutations:500}") int maxMutations,
+            @Value("${persistence.snapshot.binary:false}") boolean binarySnapshot,
+            @Value("${carts.shards:1}") int shardCount) throws IOException {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("carts.shards must be at least 1");
+        }
         this.filename = filename;
         this.objectMapper = objectMapper;
+        this.binarySnapshot = binarySnapshot;
+        this.shards = createShards(shardCount);
         load(); // load the shopping carts from the file
+        if (writeBehind) {
+            if (shardCount > 1) {
+                shardWriter = Executors.newFixedThreadPool(Math.min(shardCount,
+                        Runtime.getRuntime().availableProcessors()), runnable -> {
+                            Thread thread = new Thread(runnable, "cart-shard-writer");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+            }
+            flusher = new WriteBehindFlusher("cart-flusher", this::flushCarts, windowMs, maxMutations);
+        }
+    }
+
+    /**
+     * Creates the shards for a number of shards
+     * 
+     * @param shardCount Number of shards
+     * 
+     * @return The shards, whose only file is the cart file itself when there is
+     *         one shard
+     */
+    private Shard[] createShards(int shardCount) {
+        Shard[] created = new Shard[shardCount];
+        for (int i = 0; i < shardCount; ++i) {
+            created[i] = new Shard(i, shardFile(i, shardCount));
+        }
+        return created;
+    }
+
+    /**
+     * Gets the filename of a shard
+     * 
+     * @param index      Index of the shard
+     * @param shardCount Number of shards
+     * 
+     * @return The filename
+     */
+    private String shardFile(int index, int shardCount) {
+        return shardCount == 1 ? filename : filename + ".shard-" + index + "-of-" + shardCount;
     }
 
     /**
-     * Saves the {@linkplain ShoppingCart carts} from the map into the file as an
-     * array of
-     * JSON objects
+     * Gets the shard a customer's cart belongs to
+     * 
+     * @param customerId The id of the customer
      * 
-     * @return true if the {@link ShoppingCart carts} were written successfully
+     * @return The shard
+     */
+    private Shard shardOf(int customerId) {
+        return shards[Math.floorMod(customerId, shards.length)];
+    }
+
+    /**
+     * Gets the manifest that records how many shards are in use
+     * 
+     * @return The manifest
+     */
+    private Path manifestPath() {
+        return Paths.get(filename + ".shards");
+    }
+
+    /**
+     * Writes {@linkplain ShoppingCart carts} to the binary snapshot or the file
+     * 
+     * @param file      The file
+     * @param cartArray The {@link ShoppingCart carts}
      * 
      * @throws IOException when file cannot be accessed or written to
      */
-    private boolean save() throws IOException {
-        ShoppingCart[] cartArray = getShoppingCarts();
+    private void write(String file, ShoppingCart[] cartArray) throws IOException {
+        FileIoEvent io = PersistenceMetrics.startIo();
+        if (binarySnapshot) {
+            Path snapshotPath = BinarySnapshot.pathFor(file);
+            BinarySnapshot.write(snapshotPath, BinarySnapshot.CARTS, Arrays.asList(cartArray), CART_CODEC);
+            PersistenceMetrics.saved(filename, io, snapshotPath, cartArray.length);
+            return;
+        }
 
         // Serializes the Java Objects to JSON objects into the file
         // writeValue will thrown an IOException if there is an issue
         // with the file or reading from the file
-        objectMapper.writeValue(new File(filename), cartArray);
-        return true;
+        objectMapper.writeValue(new File(file), cartArray);
+        PersistenceMetrics.saved(filename, io, Paths.get(file), cartArray.length);
     }
 
     /**
-     * Loads {@linkplain ShoppingCart carts} from the JSON file into the map
+     * Writes the changed shards for the flusher, at the same time when there are
+     * several
      * <br>
+     * The carts are copied without blocking cart requests, and the copy holds
+     * every change made before the flush started
      * 
-     * @return true if the file was read successfully
+     * @throws IOException when file cannot be accessed or written to
+     */
+    private void flushCarts() throws IOException {
+        if (shardWriter == null) {
+            for (Shard shard : shards) {
+                shard.saveThrough(shard.changes.get());
+            }
+            return;
+        }
+        List<Future<?>> writes = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            long change = shard.changes.get();
+            writes.add(shardWriter.submit(() -> {
+                shard.saveThrough(change);
+                return null;
+            }));
+        }
+        IOException failure = null;
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException ee) {
+                if (failure == null) {
+                    failure = ee.getCause() instanceof IOException ? (IOException) ee.getCause()
+                            : new IOException(ee.getCause());
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while writing cart shards", ie);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Records that a {@linkplain ShoppingCart cart} changed, either by saving its
+     * shard right away or by handing it to the flusher
+     * <br>
+     * Must be called after the change is in the map
      * 
-     * @throws IOException when file cannot be accessed or read from
+     * @param customerId The id of the customer whose cart changed
+     * 
+     * @throws IOException when file cannot be accessed or written to
      */
-    private boolean load() throws IOException {
-        carts = new TreeMap<>();
+    private void persist(int customerId) throws IOException {
+        Shard shard = shardOf(customerId);
+        long change = shard.changes.incrementAndGet();
+        if (flusher == null) {
+            shard.saveThrough(change);
+        } else {
+            flusher.markDirty();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        if (flusher != null) {
+            flusher.awaitDurable(flusher.getDirtyGeneration());
+        }
+    }
+
+    /**
+     * Writes any changes still waiting on the flusher and stops it
+     * <br>
+     * With a binary snapshot, also exports the carts to the JSON files
+     * 
+     * @throws IOException when the file cannot be written to
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.close();
+        }
+        if (shardWriter != null) {
+            shardWriter.shutdown();
+        }
+        if (binarySnapshot) {
+            exportJson();
+        }
+    }
 
+    /**
+     * Writes the {@linkplain ShoppingCart carts} to the JSON files without making
+     * them look newer than the snapshots, so the next start still loads the
+     * snapshots
+     * 
+     * @throws IOException when the file or snapshot cannot be written to
+     */
+    void exportJson() throws IOException {
+        for (Shard shard : shards) {
+            shard.exportJson();
+        }
+    }
+
+    /**
+     * Reads {@linkplain ShoppingCart carts} from the binary snapshot or the file
+     * 
+     * @param file The file
+     * 
+     * @return The {@link ShoppingCart carts}
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private ShoppingCart[] read(String file) throws IOException {
         // Deserializes the JSON objects from the file into an array of carts
         // readValue will throw an IOException if there's an issue with the file
         // or reading from the file
-        ShoppingCart[] cartArray = objectMapper.readValue(new File(filename), ShoppingCart[].class);
+        FileIoEvent io = PersistenceMetrics.startIo();
+        if (binarySnapshot && BinarySnapshot.isCurrent(file)) {
+            Path snapshotPath = BinarySnapshot.pathFor(file);
+            ShoppingCart[] cartArray = BinarySnapshot.read(snapshotPath, BinarySnapshot.CARTS, CART_CODEC)
+                    .toArray(new ShoppingCart[0]);
+            PersistenceMetrics.loaded(filename, io, snapshotPath, cartArray.length);
+            return cartArray;
+        }
+        ShoppingCart[] cartArray = objectMapper.readValue(new File(file), ShoppingCart[].class);
+        PersistenceMetrics.loaded(filename, io, Paths.get(file), cartArray.length);
+        return cartArray;
+    }
 
-        // Add each cart to the tree map and keep track of the greatest id
-        for (ShoppingCart cart : cartArray) {
-            carts.put(cart.getCustomerId(), cart);
+    /**
+     * Loads {@linkplain ShoppingCart carts} from the files or the binary
+     * snapshots into the map
+     * <br>
+     * Moves the carts to the configured number of shards if the files on disk
+     * are laid out for another number
+     * 
+     * @return true if the file was read successfully
+     * 
+     * @throws IOException when file cannot be accessed or read from
+     */
+    private boolean load() throws IOException {
+        carts = new ConcurrentSkipListMap<>();
+
+        Path manifest = manifestPath();
+        int storedCount = Files.exists(manifest) ? Integer.parseInt(Files.readString(manifest).trim()) : 1;
+        boolean imported = false;
+        for (int i = 0; i < storedCount; ++i) {
+            String file = shardFile(i, storedCount);
+            imported |= binarySnapshot && !BinarySnapshot.isCurrent(file);
+            // Add each cart to the tree map
+            for (ShoppingCart cart : read(file)) {
+                carts.put(cart.getCustomerId(), cart);
+                shardOf(cart.getCustomerId()).customerIds.add(cart.getCustomerId());
+            }
         }
 
+        if (storedCount != shards.length) {
+            migrate(storedCount);
+        } else if (imported) {
+            // Import the JSON files so the snapshots are current from here on
+            for (Shard shard : shards) {
+                shard.save();
+            }
+        }
         return true;
     }
 
+    /**
+     * Rewrites the carts into the configured shards, switches the manifest over
+     * and only then removes the files of the old layout
+     * <br>
+     * The cart file itself is left in place when moving to several shards, as a
+     * copy of the carts from before the move
+     * 
+     * @param storedCount The number of shards the carts were read from
+     * 
+     * @throws IOException when the files cannot be written or removed
+     */
+    private void migrate(int storedCount) throws IOException {
+        for (Shard shard : shards) {
+            shard.save();
+        }
+        Path manifest = manifestPath();
+        if (shards.length == 1) {
+            Files.deleteIfExists(manifest);
+        } else {
+            Path temp = Paths.get(manifest + ".tmp");
+            Files.writeString(temp, Integer.toString(shards.length));
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        if (storedCount > 1) {
+            for (int i = 0; i < storedCount; ++i) {
+                String stale = shardFile(i, storedCount);
+                Files.deleteIfExists(Paths.get(stale));
+                Files.deleteIfExists(BinarySnapshot.pathFor(stale));
+            }
+        }
+    }
+
     /**
      * Generates an array of {@linkplain ShoppingCart carts} from the tree map for
      * each
@@ -88,15 +585,7 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      * @return The array of {@link ShoppingCart carts}, may be empty
      */
     private ShoppingCart[] getShoppingCartArray() {
-        ArrayList<ShoppingCart> cartArrayList = new ArrayList<>();
-
-        for (ShoppingCart cart : carts.values()) {
-            cartArrayList.add(cart);
-        }
-
-        ShoppingCart[] cartArray = new ShoppingCart[cartArrayList.size()];
-        cartArrayList.toArray(cartArray);
-        return cartArray;
+        return carts.values().toArray(new ShoppingCart[0]);
     }
 
     /**
@@ -104,16 +593,15 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public ShoppingCart createShoppingCart(ShoppingCart cart) throws IOException {
-        synchronized (carts) {
-            // Checks if a customer already has a shopping cart
-            if (carts.get(cart.getCustomerId()) != null) {
-                return null;
-            }
-
-            carts.put(cart.getCustomerId(), cart);
-            save();
-            return cart;
+        // Index the cart before it can be seen, so a write of its shard finds it
+        shardOf(cart.getCustomerId()).customerIds.add(cart.getCustomerId());
+        // Checks if a customer already has a shopping cart
+        if (carts.putIfAbsent(cart.getCustomerId(), cart) != null) {
+            return null;
         }
+
+        persist(cart.getCustomerId());
+        return cart;
     }
 
     /**
@@ -121,14 +609,12 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public boolean deleteShoppingCart(int id) throws IOException {
-        synchronized (carts) {
-            if (carts.get(id) == null) {
-                return false;
-            }
-
-            carts.remove(id);
-            return save();
+        if (carts.remove(id) == null) {
+            return false;
         }
+
+        persist(id);
+        return true;
     }
 
     /**
@@ -136,9 +622,7 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public ShoppingCart getShoppingCart(int id) {
-        synchronized (carts) {
-            return carts.get(id); // NULL If not found
-        }
+        return carts.get(id); // NULL If not found
     }
 
     /**
@@ -146,26 +630,37 @@ public class ShoppingCartFileDAO implements ShoppingCartDAO {
      */
     @Override
     public ShoppingCart[] getShoppingCarts() {
-        synchronized (carts) {
-            return getShoppingCartArray();
-        }
+        return getShoppingCartArray();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public ShoppingCart updateShoppingCart(ShoppingCart cart) throws IOException {
-        synchronized (carts) {
-            if (carts.get(cart.getCustomerId()) == null) {
-                return null;
+    public Page<ShoppingCart> getShoppingCartsPage(String cursor, int limit) {
+        int afterId = Page.decodeCursor(cursor);
+        List<ShoppingCart> cartList = new ArrayList<>();
+        // Take one extra cart to find out whether there is another page
+        for (ShoppingCart cart : carts.tailMap(afterId, false).values()) {
+            if (cartList.size() > limit) {
+                break;
             }
+            cartList.add(cart);
+        }
+        return Page.of(cartList, limit, ShoppingCart::getCustomerId);
+    }
 
-            carts.put(cart.getCustomerId(), cart);
-            save();
-            return cart;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ShoppingCart updateShoppingCart(ShoppingCart cart) throws IOException {
+        if (carts.replace(cart.getCustomerId(), cart) == null) {
+            return null;
         }
 
+        persist(cart.getCustomerId());
+        return cart;
     }
 
 }
@@ -0,0 +1,36 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts one record to and from its form in a {@link BinarySnapshot binary
+ * snapshot}
+ *
+ * @param <T> The type of record
+ *
+ * @author SWEN-261-06 Team 8
+ */
+interface SnapshotCodec<T> {
+    /**
+     * Writes a record
+     *
+     * @param out    Where the record is written
+     * @param record The record
+     *
+     * @throws IOException when the record cannot be written
+     */
+    void write(DataOutput out, T record) throws IOException;
+
+    /**
+     * Reads a record written by {@link #write(DataOutput, Object)}
+     *
+     * @param in The bytes of exactly one record
+     *
+     * @return The record
+     *
+     * @throws IOException when the bytes do not hold a valid record
+     */
+    T read(ByteBuffer in) throws IOException;
+}
@@ -0,0 +1,219 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces many "the store changed" notifications into a few writes
+ * <br>
+ * Mutations call {@link #markDirty()} and return right away. A dedicated
+ * flusher thread waits until either the coalescing window has passed since the
+ * first unflushed change or enough changes have piled up, then runs the flush
+ * action once for all of them. Callers that need to know their change reached
+ * storage can wait for it with {@link #awaitDurable(long)}.
+ * <br>
+ * The state is guarded by a lock and a condition rather than a monitor, so
+ * request handlers waiting for a write on virtual threads give up their
+ * carrier thread while they wait.
+ *
+ * @author SWEN-261-06 Team 8
+ */
+public class WriteBehindFlusher implements Closeable {
+    private static final Logger LOG = Logger.getLogger(WriteBehindFlusher.class.getName());
+
+    /**
+     * The work done on each flush
+     */
+    @FunctionalInterface
+    public interface FlushAction {
+        /**
+         * Writes the current state of the store
+         *
+         * @throws IOException when the underlying storage cannot be written to
+         */
+        void flush() throws IOException;
+    }
+
+    private final FlushAction action; // Writes the store
+    private final long windowNanos; // How long changes are coalesced for
+    private final int maxMutations; // Number of changes that forces a flush before the window ends
+    private final Thread thread; // The flusher thread
+    private final ReentrantLock lock = new ReentrantLock(); // Guards the fields below
+    private final Condition changed = lock.newCondition(); // Signalled whenever the fields below change
+
+    private long dirtyGeneration; // Generation of the latest change
+    private long flushedGeneration; // Generation of the latest change that was written
+    private long failedGeneration; // Generation of the latest change whose write failed
+    private IOException lastError; // Why the latest write failed
+    private long firstDirtyAt; // When the oldest unflushed change was made
+    private int pending; // Number of unflushed changes
+    private boolean closed;
+
+    /**
+     * Creates and starts a flusher
+     *
+     * @param name         Name of the flusher thread
+     * @param action       Writes the store
+     * @param windowMs     How long changes are coalesced for, in milliseconds
+     * @param maxMutations Number of changes that forces a flush before the window
+     *                     ends
+     */
+    public WriteBehindFlusher(String name, FlushAction action, long windowMs, int maxMutations) {
+        this.action = action;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.maxMutations = maxMutations;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Records that the store changed
+     *
+     * @return The generation of this change, to pass to
+     *         {@link #awaitDurable(long)}
+     */
+    public long markDirty() {
+        lock.lock();
+        try {
+            if (pending == 0) {
+                firstDirtyAt = System.nanoTime();
+            }
+            ++pending;
+            ++dirtyGeneration;
+            changed.signalAll();
+            return dirtyGeneration;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The generation of the latest change
+     */
+    public long getDirtyGeneration() {
+        lock.lock();
+        try {
+            return dirtyGeneration;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the change with the given generation, and every change before
+     * it, has been written
+     *
+     * @param generation A value returned by {@link #markDirty()}
+     *
+     * @throws IOException when the write that covered the change failed
+     */
+    public void awaitDurable(long generation) throws IOException {
+        lock.lock();
+        try {
+            // Skip the rest of the window, someone is waiting
+            firstDirtyAt -= windowNanos;
+            changed.signalAll();
+            boolean interrupted = false;
+            while (flushedGeneration < generation && failedGeneration < generation && thread.isAlive()) {
+                try {
+                    // Timed so a flusher thread that exits is noticed
+                    changed.await(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (flushedGeneration < generation) {
+                throw lastError != null ? lastError : new IOException("Flusher closed before the change was written");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes anything still pending and stops the flusher thread
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Body of the flusher thread
+     */
+    private void run() {
+        while (true) {
+            long target;
+            lock.lock();
+            try {
+                try {
+                    while (dirtyGeneration == flushedGeneration && !closed) {
+                        changed.await();
+                    }
+                    if (dirtyGeneration == flushedGeneration) {
+                        return; // closed and nothing left to write
+                    }
+                    // Coalesce until the window ends or enough changes pile up
+                    long remaining;
+                    while (!closed && pending < maxMutations
+                            && (remaining = firstDirtyAt + windowNanos - System.nanoTime()) > 0) {
+                        changed.awaitNanos(remaining);
+                    }
+                } catch (InterruptedException ie) {
+                    closed = true;
+                }
+                target = dirtyGeneration;
+                pending = 0;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                action.flush();
+            } catch (IOException ioe) {
+                LOG.log(Level.SEVERE, ioe.getLocalizedMessage());
+                error = ioe;
+            }
+
+            lock.lock();
+            try {
+                if (error == null) {
+                    flushedGeneration = target;
+                } else {
+                    // Leave the store dirty so it is retried after another window
+                    failedGeneration = target;
+                    lastError = error;
+                    firstDirtyAt = System.nanoTime();
+                    if (closed) {
+                        changed.signalAll();
+                        return;
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
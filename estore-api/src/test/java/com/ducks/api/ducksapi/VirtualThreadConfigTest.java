@@ -0,0 +1,42 @@
+package com.ducks.api.ducksapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the virtual thread request execution mode
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class VirtualThreadConfigTest {
+
+    @Test
+    public void testExecutorMatchesJvm() throws InterruptedException, ExecutionException {
+        // Setup
+        boolean supported = Runtime.version().feature() >= 21;
+
+        // Invoke and Analyze
+        assertEquals(supported, VirtualThreadConfig.isAvailable());
+        if (!supported) {
+            assertThrows(IllegalStateException.class, VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+            return;
+        }
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            // Thread.isVirtual() is only there to call on Java 21 and newer
+            Object virtual = executor.submit(() -> Thread.class.getMethod("isVirtual")
+                    .invoke(Thread.currentThread())).get();
+            assertTrue((Boolean) virtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.ducks.api.ducksapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Test the asynchronous access log
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class AccessLogPipelineTest {
+    private static final Logger ACCESS = Logger.getLogger(AccessLogPipeline.LOGGER_NAME);
+
+    private final List<String> lines = new CopyOnWriteArrayList<>();
+    private CountDownLatch entered; // Counted down when the writer starts writing a line
+    private CountDownLatch release; // Holds the writer in the logger until counted down
+    private Handler handler;
+
+    @BeforeEach
+    public void setupAccessLog() {
+        entered = new CountDownLatch(1);
+        release = new CountDownLatch(0);
+        handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                lines.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ACCESS.addHandler(handler);
+    }
+
+    @AfterEach
+    public void removeHandler() {
+        ACCESS.removeHandler(handler);
+    }
+
+    @Test
+    public void testRecordWritesStructuredLine() throws InterruptedException {
+        // Setup
+        AccessLogPipeline pipeline = new AccessLogPipeline(true, 16, 1.0);
+
+        // Invoke
+        pipeline.record("GET", "/cart/{id}", 200, 1_500_000, null);
+        pipeline.record("PUT", "/cart", 500, 2_000, new IOException("disk"));
+        pipeline.close();
+
+        // Analyze
+        assertEquals(2, pipeline.getAccepted());
+        assertEquals(2, pipeline.getWritten());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("ts=\\S+ method=GET uri=/cart/\\{id\\} status=200 us=1500"));
+        assertTrue(lines.get(1).endsWith("method=PUT uri=/cart status=500 us=2 exception=java.io.IOException"));
+    }
+
+    @Test
+    public void testSamplingKeepsFailures() throws InterruptedException {
+        // Setup
+        AccessLogPipeline pipeline = new AccessLogPipeline(true, 16, 0.0);
+
+        // Invoke
+        pipeline.record("GET", "/inventory", 200, 1000, null);
+        pipeline.record("GET", "/inventory", 304, 1000, null);
+        pipeline.record("GET", "/{id}", 404, 1000, null);
+        pipeline.close();
+
+        // Analyze
+        assertEquals(2, pipeline.getSampledOut());
+        assertEquals(1, pipeline.getAccepted());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("status=404"));
+    }
+
+    @Test
+    public void testFullBufferDrops() throws InterruptedException {
+        // Setup
+        release = new CountDownLatch(1);
+        AccessLogPipeline pipeline = new AccessLogPipeline(true, 1, 1.0);
+        pipeline.record("GET", "/cart", 200, 1000, null);
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        // Invoke
+        pipeline.record("GET", "/cart", 200, 1000, null); // Fills the buffer
+        pipeline.record("GET", "/cart", 200, 1000, null); // Dropped
+        release.countDown();
+        pipeline.close();
+
+        // Analyze
+        assertEquals(2, pipeline.getAccepted());
+        assertEquals(1, pipeline.getDropped());
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    public void testDisabled() throws InterruptedException {
+        // Setup
+        AccessLogPipeline pipeline = new AccessLogPipeline(false, 16, 1.0);
+
+        // Invoke
+        pipeline.record("GET", "/cart", 500, 1000, null);
+        pipeline.close();
+
+        // Analyze
+        assertEquals(0, pipeline.getAccepted());
+        assertTrue(lines.isEmpty());
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        // Invoke and Analyze
+        assertThrows(IllegalArgumentException.class, () -> new AccessLogPipeline(true, 0, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new AccessLogPipeline(true, 16, 1.5));
+    }
+
+    @Test
+    public void testInterceptorLogsPattern() throws InterruptedException {
+        // Setup
+        AccessLogPipeline pipeline = new AccessLogPipeline(true, 16, 1.0);
+        AccessLogInterceptor interceptor = new AccessLogInterceptor(pipeline);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login");
+        request.setQueryString("username=TEST&password=secret");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Invoke
+        interceptor.preHandle(request, response, null);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/login");
+        interceptor.afterCompletion(request, response, null, null);
+        pipeline.close();
+
+        // Analyze
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("method=GET uri=/login status=200"));
+        assertFalse(lines.get(0).contains("secret"));
+    }
+}
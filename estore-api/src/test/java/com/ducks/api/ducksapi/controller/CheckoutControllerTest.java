@@ -1,16 +1,24 @@
 package com.ducks.api.ducksapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -22,11 +30,17 @@ import org.springframework.http.ResponseEntity;
 import com.ducks.api.ducksapi.model.Colors;
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Reservation;
 import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.ducks.api.ducksapi.model.Size;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.InventoryReservations;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 /**
  * Test the Checkout Controller class
  * 
@@ -50,7 +64,8 @@ public class CheckoutControllerTest {
     public void setupCheckoutController() throws IOException {
         mockCartDAO = mock(ShoppingCartDAO.class);
         mockDuckDAO = mock(DuckDAO.class);
-        checkoutController = new CheckoutController(mockCartDAO, mockDuckDAO);
+        checkoutController = new CheckoutController(mockCartDAO, mockDuckDAO,
+                new InventoryReservations(mockDuckDAO, 600_000));
 
         Map<String, Integer> items = new HashMap<>();
         items.put("1", 1);
@@ -72,14 +87,27 @@ public class CheckoutControllerTest {
 
     @Test
     public void testCheckout() throws IOException {
+        when(mockDuckDAO.decrementQuantities(Map.of(1, 1, 2, 2, 3, 3))).thenReturn(true);
+
         ResponseEntity<ShoppingCart> response = checkoutController.checkout(0);
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(new ShoppingCart(0), response.getBody());
 
-        // Check inventory values
-        assertEquals(9, duckOne.getQuantity());
-        assertEquals(0, duckTwo.getQuantity());
-        assertEquals(2, duckThree.getQuantity());
+        // Check the inventory was taken in one step and the cart saved once
+        verify(mockDuckDAO, times(1)).decrementQuantities(Map.of(1, 1, 2, 2, 3, 3));
+        verify(mockDuckDAO, never()).updateDuck(any(Duck.class));
+        verify(mockCartDAO, times(1)).updateShoppingCart(new ShoppingCart(0));
+    }
+
+    @Test
+    public void testCheckoutStockTakenSinceValidation() throws IOException {
+        // Another checkout took the stock between validation and the decrement
+        when(mockDuckDAO.decrementQuantities(Map.of(1, 1, 2, 2, 3, 3))).thenReturn(false);
+
+        ResponseEntity<ShoppingCart> response = checkoutController.checkout(0);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        verify(mockCartDAO, never()).updateShoppingCart(any(ShoppingCart.class));
     }
 
     @Test
@@ -116,7 +144,7 @@ public class CheckoutControllerTest {
         CheckoutController spyController = spy(checkoutController);
 
         doReturn(new HashMap<>()).when(spyController).getInvalidItems(cart);
-        when(mockDuckDAO.getDuck(3)).thenReturn(null);
+        cart.getItems().put("4", null);
 
         ResponseEntity<ShoppingCart> response = spyController.checkout(0);
 
@@ -205,4 +233,100 @@ public class CheckoutControllerTest {
         assertNull(actual.get("a"));
     }
 
+    @Test
+    public void testCheckoutUsesReservation() throws IOException {
+        when(mockDuckDAO.decrementQuantities(Map.of(1, 1, 2, 2, 3, 3))).thenReturn(true);
+        assertEquals(HttpStatus.CREATED, checkoutController.reserve(0).getStatusCode());
+
+        ResponseEntity<ShoppingCart> response = checkoutController.checkout(0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        // The hold was turned into the sale
+        assertEquals(HttpStatus.NOT_FOUND, checkoutController.getReservation(0).getStatusCode());
+    }
+
+    @Test
+    public void testReserve() throws IOException {
+        ResponseEntity<Reservation> response = checkoutController.reserve(0);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(Map.of(1, 1, 2, 2, 3, 3), response.getBody().getItems());
+        assertEquals(response.getBody(), checkoutController.getReservation(0).getBody());
+    }
+
+    @Test
+    public void testReserveInsufficientStock() throws IOException {
+        // Customer 1 holds both units of duck 2
+        when(mockCartDAO.getShoppingCart(1)).thenReturn(new ShoppingCart(1, Map.of("2", 2)));
+        assertEquals(HttpStatus.CREATED, checkoutController.reserve(1).getStatusCode());
+
+        ResponseEntity<Reservation> response = checkoutController.reserve(0);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        // Nor can customer 0 check out while the hold lasts
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, checkoutController.checkout(0).getStatusCode());
+        verify(mockDuckDAO, never()).decrementQuantities(any());
+    }
+
+    @Test
+    public void testReserveEmptyCart() throws IOException {
+        when(mockCartDAO.getShoppingCart(1)).thenReturn(new ShoppingCart(1));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, checkoutController.reserve(1).getStatusCode());
+    }
+
+    @Test
+    public void testReserveNotFound() throws IOException {
+        assertEquals(HttpStatus.NOT_FOUND, checkoutController.reserve(5).getStatusCode());
+    }
+
+    @Test
+    public void testReserveIOException() throws IOException {
+        doThrow(new IOException()).when(mockCartDAO).getShoppingCart(0);
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, checkoutController.reserve(0).getStatusCode());
+    }
+
+    @Test
+    public void testReleaseReservation() throws IOException {
+        checkoutController.reserve(0);
+
+        assertEquals(HttpStatus.OK, checkoutController.releaseReservation(0).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, checkoutController.releaseReservation(0).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, checkoutController.getReservation(0).getStatusCode());
+    }
+
+    @Test
+    public void testCheckoutRecordsEvents() throws IOException {
+        when(mockDuckDAO.decrementQuantities(Map.of(1, 1, 2, 2, 3, 3))).thenReturn(true);
+        Path dump = Files.createTempFile("checkout", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.ducks.api.ducksapi.Checkout").withoutThreshold();
+            recording.enable("com.ducks.api.ducksapi.CartValidation").withoutThreshold();
+            recording.start();
+            checkoutController.validateCart(0);
+            checkoutController.checkout(0);
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+
+        RecordedEvent validation = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.ducks.api.ducksapi.CartValidation"))
+                .findFirst().orElseThrow();
+        assertEquals(3, validation.getInt("items"));
+        assertEquals(0, validation.getInt("invalidItems"));
+        assertEquals(200, validation.getInt("status"));
+        RecordedEvent checkout = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.ducks.api.ducksapi.Checkout"))
+                .findFirst().orElseThrow();
+        assertEquals(0, checkout.getInt("customerId"));
+        assertEquals(3, checkout.getInt("items"));
+        assertEquals(6, checkout.getInt("units"));
+        assertEquals(200, checkout.getInt("status"));
+    }
+
 }
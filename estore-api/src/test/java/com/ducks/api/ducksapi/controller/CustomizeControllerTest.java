@@ -20,6 +20,7 @@ import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
 import com.ducks.api.ducksapi.model.Size;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Test the Duck Controller class
@@ -41,7 +42,7 @@ public class CustomizeControllerTest {
     @BeforeEach
     public void setupCustomizeController() {
         mockDuckDAO = mock(DuckDAO.class);
-        duckController = new CustomizeController(mockDuckDAO);
+        duckController = new CustomizeController(mockDuckDAO, new ObjectMapper());
     }
 
     /**
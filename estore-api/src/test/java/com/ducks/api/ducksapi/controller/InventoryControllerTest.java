@@ -1,17 +1,28 @@
 package com.ducks.api.ducksapi.controller;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.List;
 import java.util.Random;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -20,6 +31,8 @@ import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
 import com.ducks.api.ducksapi.model.Size;
 import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.ducks.api.ducksapi.persistence.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Test the Duck Controller class
@@ -41,7 +54,7 @@ public class InventoryControllerTest {
     @BeforeEach
     public void setupInventoryController() {
         mockDuckDAO = mock(DuckDAO.class);
-        duckController = new InventoryController(mockDuckDAO);
+        duckController = new InventoryController(mockDuckDAO, new ObjectMapper());
     }
 
     /**
@@ -258,13 +271,15 @@ public class InventoryControllerTest {
         ducks[1] = generateDuck();
         // When getDucks is called return the ducks created above
         when(mockDuckDAO.getDucks()).thenReturn(ducks);
+        when(mockDuckDAO.getCatalogVersion()).thenReturn(7L);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, null);
 
         // Analyze
         assertEquals(HttpStatus.OK, response.getStatusCode());
-        assertEquals(ducks, response.getBody());
+        assertNotNull(response.getHeaders().getETag());
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(ducks), response.getBody());
     }
 
     @Test
@@ -273,7 +288,7 @@ public class InventoryControllerTest {
         when(mockDuckDAO.getDucks()).thenReturn(null);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, null);
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -286,7 +301,7 @@ public class InventoryControllerTest {
         when(mockDuckDAO.getDucks()).thenReturn(new Duck[0]);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, null);
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -300,12 +315,120 @@ public class InventoryControllerTest {
         doThrow(new IOException()).when(mockDuckDAO).getDucks();
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.getDucks();
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, null);
 
         // Analyze
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
 
+    @Test
+    public void testGetDucksPage() throws IOException {
+        // Setup
+        Page<Duck> page = new Page<>(List.of(generateDuck(), generateDuck()), null);
+        when(mockDuckDAO.getDucksPage(null, 2)).thenReturn(page);
+
+        // Invoke
+        ResponseEntity<Page<?>> response = duckController.getDucksPage(2, null, null);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+    }
+
+    @Test
+    public void testGetDucksPageHandleException() throws IOException {
+        // Setup
+        doThrow(new IOException()).when(mockDuckDAO).getDucksPage(null, 2);
+
+        // Invoke
+        ResponseEntity<Page<?>> response = duckController.getDucksPage(2, null, null);
+
+        // Analyze
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    public void testGetEncodedDucksNotModified() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(new Duck[] { generateDuck() });
+        when(mockDuckDAO.getCatalogVersion()).thenReturn(3L);
+        String etag = duckController.getEncodedDucks(null, null).getHeaders().getETag();
+
+        // Invoke
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(etag, null);
+
+        // Analyze
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        // The catalog was only read once, the second request was served from the
+        // cache
+        verify(mockDuckDAO, times(1)).getDucks();
+    }
+
+    @Test
+    public void testGetEncodedDucksReencodesOnNewVersion() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(new Duck[] { generateDuck() });
+        when(mockDuckDAO.getCatalogVersion()).thenReturn(1L);
+        String etag = duckController.getEncodedDucks(null, null).getHeaders().getETag();
+        when(mockDuckDAO.getCatalogVersion()).thenReturn(2L);
+
+        // Invoke
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(etag, null);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        verify(mockDuckDAO, times(2)).getDucks();
+    }
+
+    @Test
+    public void testGetEncodedDucksGzip() throws IOException {
+        // Setup
+        Duck[] ducks = new Duck[] { generateDuck() };
+        when(mockDuckDAO.getDucks()).thenReturn(ducks);
+
+        // Invoke
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, "gzip, deflate");
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+            assertArrayEquals(new ObjectMapper().writeValueAsBytes(ducks), in.readAllBytes());
+        }
+    }
+
+    @Test
+    public void testGetEncodedDucksGzipRefused() throws IOException {
+        // Setup
+        Duck[] ducks = new Duck[] { generateDuck() };
+        when(mockDuckDAO.getDucks()).thenReturn(ducks);
+
+        // Invoke
+        ResponseEntity<byte[]> response = duckController.getEncodedDucks(null, "gzip;q=0, deflate");
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertArrayEquals(new ObjectMapper().writeValueAsBytes(ducks), response.getBody());
+    }
+
+    @Test
+    public void testAcceptsGzip() {
+        assertTrue(AbstractInventoryController.acceptsGzip("gzip"));
+        assertTrue(AbstractInventoryController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(AbstractInventoryController.acceptsGzip("*"));
+        assertTrue(AbstractInventoryController.acceptsGzip("x-gzip ; q=1.0"));
+        assertFalse(AbstractInventoryController.acceptsGzip(null));
+        assertFalse(AbstractInventoryController.acceptsGzip("identity"));
+        assertFalse(AbstractInventoryController.acceptsGzip("gzip;q=0"));
+        assertFalse(AbstractInventoryController.acceptsGzip("gzip;q=0.000, *"));
+        assertFalse(AbstractInventoryController.acceptsGzip("*;q=0"));
+        assertFalse(AbstractInventoryController.acceptsGzip("gzip;q=abc"));
+        assertFalse(AbstractInventoryController.acceptsGzip("gzipped"));
+    }
+
     @Test
     public void testSearchDucks() throws IOException { // findDucks may throw IOException
         // Setup
@@ -315,10 +438,24 @@ public class InventoryControllerTest {
         ducks[1] = generateDuck();
         // When findDucks is called with the search string, return the two
         /// ducks above
-        when(mockDuckDAO.findDucks(searchString)).thenReturn(ducks);
+        when(mockDuckDAO.findDucks(searchString, false)).thenReturn(ducks);
+
+        // Invoke
+        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString, false);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(ducks, response.getBody());
+    }
+
+    @Test
+    public void testSearchDucksIgnoreCase() throws IOException {
+        // Setup
+        Duck[] ducks = new Duck[] { generateDuck() };
+        when(mockDuckDAO.findDucks("LA", true)).thenReturn(ducks);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString);
+        ResponseEntity<Duck[]> response = duckController.searchDucks("LA", true);
 
         // Analyze
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -331,10 +468,10 @@ public class InventoryControllerTest {
         String searchString = "la";
         // When findDucks is called with the search string, return the two
         /// ducks above
-        when(mockDuckDAO.findDucks(searchString)).thenReturn(new Duck[0]);
+        when(mockDuckDAO.findDucks(searchString, false)).thenReturn(new Duck[0]);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString);
+        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString, false);
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -347,10 +484,10 @@ public class InventoryControllerTest {
         String searchString = "la";
         // When findDucks is called with the search string, return the two
         /// ducks above
-        when(mockDuckDAO.findDucks(searchString)).thenReturn(null);
+        when(mockDuckDAO.findDucks(searchString, false)).thenReturn(null);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString);
+        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString, false);
 
         // Analyze
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
@@ -362,10 +499,10 @@ public class InventoryControllerTest {
         // Setup
         String searchString = "an";
         // When createDuck is called on the Mock Duck DAO, throw an IOException
-        doThrow(new IOException()).when(mockDuckDAO).findDucks(searchString);
+        doThrow(new IOException()).when(mockDuckDAO).findDucks(searchString, false);
 
         // Invoke
-        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString);
+        ResponseEntity<Duck[]> response = duckController.searchDucks(searchString, false);
 
         // Analyze
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -0,0 +1,168 @@
+package com.ducks.api.ducksapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.persistence.DuckDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the Reactive Catalog Handler and Server classes
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class ReactiveCatalogHandlerTest {
+    private DuckDAO mockDuckDAO;
+    private DuckDAO mockCustomDuckDAO;
+    private WebTestClient client;
+    private Duck[] ducks;
+
+    /**
+     * Before each test, bind a test client to the routes of a handler with mock
+     * Duck DAOs injected
+     */
+    @BeforeEach
+    public void setupReactiveCatalogHandler() {
+        mockDuckDAO = mock(DuckDAO.class);
+        mockCustomDuckDAO = mock(DuckDAO.class);
+        client = WebTestClient.bindToRouterFunction(new ReactiveCatalogHandler(mockDuckDAO, mockCustomDuckDAO).routes())
+                .build();
+        ducks = new Duck[] {
+                new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)),
+                new Duck(2, "Galactic Sun", 3, 19.99, Size.SMALL, Colors.RED, new DuckOutfit(1, 0, 0, 0, 0)) };
+    }
+
+    @Test
+    public void testGetDucks() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(ducks);
+
+        // Invoke & Analyze
+        client.get().uri("/inventory").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(Duck.class).isEqualTo(List.of(ducks));
+    }
+
+    @Test
+    public void testGetDucksAsNdjson() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(ducks);
+
+        // Invoke
+        String body = client.get().uri("/inventory").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        // Analyze
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+        assertTrue(lines[1].startsWith("{\"id\":2,"));
+    }
+
+    @Test
+    public void testGetDucksEmpty() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDucks()).thenReturn(new Duck[0]);
+
+        // Invoke & Analyze
+        client.get().uri("/inventory").exchange().expectStatus().isNoContent();
+    }
+
+    @Test
+    public void testGetDucksHandleException() throws IOException {
+        // Setup
+        doThrow(new IOException()).when(mockDuckDAO).getDucks();
+
+        // Invoke & Analyze
+        client.get().uri("/inventory").exchange().expectStatus().is5xxServerError();
+    }
+
+    @Test
+    public void testGetDuck() throws IOException {
+        // Setup
+        when(mockDuckDAO.getDuck(1)).thenReturn(ducks[0]);
+
+        // Invoke & Analyze
+        client.get().uri("/inventory/product/1").exchange()
+                .expectStatus().isOk()
+                .expectBody(Duck.class).isEqualTo(ducks[0]);
+        client.get().uri("/inventory/product/99").exchange().expectStatus().isNotFound();
+        client.get().uri("/inventory/product/duck").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testSearchDucks() throws IOException {
+        // Setup
+        when(mockDuckDAO.findDucks("sun", true)).thenReturn(new Duck[] { ducks[1] });
+        when(mockDuckDAO.findDucks("sun", false)).thenReturn(new Duck[0]);
+
+        // Invoke & Analyze
+        client.get().uri("/inventory/search?name=sun&ignoreCase=true").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Duck.class).isEqualTo(List.of(ducks[1]));
+        client.get().uri("/inventory/search?name=sun").exchange().expectStatus().isNoContent();
+        client.get().uri("/inventory/search").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetCustomDucks() throws IOException {
+        // Setup
+        when(mockCustomDuckDAO.getDucks()).thenReturn(new Duck[] { ducks[0] });
+        when(mockCustomDuckDAO.getDuck(1)).thenReturn(ducks[0]);
+
+        // Invoke & Analyze
+        client.get().uri("/customduck").exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Duck.class).isEqualTo(List.of(ducks[0]));
+        client.get().uri("/customduck/1").exchange()
+                .expectStatus().isOk()
+                .expectBody(Duck.class).isEqualTo(ducks[0]);
+    }
+
+    @Test
+    public void testServerReadsOnEventLoop() throws IOException {
+        // Setup
+        AtomicReference<String> readThread = new AtomicReference<>();
+        when(mockDuckDAO.hasNonBlockingReads()).thenReturn(true);
+        when(mockDuckDAO.getDucks()).thenAnswer(invocation -> {
+            readThread.set(Thread.currentThread().getName());
+            return ducks;
+        });
+        ReactiveCatalogServer server = new ReactiveCatalogServer(mockDuckDAO, mockCustomDuckDAO, new ObjectMapper(),
+                mock(AccessLogPipeline.class), 0, 1);
+
+        try {
+            // Invoke
+            WebTestClient.bindToServer().baseUrl("http://localhost:" + server.getPort()).build()
+                    .get().uri("/inventory").accept(MediaType.APPLICATION_NDJSON).exchange()
+                    .expectStatus().isOk()
+                    .expectHeader().contentType(MediaType.APPLICATION_NDJSON);
+
+            // Analyze
+            assertTrue(readThread.get().startsWith("catalog-reactive"), readThread.get());
+        } finally {
+            server.close();
+        }
+    }
+}
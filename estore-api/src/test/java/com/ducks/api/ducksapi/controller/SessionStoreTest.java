@@ -0,0 +1,134 @@
+package com.ducks.api.ducksapi.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the in-memory session store
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Controller-tier")
+public class SessionStoreTest {
+
+    @Test
+    public void testOpenAndResolve() {
+        // Setup
+        SessionStore sessions = new SessionStore(60000, 10);
+
+        // Invoke
+        String first = sessions.open(1);
+        String second = sessions.open(1);
+
+        // Analyze
+        assertNotEquals(first, second);
+        assertEquals(1, sessions.resolve(first));
+        assertEquals(1, sessions.resolve(second));
+        assertNull(sessions.resolve("unknown"));
+        assertNull(sessions.resolve(null));
+    }
+
+    @Test
+    public void testClose() {
+        // Setup
+        SessionStore sessions = new SessionStore(60000, 10);
+        String token = sessions.open(3);
+
+        // Invoke and Analyze
+        assertTrue(sessions.close(token));
+        assertFalse(sessions.close(token));
+        assertNull(sessions.resolve(token));
+    }
+
+    @Test
+    public void testCloseAll() {
+        // Setup
+        SessionStore sessions = new SessionStore(60000, 10);
+        String first = sessions.open(3);
+        String second = sessions.open(3);
+        String other = sessions.open(4);
+
+        // Invoke
+        sessions.closeAll(3);
+
+        // Analyze
+        assertNull(sessions.resolve(first));
+        assertNull(sessions.resolve(second));
+        assertEquals(4, sessions.resolve(other));
+    }
+
+    @Test
+    public void testSlidingExpiry() throws InterruptedException {
+        // Setup
+        SessionStore sessions = new SessionStore(150, 10);
+        String token = sessions.open(1);
+
+        // Invoke
+        for (int i = 0; i < 4; ++i) {
+            Thread.sleep(50);
+            // Each use pushes the expiry back past the original 150ms
+            assertEquals(1, sessions.resolve(token));
+        }
+        Thread.sleep(200);
+
+        // Analyze
+        assertNull(sessions.resolve(token));
+        assertEquals(0, sessions.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedMakesRoom() throws InterruptedException {
+        // Setup
+        SessionStore sessions = new SessionStore(60000, 2);
+        String first = sessions.open(1);
+        Thread.sleep(5);
+        String second = sessions.open(2);
+        Thread.sleep(5);
+        sessions.resolve(first); // second is now the least recently used
+
+        // Invoke
+        String third = sessions.open(3);
+
+        // Analyze
+        assertEquals(2, sessions.size());
+        assertEquals(1, sessions.resolve(first));
+        assertNull(sessions.resolve(second));
+        assertEquals(3, sessions.resolve(third));
+    }
+
+    @Test
+    public void testFullStoreEvictsBatch() throws InterruptedException {
+        // Setup
+        SessionStore sessions = new SessionStore(60000, 32);
+        String oldest = sessions.open(0);
+        String nextOldest = sessions.open(1);
+        Thread.sleep(5);
+        for (int i = 2; i < 32; ++i) {
+            sessions.open(i);
+        }
+
+        // Invoke
+        String newest = sessions.open(32);
+        String afterBatch = sessions.open(33);
+
+        // Analyze
+        // A sixteenth of the sessions made room for both logins at once
+        assertEquals(32, sessions.size());
+        assertNull(sessions.resolve(oldest));
+        assertNull(sessions.resolve(nextOldest));
+        assertEquals(32, sessions.resolve(newest));
+        assertEquals(33, sessions.resolve(afterBatch));
+    }
+
+    @Test
+    public void testNoRoom() {
+        assertThrows(IllegalArgumentException.class, () -> new SessionStore(60000, 0));
+    }
+}
@@ -2,12 +2,17 @@ package com.ducks.api.ducksapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
@@ -16,7 +21,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.persistence.Page;
 import com.ducks.api.ducksapi.persistence.ShoppingCartDAO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonNode;
 
 /**
  * Handles the REST API requests for the Shopping Cart resource
@@ -40,7 +48,40 @@ public class ShoppingCartControllerTest {
     @BeforeEach
     public void setupInventoryController() {
         mockCartDAO = mock(ShoppingCartDAO.class);
-        cartController = new ShoppingCartController(mockCartDAO);
+        cartController = new ShoppingCartController(mockCartDAO, new ObjectMapper());
+    }
+
+    @Test
+    public void testGetShoppingCartsPage() throws IOException {
+        // Setup
+        HashMap<String, Integer> items = new HashMap<>();
+        items.put("1", 10);
+        Page<ShoppingCart> page = new Page<>(List.of(new ShoppingCart(4, items)), "next");
+        when(mockCartDAO.getShoppingCartsPage("cursor", 1)).thenReturn(page);
+
+        // Invoke
+        ResponseEntity<Page<?>> response = cartController.getShoppingCartsPage(1, "cursor", null);
+        ResponseEntity<Page<?>> projected = cartController.getShoppingCartsPage(1, "cursor", "customerId");
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        JsonNode cart = (JsonNode) projected.getBody().getItems().get(0);
+        assertEquals(4, cart.get("customerId").asInt());
+        assertEquals(1, cart.size());
+        assertEquals("next", projected.getBody().getNextCursor());
+    }
+
+    @Test
+    public void testGetShoppingCartsPageBadRequest() throws IOException {
+        // Invoke
+        ResponseEntity<Page<?>> badCursor = cartController.getShoppingCartsPage(10, "bad", null);
+        ResponseEntity<Page<?>> badLimit = cartController.getShoppingCartsPage(0, null, null);
+
+        // Analyze
+        assertEquals(HttpStatus.BAD_REQUEST, badCursor.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, badLimit.getStatusCode());
+        verify(mockCartDAO, never()).getShoppingCartsPage(any(), anyInt());
     }
 
     @Test
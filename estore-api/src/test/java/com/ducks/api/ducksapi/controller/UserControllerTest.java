@@ -1,9 +1,15 @@
 package com.ducks.api.ducksapi.controller;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -15,8 +21,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
 import com.ducks.api.ducksapi.persistence.AccountDAO;
 import com.ducks.api.ducksapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Handles the REST API requests for the User resource
@@ -44,7 +52,7 @@ public class UserControllerTest {
     @BeforeEach
     public void setupUserController() {
         mockAccountDAO = mock(AccountDAO.class);
-        userController = new UserController(mockAccountDAO);
+        userController = new UserController(mockAccountDAO, new ObjectMapper(), new SessionStore(60000, 10));
     }
 
     @Test
@@ -158,8 +166,8 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts(accounts[0].getUsername())).thenReturn(accounts);
+        // when findAccountByUsername is called, return the account simulating success
+        when(mockAccountDAO.findAccountByUsername(accounts[0].getUsername())).thenReturn(accounts[0]);
 
         // Invoke
         ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(),
@@ -174,8 +182,8 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts(accounts[0].getUsername())).thenReturn(accounts);
+        // when findAccountByUsername is called, return the account simulating success
+        when(mockAccountDAO.findAccountByUsername(accounts[0].getUsername())).thenReturn(accounts[0]);
 
         // Invoke
         ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(), "wrongpassword");
@@ -184,12 +192,28 @@ public class UserControllerTest {
         assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
     }
 
+    @Test
+    public void testLoginUserIgnoresUsernameCase() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "Password1");
+        // The DAO finds usernames ignoring case
+        when(mockAccountDAO.findAccountByUsername("SAM")).thenReturn(account);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.loginUser("SAM", "Password1");
+        ResponseEntity<Account> wrongPassword = userController.loginUser("SAM", "password1");
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(account, response.getBody());
+        assertEquals(HttpStatus.CONFLICT, wrongPassword.getStatusCode());
+    }
+
     @Test
     public void testLoginUserNotFound() throws IOException { // loginUser may throw IO Exception
         // Setup
-        Account[] emptyResult = new Account[0];
-        // when findAccounts is called, return a list of accounts simulating success
-        when(mockAccountDAO.findAccounts("notsam")).thenReturn(emptyResult);
+        // when findAccountByUsername is called, return null simulating no account
+        when(mockAccountDAO.findAccountByUsername("notsam")).thenReturn(null);
 
         // Invoke
         ResponseEntity<Account> response = userController.loginUser("notsam", "fake");
@@ -203,8 +227,8 @@ public class UserControllerTest {
         // Setup
         Account[] accounts = new Account[1];
         accounts[0] = new UserAccount(11, "sam", "123456");
-        // when findAccounts is called, return a list of accounts simulating success
-        doThrow(new IOException()).when(mockAccountDAO).findAccounts(accounts[0].getUsername());
+        // when findAccountByUsername is called, throw an IOException
+        doThrow(new IOException()).when(mockAccountDAO).findAccountByUsername(accounts[0].getUsername());
 
         // Invoke
         ResponseEntity<Account> response = userController.loginUser(accounts[0].getUsername(),
@@ -215,49 +239,13 @@ public class UserControllerTest {
     }
 
     @Test
-    public void testLogoutUser() throws IOException { // logoutUser may throw IO Exception
-        // Setup
-        Account account = new UserAccount(11, "sam", "123456");
-
-        // when updateAccount is called return true, simulating successful update and
-        // save
-        when(mockAccountDAO.updateAccount(account)).thenReturn(account);
-
-        // invoke
-        ResponseEntity<Account> response = userController.logoutUser(account);
-
-        // Analyze
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-
-    }
-
-    @Test
-    public void testLogoutUserFailed() throws IOException { // logoutUser may throw IO Exception
-        // Setup
-        Account account = new UserAccount(11, "sam", "123456");
-        // when updateAccount is called return true, simulating successful update and
-        // save
-        when(mockAccountDAO.updateAccount(account)).thenReturn(null);
-
-        // invoke
-        ResponseEntity<Account> response = userController.logoutUser(account);
-
-        // Analyze
-        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
-    }
-
-    @Test
-    public void testLogoutUserHandleException() throws IOException { // logoutUser may throw IOException
-        // Setup
-        Account account = new UserAccount(11, "sam", "123456");
-        // When updateAccount is called on the Mock Account DAO, throw an IOException
-        doThrow(new IOException()).when(mockAccountDAO).updateAccount(account);
-
+    public void testLogoutWithoutTokenWritesNothing() {
         // Invoke
-        ResponseEntity<Account> response = userController.logoutUser(account);
+        ResponseEntity<Account> response = userController.logoutSession(null);
 
         // Analyze
-        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, response.getStatusCode());
+        verifyNoInteractions(mockAccountDAO);
     }
 
     @Test
@@ -413,4 +401,134 @@ public class UserControllerTest {
         // Analyze
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateProfile() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "Password1");
+        ProfileUpdate update = new ProfileUpdate("Sam", null, "1 Lomb Memorial Dr", "Rochester", "14623", null,
+                null, null);
+        String token = login(account);
+        when(mockAccountDAO.updateProfile(11, update)).thenReturn(account);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.updateProfile(token, update);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(account, response.getBody());
+    }
+
+    @Test
+    public void testUpdateProfileWithoutSession() throws IOException {
+        // Setup
+        ProfileUpdate update = new ProfileUpdate("Sam", null, null, null, null, null, null, null);
+
+        // Invoke
+        ResponseEntity<Account> missing = userController.updateProfile(null, update);
+        ResponseEntity<Account> unknown = userController.updateProfile("nope", update);
+
+        // Analyze
+        assertEquals(HttpStatus.UNAUTHORIZED, missing.getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, unknown.getStatusCode());
+        verify(mockAccountDAO, never()).updateProfile(anyInt(), any());
+    }
+
+    @Test
+    public void testUpdateProfileNotFound() throws IOException {
+        // Setup
+        ProfileUpdate update = new ProfileUpdate("Sam", null, null, null, null, null, null, null);
+        String token = login(new UserAccount(11, "sam", "Password1"));
+        when(mockAccountDAO.updateProfile(11, update)).thenReturn(null);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.updateProfile(token, update);
+
+        // Analyze
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void testUpdateProfileHandleException() throws IOException {
+        // Setup
+        ProfileUpdate update = new ProfileUpdate("Sam", null, null, null, null, null, null, null);
+        String token = login(new UserAccount(11, "sam", "Password1"));
+        doThrow(new IOException()).when(mockAccountDAO).updateProfile(11, update);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.updateProfile(token, update);
+
+        // Analyze
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
+    }
+
+    @Test
+    public void testSessionFromLogin() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "Password1");
+        when(mockAccountDAO.findAccountByUsername("sam")).thenReturn(account);
+        when(mockAccountDAO.getAccount(11)).thenReturn(account);
+        String token = userController.loginUser("sam", "Password1").getHeaders()
+                .getFirst(UserController.SESSION_HEADER);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.getSessionAccount(token);
+
+        // Analyze
+        assertNotNull(token);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(account, response.getBody());
+    }
+
+    @Test
+    public void testSessionUnknownToken() {
+        assertEquals(HttpStatus.UNAUTHORIZED, userController.getSessionAccount("nope").getStatusCode());
+    }
+
+    @Test
+    public void testLogoutSession() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "Password1");
+        when(mockAccountDAO.findAccountByUsername("sam")).thenReturn(account);
+        String token = userController.loginUser("sam", "Password1").getHeaders()
+                .getFirst(UserController.SESSION_HEADER);
+
+        // Invoke
+        ResponseEntity<Account> response = userController.logoutSession(token);
+
+        // Analyze
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userController.getSessionAccount(token).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, userController.logoutSession(token).getStatusCode());
+    }
+
+    @Test
+    public void testDeleteAccountEndsSessions() throws IOException {
+        // Setup
+        Account account = new UserAccount(11, "sam", "Password1");
+        when(mockAccountDAO.findAccountByUsername("sam")).thenReturn(account);
+        when(mockAccountDAO.deleteAccount(11)).thenReturn(true);
+        String token = userController.loginUser("sam", "Password1").getHeaders()
+                .getFirst(UserController.SESSION_HEADER);
+
+        // Invoke
+        userController.deleteAccount(11);
+
+        // Analyze
+        assertEquals(HttpStatus.UNAUTHORIZED, userController.getSessionAccount(token).getStatusCode());
+    }
+
+    /**
+     * Logs an account in through the controller
+     *
+     * @param account The account the mock DAO finds by its username
+     *
+     * @return The token of the new session
+     */
+    private String login(Account account) throws IOException {
+        when(mockAccountDAO.findAccountByUsername(account.getUsername())).thenReturn(account);
+        return userController.loginUser(account.getUsername(), account.getPlainPassword()).getHeaders()
+                .getFirst(UserController.SESSION_HEADER);
+    }
+}
@@ -4,18 +4,25 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ducks.api.ducksapi.model.Account;
 import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.ProfileUpdate;
 import com.ducks.api.ducksapi.model.UserAccount;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -26,6 +33,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Tag("Persistence-tier")
 public class AccountFileDAOTest {
+    @TempDir
+    Path tempDir;
+
     AccountFileDAO accountFileDAO;
     Account[] testAccounts;
     ObjectMapper mockObjectMapper;
@@ -77,6 +87,47 @@ public class AccountFileDAOTest {
         assertEquals(0, emptySearch.length);
     }
 
+    @Test
+    public void testGetAccountsPage() throws IOException {
+        // Invoke
+        Page<Account> first = accountFileDAO.getAccountsPage(null, 3);
+        Page<Account> second = accountFileDAO.getAccountsPage(first.getNextCursor(), 3);
+
+        // Analyze
+        assertEquals(3, first.getItems().size());
+        assertEquals(testAccounts[0], first.getItems().get(0));
+        assertEquals(1, second.getItems().size());
+        assertEquals(testAccounts[3], second.getItems().get(0));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testFindAccountByUsername() throws IOException {
+        // Invoke
+        Account exact = accountFileDAO.findAccountByUsername("Travis");
+        Account otherCase = accountFileDAO.findAccountByUsername("tRAVIS");
+        Account partial = accountFileDAO.findAccountByUsername("Tra");
+
+        // Analyze
+        assertEquals(testAccounts[2], exact);
+        assertEquals(testAccounts[2], otherCase);
+        assertNull(partial);
+    }
+
+    @Test
+    public void testFindAccountByUsernameFollowsRenameAndDelete() throws IOException {
+        // Invoke
+        accountFileDAO.updateAccount(new UserAccount(1, "notJeff", "Password1"));
+        accountFileDAO.deleteAccount(3);
+
+        // Analyze
+        assertNull(accountFileDAO.findAccountByUsername("Jeff"));
+        assertEquals(1, accountFileDAO.findAccountByUsername("NOTJEFF").getId());
+        assertNull(accountFileDAO.findAccountByUsername("Bob"));
+        // The names are free to sign up with again
+        assertEquals("Jeff", accountFileDAO.createAccount(new UserAccount(0, "Jeff", "Password1")).getUsername());
+    }
+
     @Test
     public void testGetAccount() throws IOException {
         // Invoke
@@ -286,4 +337,152 @@ public class AccountFileDAOTest {
         assertFalse(failChangeWrongID);
     }
 
+    @Test
+    public void testUpdateProfile() throws IOException {
+        // Setup
+        Account account = accountFileDAO.getAccount(1);
+        account.savePayment("4111111111111111", "12/27", 123);
+        ProfileUpdate update = new ProfileUpdate("Jeffrey", "Smith", "1 Lomb Memorial Dr", "Rochester", "14623",
+                null, "01/30", null);
+
+        // Invoke
+        Account updated = accountFileDAO.updateProfile(1, update);
+        Account missing = accountFileDAO.updateProfile(999, update);
+
+        // Analyze
+        assertEquals("Jeffrey", updated.getFirstName());
+        assertEquals("Smith", updated.getLastName());
+        assertEquals("1 Lomb Memorial Dr", updated.getAddress());
+        assertEquals("Rochester", updated.getCity());
+        assertEquals("14623", updated.getZipCode());
+        assertEquals("4111111111111111", updated.getCard());
+        assertEquals("01/30", updated.getExpDate());
+        assertEquals(123, updated.getCVV());
+        assertNull(missing);
+        // Every field was saved with one write
+        verify(mockObjectMapper, times(1)).writeValue(any(File.class), any(Account[].class));
+    }
+
+    @Test
+    public void testJournalProfileEditOnlyAppends() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json", testAccounts);
+        byte[] before = Files.readAllBytes(Path.of(filename));
+        AccountFileDAO journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 100);
+
+        // Invoke
+        assertTrue(journaled.changeCity(1, "Rochester"));
+        assertTrue(journaled.changeZipCode(1, "14623"));
+        assertTrue(journaled.changeFirstName(2, "Travis"));
+
+        // Analyze
+        Path journalPath = Path.of(filename + ".journal");
+        assertEquals(new String(before), Files.readString(Path.of(filename)));
+        assertEquals(3, Files.readAllLines(journalPath).size());
+        assertTrue(Files.size(journalPath) < 200);
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalReplayedOnReopen() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json", testAccounts);
+        Path journalPath = Path.of(filename + ".journal");
+        AccountFileDAO journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 100);
+        journaled.changeAddress(1, "1 Lomb Memorial Dr");
+        journaled.changePassword(2, "password", "Password2");
+        journaled.createAccount(new UserAccount(0, "Alice", "Password1"));
+        journaled.deleteAccount(1);
+        // Leave the journal as a crash would, without folding it into the file
+        byte[] journal = Files.readAllBytes(journalPath);
+        journaled.close();
+        TestFiles.write(tempDir, "accounts.json", testAccounts);
+        Files.write(journalPath, journal);
+
+        // Invoke
+        journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 100);
+
+        // Analyze
+        assertNull(journaled.getAccount(1));
+        assertEquals("Password2", journaled.getAccount(2).getPlainPassword());
+        assertEquals(4, journaled.findAccountByUsername("alice").getId());
+        assertEquals(0, Files.size(journalPath));
+        assertEquals(4, TestFiles.OBJECT_MAPPER.readValue(new File(filename), Account[].class).length);
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalCompactsAtThreshold() throws IOException, InterruptedException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json", testAccounts);
+        AccountFileDAO journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 3);
+
+        // Invoke
+        journaled.changeCity(1, "Rochester");
+        journaled.changeCity(2, "Buffalo");
+        journaled.changeLastName(2, "Hill");
+        awaitCompaction(journaled);
+
+        // Analyze
+        assertEquals(0, Files.size(Path.of(filename + ".journal")));
+        Account[] saved = TestFiles.OBJECT_MAPPER.readValue(new File(filename), Account[].class);
+        assertEquals("Hill", saved[2].getLastName());
+        assertFalse(Files.exists(Path.of(filename + ".tmp")));
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalCompactionRetriedAfterFailure() throws IOException, InterruptedException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json", testAccounts);
+        AccountFileDAO journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 2);
+        // A directory in the way of the temporary file makes the compaction fail
+        Path blocker = Files.createDirectory(Path.of(filename + ".tmp"));
+        byte[] before = Files.readAllBytes(Path.of(filename));
+        journaled.changeCity(1, "Rochester");
+        journaled.changeCity(2, "Buffalo");
+        awaitCompaction(journaled);
+        long failedJournalSize = Files.size(Path.of(filename + ".journal"));
+        byte[] afterFailure = Files.readAllBytes(Path.of(filename));
+        Files.delete(blocker);
+
+        // Invoke
+        journaled.changeLastName(2, "Hill");
+        awaitCompaction(journaled);
+
+        // Analyze
+        assertTrue(failedJournalSize > 0);
+        assertEquals(new String(before), new String(afterFailure));
+        assertEquals(0, Files.size(Path.of(filename + ".journal")));
+        Account[] saved = TestFiles.OBJECT_MAPPER.readValue(new File(filename), Account[].class);
+        assertEquals("Rochester", saved[1].getCity());
+        assertEquals("Hill", saved[2].getLastName());
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalFoldedOnClose() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json", testAccounts);
+        AccountFileDAO journaled = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 100);
+        journaled.changeCity(1, "Rochester");
+
+        // Invoke
+        journaled.close();
+
+        // Analyze
+        assertEquals(0, Files.size(Path.of(filename + ".journal")));
+        assertEquals("Rochester",
+                TestFiles.OBJECT_MAPPER.readValue(new File(filename), Account[].class)[1].getCity());
+    }
+
+    /**
+     * Waits for a compaction handed to the compactor to finish
+     */
+    private static void awaitCompaction(AccountFileDAO dao) throws InterruptedException {
+        for (int i = 0; i < 500 && dao.isCompactionPending(); ++i) {
+            Thread.sleep(10);
+        }
+        assertFalse(dao.isCompactionPending());
+    }
 }
@@ -0,0 +1,115 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Test the binary snapshot format
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class BinarySnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    Duck[] ducks;
+
+    /**
+     * Before each test, create a small catalog to write
+     */
+    @BeforeEach
+    public void setupDucks() {
+        ducks = new Duck[2];
+        ducks[0] = new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(1, 2, 3, 4, 5));
+        ducks[1] = new Duck(2, "Ice Gladiator", 10, 29.99, Size.SMALL, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void testDuckRoundTrip() throws IOException {
+        // Setup
+        Path path = tempDir.resolve("ducks.snapshot");
+
+        // Invoke
+        BinarySnapshot.write(path, BinarySnapshot.DUCKS, List.of(ducks), DuckFileDAOAbstract.DUCK_CODEC);
+        List<Duck> actual = BinarySnapshot.read(path, BinarySnapshot.DUCKS, DuckFileDAOAbstract.DUCK_CODEC);
+
+        // Analyze
+        assertEquals(2, actual.size());
+        for (int i = 0; i < ducks.length; ++i) {
+            assertEquals(ducks[i].toString(), actual.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testCartRoundTrip() throws IOException {
+        // Setup
+        Path path = tempDir.resolve("carts.snapshot");
+        List<ShoppingCart> carts = List.of(new ShoppingCart(1, Map.of("1", 2, "3", 4)), new ShoppingCart(2));
+
+        // Invoke
+        BinarySnapshot.write(path, BinarySnapshot.CARTS, carts, ShoppingCartFileDAO.CART_CODEC);
+        List<ShoppingCart> actual = BinarySnapshot.read(path, BinarySnapshot.CARTS, ShoppingCartFileDAO.CART_CODEC);
+
+        // Analyze
+        assertEquals(carts, actual);
+    }
+
+    @Test
+    public void testCorruptionFailsChecksum() throws IOException {
+        // Setup
+        Path path = tempDir.resolve("ducks.snapshot");
+        BinarySnapshot.write(path, BinarySnapshot.DUCKS, List.of(ducks), DuckFileDAOAbstract.DUCK_CODEC);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length - 1] ^= 0x7f;
+        Files.write(path, bytes);
+
+        // Invoke and Analyze
+        IOException thrown = assertThrows(IOException.class,
+                () -> BinarySnapshot.read(path, BinarySnapshot.DUCKS, DuckFileDAOAbstract.DUCK_CODEC));
+        assertTrue(thrown.getMessage().contains("checksum"));
+    }
+
+    @Test
+    public void testTruncatedSnapshot() throws IOException {
+        // Setup
+        Path path = tempDir.resolve("ducks.snapshot");
+        BinarySnapshot.write(path, BinarySnapshot.DUCKS, List.of(ducks), DuckFileDAOAbstract.DUCK_CODEC);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        // Invoke and Analyze
+        assertThrows(IOException.class,
+                () -> BinarySnapshot.read(path, BinarySnapshot.DUCKS, DuckFileDAOAbstract.DUCK_CODEC));
+    }
+
+    @Test
+    public void testWrongKind() throws IOException {
+        // Setup
+        Path path = tempDir.resolve("ducks.snapshot");
+        BinarySnapshot.write(path, BinarySnapshot.DUCKS, List.of(ducks), DuckFileDAOAbstract.DUCK_CODEC);
+
+        // Invoke and Analyze
+        assertThrows(IOException.class,
+                () -> BinarySnapshot.read(path, BinarySnapshot.CARTS, ShoppingCartFileDAO.CART_CODEC));
+    }
+}
@@ -0,0 +1,132 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.Size;
+import com.ducks.api.ducksapi.model.UserAccount;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Test the metrics recorded around the Data Access Objects
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class DaoMetricsPostProcessorTest {
+    @TempDir
+    Path tempDir;
+
+    SimpleMeterRegistry registry;
+    DaoMetricsPostProcessor postProcessor;
+
+    @BeforeEach
+    public void setupRegistry() {
+        registry = new SimpleMeterRegistry();
+        postProcessor = new DaoMetricsPostProcessor(registry);
+    }
+
+    @AfterEach
+    public void removeRegistry() {
+        Metrics.globalRegistry.remove(registry);
+    }
+
+    @Test
+    public void testTimesDaoCalls() throws IOException {
+        // Setup
+        DuckDAO mockDuckDAO = mock(DuckDAO.class);
+        Duck duck = new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0));
+        when(mockDuckDAO.getDuck(1)).thenReturn(duck);
+        DuckDAO timed = (DuckDAO) postProcessor.postProcessAfterInitialization(mockDuckDAO, "duckFileDAO");
+
+        // Invoke
+        Duck result = timed.getDuck(1);
+        timed.getDuck(1);
+
+        // Analyze
+        assertSame(duck, result);
+        assertEquals(2, registry.get("persistence.dao").tag("dao", "DuckDAO").tag("bean", "duckFileDAO")
+                .tag("method", "getDuck").tag("exception", "none").timer().count());
+    }
+
+    @Test
+    public void testTagsException() throws IOException {
+        // Setup
+        ShoppingCartDAO mockCartDAO = mock(ShoppingCartDAO.class);
+        when(mockCartDAO.getShoppingCarts()).thenThrow(new IOException());
+        ShoppingCartDAO timed = (ShoppingCartDAO) postProcessor.postProcessAfterInitialization(mockCartDAO,
+                "shoppingCartFileDAO");
+
+        // Invoke
+        assertThrows(IOException.class, () -> timed.getShoppingCarts());
+
+        // Analyze
+        assertEquals(1, registry.get("persistence.dao").tag("method", "getShoppingCarts")
+                .tag("exception", "IOException").timer().count());
+    }
+
+    @Test
+    public void testLeavesOtherBeans() {
+        Object bean = new Object();
+        assertSame(bean, postProcessor.postProcessAfterInitialization(bean, "other"));
+    }
+
+    @Test
+    public void testPublishesCacheCounters() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "accounts.json",
+                new Account[] { new OwnerAccount(), new UserAccount(1, "Jeff", "Password1") });
+        LazyAccountFileDAO lazyDAO = new LazyAccountFileDAO(filename, TestFiles.OBJECT_MAPPER, 10);
+        AccountDAO timed = (AccountDAO) postProcessor.postProcessAfterInitialization(lazyDAO, "lazyAccountFileDAO");
+
+        // Invoke
+        timed.getAccount(1);
+        timed.getAccount(1);
+
+        // Analyze
+        assertEquals(1, registry.get("persistence.cache.hits").functionCounter().count());
+        assertEquals(1, registry.get("persistence.cache.misses").functionCounter().count());
+        assertEquals(1, registry.get("persistence.cache.size").gauge().value());
+        lazyDAO.close();
+    }
+
+    @Test
+    public void testRecordsSaveLoadAndLockWait() throws IOException {
+        // Setup
+        Metrics.globalRegistry.add(registry);
+        String filename = TestFiles.write(tempDir, "accounts.json",
+                new Account[] { new OwnerAccount(), new UserAccount(1, "Jeff", "Password1") });
+
+        // Invoke
+        AccountFileDAO accountDAO = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER);
+        accountDAO.changeCity(1, "Rochester");
+
+        // Analyze
+        assertEquals(1, registry.get("persistence.load").tag("file", "accounts.json").timer().count());
+        assertEquals(1, registry.get("persistence.save").tag("file", "accounts.json").timer().count());
+        assertEquals(new File(filename).length(),
+                registry.get("persistence.save.bytes").tag("file", "accounts.json").summary().totalAmount());
+        assertTrue(registry.get("persistence.lock.wait").tag("file", "accounts.json").timer().count() > 0);
+    }
+}
@@ -4,25 +4,37 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ducks.api.ducksapi.model.Colors;
 import com.ducks.api.ducksapi.model.Duck;
 import com.ducks.api.ducksapi.model.DuckOutfit;
 import com.ducks.api.ducksapi.model.Size;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -32,6 +44,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Tag("Persistence-tier")
 public class DuckFileDAOAbstractTest {
+    private static final long NEVER = 3_600_000; // A compaction interval that never comes up during a test
+
+    @TempDir
+    Path tempDir;
+
     DuckFileDAO duckFileDAO;
     Duck[] testDucks;
     ObjectMapper mockObjectMapper;
@@ -72,6 +89,22 @@ public class DuckFileDAOAbstractTest {
             assertEquals(ducks[i], testDucks[i]);
     }
 
+    @Test
+    public void testGetDucksSharesSnapshot() throws IOException {
+        // Invoke
+        Duck[] before = duckFileDAO.getDucks();
+        Duck[] again = duckFileDAO.getDucks();
+        duckFileDAO.deleteDuck(99);
+        Duck[] after = duckFileDAO.getDucks();
+
+        // Analyze
+        assertSame(before, again);
+        assertNotSame(before, after);
+        assertEquals(testDucks.length, before.length);
+        assertEquals(testDucks.length - 1, after.length);
+        assertNull(duckFileDAO.getDuck(99));
+    }
+
     @Test
     public void testFindDucks() {
         // Invoke
@@ -83,6 +116,110 @@ public class DuckFileDAOAbstractTest {
         assertEquals(testDucks[2], ducks[1]);
     }
 
+    @Test
+    public void testGetDucksPage() {
+        // Invoke
+        Page<Duck> first = duckFileDAO.getDucksPage(null, 3);
+        Page<Duck> second = duckFileDAO.getDucksPage(first.getNextCursor(), 3);
+
+        // Analyze
+        assertEquals(3, first.getItems().size());
+        assertEquals(testDucks[0], first.getItems().get(0));
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertEquals(testDucks[3], second.getItems().get(0));
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testGetDucksPageSurvivesDelete() throws IOException {
+        // Setup
+        Page<Duck> first = duckFileDAO.getDucksPage(null, 2);
+
+        // Invoke
+        // The last duck handed out is gone before the next page is asked for
+        duckFileDAO.deleteDuck(100);
+        Page<Duck> second = duckFileDAO.getDucksPage(first.getNextCursor(), 2);
+
+        // Analyze
+        assertEquals(2, second.getItems().size());
+        assertEquals(testDucks[2], second.getItems().get(0));
+        assertThrows(IllegalArgumentException.class, () -> duckFileDAO.getDucksPage("not a cursor", 2));
+    }
+
+    @Test
+    public void testDecrementQuantities() throws IOException {
+        // Setup
+        Duck before = duckFileDAO.getDuck(99);
+
+        // Invoke
+        boolean result = duckFileDAO.decrementQuantities(Map.of(99, 2, 100, 11));
+
+        // Analyze
+        assertTrue(result);
+        assertEquals(10, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(0, duckFileDAO.getDuck(100).getQuantity());
+        // The published duck is left alone for readers that still hold it
+        assertEquals(12, before.getQuantity());
+        verify(mockObjectMapper, times(1)).writeValue(any(File.class), any(Duck[].class));
+    }
+
+    @Test
+    public void testDecrementQuantitiesAllOrNothing() throws IOException {
+        // Invoke
+        boolean tooMany = duckFileDAO.decrementQuantities(Map.of(99, 2, 100, 12));
+        boolean missing = duckFileDAO.decrementQuantities(Map.of(99, 2, 98, 1));
+
+        // Analyze
+        assertFalse(tooMany);
+        assertFalse(missing);
+        assertEquals(12, duckFileDAO.getDuck(99).getQuantity());
+        assertEquals(11, duckFileDAO.getDuck(100).getQuantity());
+        verify(mockObjectMapper, never()).writeValue(any(File.class), any(Duck[].class));
+    }
+
+    @Test
+    public void testFindDucksIgnoreCase() {
+        // Invoke
+        Duck[] exact = duckFileDAO.findDucks("galactic");
+        Duck[] ignoringCase = duckFileDAO.findDucks("galactic", true);
+
+        // Analyze
+        assertEquals(0, exact.length);
+        assertEquals(2, ignoringCase.length);
+        assertEquals(testDucks[1], ignoringCase[0]);
+        assertEquals(testDucks[3], ignoringCase[1]);
+    }
+
+    @Test
+    public void testFindDucksShortText() {
+        // Invoke
+        Duck[] ducks = duckFileDAO.findDucks("W", false);
+
+        // Analyze
+        assertEquals(1, ducks.length);
+        assertEquals(testDucks[0], ducks[0]);
+        assertEquals(testDucks.length, duckFileDAO.findDucks("", false).length);
+    }
+
+    @Test
+    public void testFindDucksFollowsRename() throws IOException {
+        // Setup
+        Duck renamed = new Duck(101, "Fire Gladiator", 10, 29.99, Size.EXTRA_LARGE, Colors.GREEN,
+                new DuckOutfit(0, 0, 0, 0, 0));
+
+        // Invoke
+        duckFileDAO.updateDuck(renamed);
+        duckFileDAO.deleteDuck(99);
+
+        // Analyze
+        assertEquals(0, duckFileDAO.findDucks("Ice").length);
+        assertEquals(1, duckFileDAO.findDucks("Gladiator").length);
+        Duck[] fire = duckFileDAO.findDucks("fire", true);
+        assertEquals(1, fire.length);
+        assertEquals(renamed, fire[0]);
+    }
+
     @Test
     public void testGetDuck() {
         // Invoke
@@ -110,6 +247,34 @@ public class DuckFileDAOAbstractTest {
         assertEquals(testDucks[3], duck);
     }
 
+    @Test
+    public void testGetDuckByNameIgnoresCase() {
+        // Invoke
+        Duck duck = duckFileDAO.getDuckByName("ICE gladiator");
+
+        // Analyze
+        assertEquals(testDucks[2], duck);
+    }
+
+    @Test
+    public void testGetDuckByNameFollowsRenameAndDelete() throws IOException {
+        // Setup
+        Duck renamed = new Duck(101, "Fire Gladiator", 10, 29.99, Size.EXTRA_LARGE, Colors.GREEN,
+                new DuckOutfit(0, 0, 0, 0, 0));
+
+        // Invoke
+        duckFileDAO.updateDuck(renamed);
+        duckFileDAO.deleteDuck(99);
+
+        // Analyze
+        assertNull(duckFileDAO.getDuckByName("Ice Gladiator"));
+        assertEquals(renamed, duckFileDAO.getDuckByName("fire gladiator"));
+        assertNull(duckFileDAO.getDuckByName("Wi-Fire"));
+        // The old name is free again
+        assertNotNull(duckFileDAO.createDuck(new Duck(0, "Ice Gladiator", 1, 1.0, Size.SMALL, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0))));
+    }
+
     @Test
     public void testGetDuckByNameNonExistant() {
         // Invoke
@@ -220,4 +385,211 @@ public class DuckFileDAOAbstractTest {
                 () -> new DuckFileDAO("doesnt_matter.txt", mockObjectMapper),
                 "IOException not thrown");
     }
+
+    @Test
+    public void testJournalAppendsInsteadOfRewrite() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        byte[] snapshot = Files.readAllBytes(Path.of(filename));
+        DuckFileDAO journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+
+        // Invoke
+        journaled.updateDuck(new Duck(99, "Wi-Fire", 3, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        journaled.deleteDuck(100);
+
+        // Analyze
+        assertEquals(new String(snapshot), new String(Files.readAllBytes(Path.of(filename))));
+        assertEquals(2, Files.readAllLines(Path.of(filename + ".journal")).size());
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalDecrementQuantitiesAppendsBatch() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        DuckFileDAO journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+
+        // Invoke
+        journaled.decrementQuantities(Map.of(99, 2, 101, 10));
+        int records = Files.readAllLines(Path.of(filename + ".journal")).size();
+        journaled.close();
+        journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+
+        // Analyze
+        assertEquals(2, records);
+        assertEquals(10, journaled.getDuck(99).getQuantity());
+        assertEquals(0, journaled.getDuck(101).getQuantity());
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalReplayOnLoad() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        DuckFileDAO journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+        Duck created = journaled.createDuck(
+                new Duck(0, "Lava Lamp", 4, 19.99, Size.LARGE, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0)));
+        journaled.updateDuck(new Duck(99, "Wi-Fire", 3, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        journaled.deleteDuck(100);
+        journaled.close();
+
+        // Invoke
+        journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+
+        // Analyze
+        assertEquals(testDucks.length, journaled.getDucks().length);
+        assertEquals(3, journaled.getDuck(99).getQuantity());
+        assertNull(journaled.getDuck(100));
+        assertEquals("Lava Lamp", journaled.getDuck(created.getId()).getName());
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalCompact() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        DuckFileDAO journaled = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, true, NEVER, 0);
+        journaled.updateDuck(new Duck(99, "Wi-Fire", 3, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        journaled.deleteDuck(100);
+
+        // Invoke
+        journaled.compact();
+
+        // Analyze
+        assertEquals(0, Files.size(Path.of(filename + ".journal")));
+        Duck[] snapshot = TestFiles.OBJECT_MAPPER.readValue(new File(filename), Duck[].class);
+        assertEquals(testDucks.length - 1, snapshot.length);
+        assertEquals(3, snapshot[0].getQuantity());
+        journaled.close();
+    }
+
+    @Test
+    public void testJournalTrimKeepsRecordsAfterMark() throws IOException {
+        // Setup
+        DuckJournal journal = new DuckJournal(tempDir.resolve("ducks.json").toString(), TestFiles.OBJECT_MAPPER);
+        journal.appendDelete(99);
+        long mark = journal.mark();
+        journal.appendDelete(100);
+
+        // Invoke
+        journal.trim(mark);
+        journal.close();
+
+        // Analyze
+        assertEquals(1, journal.getEntries());
+        String remaining = Files.readString(tempDir.resolve("ducks.json.journal"));
+        assertTrue(remaining.contains("\"id\":100"));
+    }
+
+    @Test
+    public void testCloseWaitsForQueuedCompaction() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        SlowWriteObjectMapper objectMapper = new SlowWriteObjectMapper();
+        // A threshold of one hands a compaction to the compactor on the first change
+        DuckFileDAO journaled = new DuckFileDAO(filename, objectMapper, true, NEVER, 1);
+        journaled.deleteDuck(99);
+        journaled.deleteDuck(100);
+
+        // Invoke
+        journaled.close();
+
+        // Analyze
+        assertEquals(1, objectMapper.mostWriting.get());
+        assertEquals(0, Files.size(Path.of(filename + ".journal")));
+        Duck[] snapshot = TestFiles.OBJECT_MAPPER.readValue(new File(filename), Duck[].class);
+        assertEquals(testDucks.length - 2, snapshot.length);
+    }
+
+    @Test
+    public void testSnapshotImportsJsonThenLoadsIt() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        DuckFileDAO snapshotted = openSnapshotDAO(filename);
+        assertTrue(Files.exists(BinarySnapshot.pathFor(filename)));
+        snapshotted.deleteDuck(101);
+        snapshotted.createDuck(new Duck(0, "Lava Lamp", 3, 4.99, Size.LARGE, Colors.RED,
+                new DuckOutfit(0, 0, 0, 0, 0)));
+
+        // Invoke
+        // Break the JSON file so only the snapshot can satisfy the next load
+        Files.writeString(Path.of(filename), "not json");
+        Files.setLastModifiedTime(Path.of(filename), FileTime.fromMillis(0));
+        DuckFileDAO reopened = openSnapshotDAO(filename);
+
+        // Analyze
+        assertNull(reopened.getDuck(101));
+        assertEquals("Wi-Fire", reopened.getDuck(99).getName());
+        assertEquals(1, reopened.findDucks("Lava").length);
+    }
+
+    @Test
+    public void testSnapshotCloseExportsJson() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        DuckFileDAO snapshotted = openSnapshotDAO(filename);
+        snapshotted.deleteDuck(101);
+
+        // Invoke
+        snapshotted.close();
+
+        // Analyze
+        Duck[] exported = TestFiles.OBJECT_MAPPER.readValue(new File(filename), Duck[].class);
+        assertEquals(testDucks.length - 1, exported.length);
+        // The export does not count as a newer file to import
+        assertTrue(BinarySnapshot.isCurrent(filename));
+    }
+
+    @Test
+    public void testSnapshotNewerJsonIsImported() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", testDucks);
+        openSnapshotDAO(filename).deleteDuck(101);
+        TestFiles.write(tempDir, "ducks.json", new Duck[] { testDucks[2] });
+        FileTime snapshotTime = Files.getLastModifiedTime(BinarySnapshot.pathFor(filename));
+        Files.setLastModifiedTime(Path.of(filename), FileTime.fromMillis(snapshotTime.toMillis() + 1000));
+        assertFalse(BinarySnapshot.isCurrent(filename));
+
+        // Invoke
+        DuckFileDAO reopened = openSnapshotDAO(filename);
+
+        // Analyze
+        assertNull(reopened.getDuck(99));
+        assertEquals("Ice Gladiator", reopened.getDuck(101).getName());
+    }
+
+    /**
+     * Opens a DAO on a real file that keeps the ducks in a binary snapshot
+     */
+    private DuckFileDAO openSnapshotDAO(String filename) throws IOException {
+        return new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER, false, 0, 0, true);
+    }
+
+    /**
+     * Object Mapper whose file writes take a while, counting the most that run
+     * at once
+     */
+    private static class SlowWriteObjectMapper extends ObjectMapper {
+        private static final long serialVersionUID = 1L;
+
+        final AtomicInteger writing = new AtomicInteger();
+        final AtomicInteger mostWriting = new AtomicInteger();
+
+        SlowWriteObjectMapper() {
+            configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        }
+
+        @Override
+        public void writeValue(File resultFile, Object value) throws IOException {
+            mostWriting.accumulateAndGet(writing.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(200);
+                super.writeValue(resultFile, value);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                writing.decrementAndGet();
+            }
+        }
+    }
 }
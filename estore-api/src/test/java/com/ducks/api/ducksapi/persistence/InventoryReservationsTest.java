@@ -0,0 +1,220 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Reservation;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Test the inventory reservations
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class InventoryReservationsTest {
+    private DuckDAO mockDuckDAO;
+    private InventoryReservations reservations;
+
+    /**
+     * Before each test, create reservations over a mock Duck DAO holding 5 of
+     * duck 1 and 2 of duck 2
+     */
+    @BeforeEach
+    public void setupInventoryReservations() throws IOException {
+        mockDuckDAO = mock(DuckDAO.class);
+        when(mockDuckDAO.getDuck(1))
+                .thenReturn(new Duck(1, "Cool duck", 5, 0.99, Size.LARGE, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        when(mockDuckDAO.getDuck(2))
+                .thenReturn(new Duck(2, "Cool duck 2", 2, 0.99, Size.LARGE, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)));
+        reservations = new InventoryReservations(mockDuckDAO, 60_000);
+    }
+
+    @Test
+    public void testReserve() throws IOException {
+        // Invoke
+        Reservation reservation = reservations.reserve(0, Map.of(1, 3, 2, 2));
+
+        // Analyze
+        assertNotNull(reservation);
+        assertEquals(0, reservation.getCustomerId());
+        assertEquals(Map.of(1, 3, 2, 2), reservation.getItems());
+        assertEquals(reservation, reservations.getReservation(0));
+        assertEquals(2, reservations.getAvailable(1));
+        assertEquals(0, reservations.getAvailable(2));
+    }
+
+    @Test
+    public void testReserveCannotOversell() throws IOException {
+        // Setup
+        assertNotNull(reservations.reserve(0, Map.of(2, 2)));
+
+        // Invoke
+        Reservation reservation = reservations.reserve(1, Map.of(1, 1, 2, 1));
+
+        // Analyze
+        assertNull(reservation);
+        // Nothing of the failed hold is kept
+        assertEquals(5, reservations.getAvailable(1));
+        assertNull(reservations.getReservation(1));
+    }
+
+    @Test
+    public void testReserveUnknownDuck() throws IOException {
+        assertNull(reservations.reserve(0, Map.of(1, 1, 99, 1)));
+        assertEquals(5, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testReserveReplacesHold() throws IOException {
+        // Setup
+        reservations.reserve(0, Map.of(1, 5));
+
+        // Invoke
+        Reservation reservation = reservations.reserve(0, Map.of(1, 2));
+
+        // Analyze
+        assertNotNull(reservation);
+        assertEquals(3, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testConcurrentReservesNeverOversell() throws Exception {
+        // Setup
+        int customers = 32;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Reservation>> results = new ArrayList<>();
+        for (int customer = 0; customer < customers; ++customer) {
+            int id = customer;
+            results.add(pool.submit(() -> {
+                start.await();
+                return reservations.reserve(id, Map.of(1, 1));
+            }));
+        }
+
+        // Invoke
+        start.countDown();
+        int held = 0;
+        for (Future<Reservation> result : results) {
+            if (result.get(10, TimeUnit.SECONDS) != null) {
+                ++held;
+            }
+        }
+        pool.shutdown();
+
+        // Analyze
+        assertEquals(5, held);
+        assertEquals(0, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testRelease() throws IOException {
+        // Setup
+        reservations.reserve(0, Map.of(1, 4));
+
+        // Invoke
+        boolean released = reservations.release(0);
+
+        // Analyze
+        assertTrue(released);
+        assertFalse(reservations.release(0));
+        assertNull(reservations.getReservation(0));
+        assertEquals(5, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testExpiredHoldIsSweptBack() throws IOException {
+        // Setup
+        reservations = new InventoryReservations(mockDuckDAO, 0);
+        assertNotNull(reservations.reserve(0, Map.of(1, 5)));
+
+        // Invoke
+        reservations.sweep();
+
+        // Analyze
+        assertNull(reservations.getReservation(0));
+        assertEquals(5, reservations.getAvailable(1));
+        assertFalse(reservations.commit(0));
+    }
+
+    @Test
+    public void testCommit() throws IOException {
+        // Setup
+        when(mockDuckDAO.decrementQuantities(Map.of(1, 3))).thenReturn(true);
+        reservations.reserve(0, Map.of(1, 3));
+
+        // Invoke
+        boolean committed = reservations.commit(0);
+
+        // Analyze
+        assertTrue(committed);
+        verify(mockDuckDAO).decrementQuantities(Map.of(1, 3));
+        assertNull(reservations.getReservation(0));
+        // Only the mock's quantity counts now that the hold is given back
+        assertEquals(5, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testCommitWithoutHold() throws IOException {
+        assertFalse(reservations.commit(0));
+        verify(mockDuckDAO, never()).decrementQuantities(any());
+    }
+
+    @Test
+    public void testCommitExpiredHold() throws IOException {
+        // Setup
+        reservations = new InventoryReservations(mockDuckDAO, 0);
+        reservations.reserve(0, Map.of(1, 3));
+
+        // Invoke
+        boolean committed = reservations.commit(0);
+
+        // Analyze
+        assertFalse(committed);
+        verify(mockDuckDAO, never()).decrementQuantities(any());
+        assertEquals(5, reservations.getAvailable(1));
+    }
+
+    @Test
+    public void testSweeperThread() throws Exception {
+        // Setup
+        InventoryReservations swept = new InventoryReservations(mockDuckDAO, 0, 10);
+        swept.reserve(0, Map.of(1, 5));
+
+        // Invoke
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (swept.getAvailable(1) != 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        swept.close();
+
+        // Analyze
+        assertEquals(5, swept.getAvailable(1));
+    }
+}
@@ -0,0 +1,291 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Account;
+import com.ducks.api.ducksapi.model.OwnerAccount;
+import com.ducks.api.ducksapi.model.UserAccount;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the lazily loading Account DAO
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class LazyAccountFileDAOTest {
+    @TempDir
+    Path tempDir;
+
+    String filename;
+    LazyAccountFileDAO accountDAO;
+
+    /**
+     * Before each test, write a few accounts to a temporary file and import them
+     * into a DAO that caches at most two accounts
+     *
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setupLazyAccountDAO() throws IOException {
+        Account[] accounts = new Account[4];
+        accounts[0] = new OwnerAccount();
+        accounts[1] = new UserAccount(1, "Jeff", "Password1");
+        accounts[2] = new UserAccount(2, "Travis", "Password1");
+        accounts[3] = new UserAccount(3, "Bob", "Password1");
+        filename = TestFiles.write(tempDir, "accounts.json", accounts);
+
+        accountDAO = openDAO();
+    }
+
+    @AfterEach
+    public void closeLazyAccountDAO() throws IOException {
+        accountDAO.close();
+    }
+
+    @Test
+    public void testNothingLoadedAtStart() {
+        assertEquals(0, accountDAO.getCacheSize());
+        assertEquals(0, accountDAO.getCacheMisses());
+    }
+
+    @Test
+    public void testGetAccountCachesIt() throws IOException {
+        // Invoke
+        Account first = accountDAO.getAccount(2);
+        Account second = accountDAO.getAccount(2);
+
+        // Analyze
+        assertEquals("Travis", first.getUsername());
+        assertSame(first, second);
+        assertEquals(1, accountDAO.getCacheMisses());
+        assertEquals(1, accountDAO.getCacheHits());
+        assertTrue(accountDAO.getAccount(0) instanceof OwnerAccount);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException {
+        // Invoke
+        accountDAO.getAccount(1);
+        accountDAO.getAccount(2);
+        accountDAO.getAccount(1); // 2 is now the least recently used
+        accountDAO.getAccount(3);
+
+        // Analyze
+        assertEquals(2, accountDAO.getCacheSize());
+        assertEquals(1, accountDAO.getCacheEvictions());
+        long misses = accountDAO.getCacheMisses();
+        accountDAO.getAccount(1);
+        assertEquals(misses, accountDAO.getCacheMisses());
+        accountDAO.getAccount(2);
+        assertEquals(misses + 1, accountDAO.getCacheMisses());
+    }
+
+    @Test
+    public void testListingDoesNotFillCache() throws IOException {
+        assertEquals(4, accountDAO.getAccounts().length);
+        assertEquals(1, accountDAO.findAccounts("Tra").length);
+        assertEquals(0, accountDAO.getCacheSize());
+    }
+
+    @Test
+    public void testListingUsesCachedAndSkipsDeletedFiles() throws IOException {
+        // Setup
+        Account cached = accountDAO.getAccount(1);
+        // As if the account was deleted after the listing took the ids
+        Files.delete(tempDir.resolve("accounts.json" + LazyAccountFileDAO.DIRECTORY_SUFFIX).resolve("3.json"));
+
+        // Invoke
+        Account[] accounts = accountDAO.getAccounts();
+
+        // Analyze
+        assertEquals(3, accounts.length);
+        assertSame(cached, accounts[1]);
+        assertEquals(1, accountDAO.getCacheHits());
+        assertEquals(0, accountDAO.findAccounts("Bob").length);
+    }
+
+    @Test
+    public void testFindAccountByUsername() throws IOException {
+        assertEquals(3, accountDAO.findAccountByUsername("bob").getId());
+        assertNull(accountDAO.findAccountByUsername("nobody"));
+    }
+
+    @Test
+    public void testSlowReadDoesNotHoldLockOrCacheOldCopy() throws Exception {
+        // Setup
+        accountDAO.close();
+        ObjectMapper slowMapper = spy(TestFiles.OBJECT_MAPPER.copy());
+        accountDAO = new LazyAccountFileDAO(filename, slowMapper, 2);
+        // The first account read blocks, after reading, until the test lets it finish
+        AtomicBoolean first = new AtomicBoolean(true);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Object account = invocation.callRealMethod();
+            if (first.getAndSet(false)) {
+                reading.countDown();
+                // Times out if the read holds the lock the test is waiting on
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+            }
+            return account;
+        }).when(slowMapper).readValue(any(File.class), eq(Account.class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Invoke
+        Future<Account> slow = executor.submit(() -> accountDAO.getAccount(1));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        // Writes and lookups go on while the file is read, and push the new copy out
+        assertTrue(accountDAO.changeCity(1, "Rochester"));
+        accountDAO.getAccount(2);
+        accountDAO.getAccount(3);
+        release.countDown();
+        Account read = slow.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Analyze
+        assertEquals("Jeff", read.getUsername());
+        assertEquals("Rochester", accountDAO.getAccount(1).getCity());
+    }
+
+    @Test
+    public void testChangesSurviveReopen() throws IOException {
+        // Setup
+        Account created = accountDAO.createAccount(new UserAccount(0, "Alice", "Password1"));
+        assertTrue(accountDAO.changeCity(1, "Rochester"));
+        Account renamed = new UserAccount(3, "Robert", "Password1");
+        assertNotNull(accountDAO.updateAccount(renamed));
+        assertTrue(accountDAO.deleteAccount(2));
+        accountDAO.close();
+        // Break the accounts file, leaving it older than the directory so only the
+        // directory can satisfy the next open
+        Files.writeString(Path.of(filename), "not json");
+        Files.setLastModifiedTime(Path.of(filename), FileTime.fromMillis(0));
+
+        // Invoke
+        accountDAO = openDAO();
+
+        // Analyze
+        assertEquals(4, created.getId());
+        assertEquals("Alice", accountDAO.getAccount(4).getUsername());
+        assertEquals("Rochester", accountDAO.getAccount(1).getCity());
+        assertEquals(3, accountDAO.findAccountByUsername("robert").getId());
+        assertNull(accountDAO.findAccountByUsername("Bob"));
+        assertNull(accountDAO.getAccount(2));
+        assertEquals(5, accountDAO.createAccount(new UserAccount(0, "Carol", "Password1")).getId());
+    }
+
+    @Test
+    public void testSwitchBackToFileStorageKeepsChanges() throws IOException {
+        // Setup
+        assertTrue(accountDAO.changeCity(1, "Rochester"));
+        assertTrue(accountDAO.deleteAccount(2));
+
+        // Invoke
+        // Until the lazy storage stops cleanly the file is missing its changes
+        assertThrows(IOException.class, () -> new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER));
+        accountDAO.close();
+        AccountFileDAO fileDAO = new AccountFileDAO(filename, TestFiles.OBJECT_MAPPER);
+
+        // Analyze
+        assertEquals("Rochester", fileDAO.getAccount(1).getCity());
+        assertNull(fileDAO.getAccount(2));
+        assertEquals(3, fileDAO.getAccounts().length);
+    }
+
+    @Test
+    public void testNewerAccountsFileIsImportedAgain() throws IOException {
+        // Setup
+        accountDAO.close();
+        Path index = tempDir.resolve("accounts.json" + LazyAccountFileDAO.DIRECTORY_SUFFIX)
+                .resolve(LazyAccountFileDAO.INDEX_FILE);
+        // As if the file storage changed the accounts after the export
+        TestFiles.write(tempDir, "accounts.json",
+                new Account[] { new OwnerAccount(), new UserAccount(1, "Zed", "Password1") });
+        Files.setLastModifiedTime(Path.of(filename),
+                FileTime.fromMillis(Files.getLastModifiedTime(index).toMillis() + 1000));
+
+        // Invoke
+        accountDAO = openDAO();
+
+        // Analyze
+        assertEquals(1, accountDAO.findAccountByUsername("zed").getId());
+        assertNull(accountDAO.findAccountByUsername("Jeff"));
+        assertNull(accountDAO.getAccount(2));
+        assertEquals(2, accountDAO.getAccounts().length);
+    }
+
+    @Test
+    public void testUnfoldedJournalIsNotImported() throws IOException {
+        // Setup
+        accountDAO.close();
+        Path journal = Path.of(filename + Journal.JOURNAL_SUFFIX);
+        Files.writeString(journal, "{\"op\":\"DELETE\",\"id\":1}\n");
+        Files.setLastModifiedTime(Path.of(filename), FileTime.fromMillis(System.currentTimeMillis() + 1000));
+
+        // Invoke
+        assertThrows(IOException.class, this::openDAO);
+
+        // Analyze
+        Files.delete(journal);
+        accountDAO = openDAO();
+        assertEquals("Jeff", accountDAO.getAccount(1).getUsername());
+    }
+
+    @Test
+    public void testCreateDuplicate() throws IOException {
+        assertNull(accountDAO.createAccount(new UserAccount(0, "JEFF", "Password1")));
+    }
+
+    @Test
+    public void testChangePasswordWrongOriginal() throws IOException {
+        assertFalse(accountDAO.changePassword(1, "wrong", "Password2"));
+        assertTrue(accountDAO.changePassword(1, "Password1", "Password2"));
+        assertFalse(accountDAO.changePassword(9, "Password1", "Password2"));
+    }
+
+    @Test
+    public void testGetAccountsPage() throws IOException {
+        Page<Account> first = accountDAO.getAccountsPage(null, 3);
+        Page<Account> second = accountDAO.getAccountsPage(first.getNextCursor(), 3);
+
+        assertEquals(3, first.getItems().size());
+        assertEquals(1, second.getItems().size());
+        assertNull(second.getNextCursor());
+    }
+
+    /**
+     * Opens a DAO on the temporary file that caches at most two accounts
+     */
+    private LazyAccountFileDAO openDAO() throws IOException {
+        return new LazyAccountFileDAO(filename, TestFiles.OBJECT_MAPPER, 2);
+    }
+}
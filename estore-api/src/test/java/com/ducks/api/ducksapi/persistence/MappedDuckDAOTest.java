@@ -0,0 +1,198 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+
+/**
+ * Test the memory-mapped Duck DAO
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class MappedDuckDAOTest {
+    @TempDir
+    Path tempDir;
+
+    String filename;
+    MappedDuckDAO mappedDuckDAO;
+
+    /**
+     * Before each test, write a small catalog to a temporary JSON file and
+     * import it into a mapped DAO
+     *
+     * @throws IOException
+     */
+    @BeforeEach
+    public void setupMappedDAO() throws IOException {
+        Duck[] ducks = new Duck[3];
+        ducks[0] = new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(1, 2, 3, 4, 5));
+        ducks[1] = new Duck(4, "Ice Gladiator", 10, 29.99, Size.SMALL, Colors.GREEN, new DuckOutfit(0, 0, 0, 0, 0));
+        ducks[2] = new Duck(7, "Fire Lord", 3, 19.99, Size.LARGE, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0));
+        filename = TestFiles.write(tempDir, "ducks.json", ducks);
+
+        mappedDuckDAO = new MappedDuckDAO(filename, TestFiles.OBJECT_MAPPER);
+    }
+
+    @AfterEach
+    public void closeMappedDAO() throws IOException {
+        mappedDuckDAO.close();
+    }
+
+    @Test
+    public void testImport() throws IOException {
+        Duck[] ducks = mappedDuckDAO.getDucks();
+
+        assertEquals(3, ducks.length);
+        assertEquals(7, ducks[2].getId());
+        Duck duck = mappedDuckDAO.getDuck(1);
+        assertEquals("Wi-Fire", duck.getName());
+        assertEquals(12, duck.getQuantity());
+        assertEquals(Size.MEDIUM, duck.getSize());
+        assertEquals(Colors.BLUE, duck.getColor());
+        assertEquals(5, duck.getJewelryUID());
+        assertTrue(Files.exists(Path.of(filename + MappedDuckDAO.SLOTS_SUFFIX)));
+    }
+
+    @Test
+    public void testReopenReadsSlotFile() throws IOException {
+        // Setup
+        mappedDuckDAO.decrementQuantities(Map.of(1, 2));
+        mappedDuckDAO.deleteDuck(4);
+        Duck created = mappedDuckDAO.createDuck(
+                new Duck(0, "Lava Lamp", 3, 4.99, Size.LARGE, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0)));
+        mappedDuckDAO.close();
+        // Break the JSON file so only the slot file can satisfy the next open
+        Files.writeString(Path.of(filename), "not json");
+
+        // Invoke
+        mappedDuckDAO = new MappedDuckDAO(filename, TestFiles.OBJECT_MAPPER);
+
+        // Analyze
+        assertEquals(10, mappedDuckDAO.getDuck(1).getQuantity());
+        assertNull(mappedDuckDAO.getDuck(4));
+        assertEquals("Lava Lamp", mappedDuckDAO.getDuck(created.getId()).getName());
+        assertEquals(created.getId(), mappedDuckDAO.getDuckByName("lava lamp").getId());
+        assertEquals(8, created.getId());
+    }
+
+    @Test
+    public void testDecrementQuantities() throws IOException {
+        long before = mappedDuckDAO.getCatalogVersion();
+
+        assertTrue(mappedDuckDAO.decrementQuantities(Map.of(1, 12, 7, 1)));
+        assertFalse(mappedDuckDAO.decrementQuantities(Map.of(4, 1, 7, 3)));
+
+        assertEquals(0, mappedDuckDAO.getDuck(1).getQuantity());
+        assertEquals(2, mappedDuckDAO.getDuck(7).getQuantity());
+        // The failed call changed nothing
+        assertEquals(10, mappedDuckDAO.getDuck(4).getQuantity());
+        assertNotEquals(before, mappedDuckDAO.getCatalogVersion());
+    }
+
+    @Test
+    public void testCreateDuplicateName() throws IOException {
+        assertNull(mappedDuckDAO.createDuck(
+                new Duck(0, "wi-fire", 1, 1.99, Size.SMALL, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0))));
+    }
+
+    @Test
+    public void testUpdateRename() throws IOException {
+        // Setup
+        Duck duck = mappedDuckDAO.getDuck(7);
+        duck.setName("Water Lord");
+        duck.setQuantity(9);
+
+        // Invoke
+        Duck result = mappedDuckDAO.updateDuck(duck);
+
+        // Analyze
+        assertNotNull(result);
+        assertEquals("Water Lord", mappedDuckDAO.getDuck(7).getName());
+        assertEquals(9, mappedDuckDAO.getDuck(7).getQuantity());
+        assertNull(mappedDuckDAO.getDuckByName("Fire Lord"));
+        assertEquals(7, mappedDuckDAO.getDuckByName("water lord").getId());
+        assertEquals(1, mappedDuckDAO.findDucks("Fire").length);
+        assertEquals(1, mappedDuckDAO.findDucks("water", true).length);
+    }
+
+    @Test
+    public void testUpdateMissing() throws IOException {
+        assertNull(mappedDuckDAO.updateDuck(
+                new Duck(99, "Ghost", 1, 1.99, Size.SMALL, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0))));
+    }
+
+    @Test
+    public void testDeleteReusesSlot() throws IOException {
+        // Setup
+        long slotFileSize = Files.size(Path.of(filename + MappedDuckDAO.SLOTS_SUFFIX));
+
+        // Invoke
+        assertTrue(mappedDuckDAO.deleteDuck(4));
+        assertFalse(mappedDuckDAO.deleteDuck(4));
+        mappedDuckDAO.createDuck(
+                new Duck(0, "Lava Lamp", 3, 4.99, Size.LARGE, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0)));
+
+        // Analyze
+        assertEquals(3, mappedDuckDAO.getDucks().length);
+        assertEquals(0, mappedDuckDAO.findDucks("Gladiator").length);
+        assertEquals(slotFileSize, Files.size(Path.of(filename + MappedDuckDAO.SLOTS_SUFFIX)));
+    }
+
+    @Test
+    public void testGrowsPastInitialMapping() throws IOException {
+        // Invoke
+        for (int i = 0; i < 3000; ++i) {
+            assertNotNull(mappedDuckDAO.createDuck(
+                    new Duck(0, "Duck " + i, i, 1.99, Size.SMALL, Colors.RED, new DuckOutfit(0, 0, 0, 0, 0))));
+        }
+        mappedDuckDAO.close();
+        mappedDuckDAO = new MappedDuckDAO(filename, TestFiles.OBJECT_MAPPER);
+
+        // Analyze
+        assertEquals(3003, mappedDuckDAO.getDucks().length);
+        assertEquals(2999, mappedDuckDAO.getDuckByName("Duck 2999").getQuantity());
+    }
+
+    @Test
+    public void testGetDucksPage() throws IOException {
+        Page<Duck> first = mappedDuckDAO.getDucksPage(null, 2);
+        Page<Duck> second = mappedDuckDAO.getDucksPage(first.getNextCursor(), 2);
+
+        assertEquals(2, first.getItems().size());
+        assertEquals(4, first.getItems().get(1).getId());
+        assertEquals(1, second.getItems().size());
+        assertEquals(7, second.getItems().get(0).getId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void testNotASlotFile() throws IOException {
+        // Setup
+        mappedDuckDAO.close();
+        Files.write(Path.of(filename + MappedDuckDAO.SLOTS_SUFFIX), new byte[64]);
+
+        // Invoke and Analyze
+        assertThrows(IOException.class, () -> new MappedDuckDAO(filename, TestFiles.OBJECT_MAPPER));
+    }
+}
@@ -0,0 +1,99 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.ducks.api.ducksapi.model.Colors;
+import com.ducks.api.ducksapi.model.Duck;
+import com.ducks.api.ducksapi.model.DuckOutfit;
+import com.ducks.api.ducksapi.model.Size;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Test the flight recorder events committed by the persistence tier
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class PersistenceEventsTest {
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Runs an action under a recording of the given events
+     *
+     * @return The events recorded
+     */
+    private List<RecordedEvent> record(String eventName, IORunnable action) throws IOException {
+        Path dump = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(e -> e.getEventType().getName().equals(eventName))
+                .collect(Collectors.toList());
+    }
+
+    private interface IORunnable {
+        void run() throws IOException;
+    }
+
+    @Test
+    public void testFileIoEvents() throws IOException {
+        // Setup
+        String filename = TestFiles.write(tempDir, "ducks.json", new Duck[] {
+                new Duck(1, "Wi-Fire", 12, 9.99, Size.MEDIUM, Colors.BLUE, new DuckOutfit(0, 0, 0, 0, 0)) });
+
+        // Invoke
+        List<RecordedEvent> events = record("com.ducks.api.ducksapi.FileIo", () -> {
+            DuckDAO dao = new DuckFileDAO(filename, TestFiles.OBJECT_MAPPER);
+            dao.createDuck(new Duck(0, "Galactic Sun", 3, 19.99, Size.SMALL, Colors.RED,
+                    new DuckOutfit(0, 0, 0, 0, 0)));
+        });
+        events.removeIf(e -> !e.getString("path").startsWith(tempDir.toString()));
+
+        // Analyze
+        assertEquals(2, events.size());
+        RecordedEvent load = events.get(0);
+        assertEquals("load", load.getString("operation"));
+        assertEquals("ducks.json", load.getString("file"));
+        assertEquals(1, load.getInt("records"));
+        RecordedEvent save = events.get(1);
+        assertEquals("save", save.getString("operation"));
+        assertEquals(2, save.getInt("records"));
+        assertEquals(new File(filename).length(), save.getLong("bytes"));
+    }
+
+    @Test
+    public void testLockWaitEvents() throws IOException {
+        // Invoke
+        List<RecordedEvent> events = record("com.ducks.api.ducksapi.LockWait", () -> {
+            // A free lock is too quick to record
+            PersistenceMetrics.lockAcquired("data/events.json", System.nanoTime());
+            PersistenceMetrics.lockAcquired("data/events.json", System.nanoTime() - 5_000_000);
+        });
+        // Background threads left by other tests may record waits of their own
+        events.removeIf(e -> !"events.json".equals(e.getString("file")));
+
+        // Analyze
+        assertEquals(1, events.size());
+        assertTrue(events.get(0).getLong("waited") >= 5_000_000);
+    }
+}
@@ -6,18 +6,32 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.ducks.api.ducksapi.model.ShoppingCart;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -29,14 +43,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 @Tag("Persistence-tier")
 public class ShoppingCartFileDAOTest {
+    @TempDir
+    Path tempDir;
 
     ShoppingCartFileDAO cartFileDAO;
     ShoppingCart[] testCarts;
     ObjectMapper mockObjectMapper;
+    String filename; // A real cart file, for the tests of the shards
 
     /**
      * Before each test, we will create and inject a Mock Object Mapper to
-     * isolate the tests from the underlying file
+     * isolate the tests from the underlying file, and write a few carts to a
+     * temporary file for the tests that split them across several files
      * 
      * @throws IOException
      */
@@ -59,6 +77,27 @@ public class ShoppingCartFileDAOTest {
                 .readValue(new File("doesnt_matter.txt"), ShoppingCart[].class))
                 .thenReturn(testCarts);
         cartFileDAO = new ShoppingCartFileDAO("doesnt_matter.txt", mockObjectMapper);
+
+        filename = TestFiles.write(tempDir, "carts.json", new ShoppingCart[] {
+                new ShoppingCart(1, Map.of("1", 2)),
+                new ShoppingCart(2),
+                new ShoppingCart(3, Map.of("4", 1)),
+                new ShoppingCart(4) });
+    }
+
+    @Test
+    public void testGetCartsPage() {
+        // Invoke
+        Page<ShoppingCart> first = cartFileDAO.getShoppingCartsPage(null, 2);
+        Page<ShoppingCart> second = cartFileDAO.getShoppingCartsPage(first.getNextCursor(), 2);
+
+        // Analyze
+        assertEquals(2, first.getItems().size());
+        assertEquals(testCarts[1], first.getItems().get(1));
+        assertNotNull(first.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertEquals(testCarts[2], second.getItems().get(0));
+        assertNull(second.getNextCursor());
     }
 
     @Test
@@ -91,6 +130,60 @@ public class ShoppingCartFileDAOTest {
         assertNull(cart, "cart was not null when it should be");
     }
 
+    @Test
+    public void testSlowWriteDoesNotBlockOtherCustomers() throws Exception {
+        // Setup
+        // The first write blocks until the test lets it finish
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(mockObjectMapper).writeValue(any(File.class), any(ShoppingCart[].class));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // Invoke
+        Future<ShoppingCart> slow = executor
+                .submit(() -> cartFileDAO.updateShoppingCart(new ShoppingCart(0, Map.of("1", 1))));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        ShoppingCart other = cartFileDAO.getShoppingCart(1);
+        ShoppingCart updatedWhileWriting = cartFileDAO.getShoppingCart(0);
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Analyze
+        assertEquals(testCarts[1], other);
+        assertEquals(Map.of("1", 1), updatedWhileWriting.getItems());
+    }
+
+    @Test
+    public void testConcurrentUpdatesToDifferentCarts() throws Exception {
+        // Setup
+        ExecutorService executor = Executors.newFixedThreadPool(testCarts.length);
+        List<Future<ShoppingCart>> results = new ArrayList<>();
+
+        // Invoke
+        for (int round = 1; round <= 50; ++round) {
+            for (ShoppingCart cart : testCarts) {
+                int quantity = round;
+                results.add(executor.submit(() -> cartFileDAO
+                        .updateShoppingCart(new ShoppingCart(cart.getCustomerId(), Map.of("1", quantity)))));
+            }
+        }
+        for (Future<ShoppingCart> result : results) {
+            assertNotNull(result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // Analyze
+        assertEquals(testCarts.length, cartFileDAO.getShoppingCarts().length);
+        for (ShoppingCart cart : testCarts) {
+            assertNotNull(cartFileDAO.getShoppingCart(cart.getCustomerId()).getItems().get("1"));
+        }
+    }
+
     @Test
     public void testDeleteValidShoppingCart() {
         boolean didDelete = assertDoesNotThrow(() -> cartFileDAO.deleteShoppingCart(0),
@@ -184,4 +277,160 @@ public class ShoppingCartFileDAOTest {
         ShoppingCart actual = cartFileDAO.getShoppingCart(cart.getCustomerId());
         assertNotEquals(actual, cart, "The actual and cart objects should not be equal");
     }
+
+    @Test
+    public void testMigratesFromSingleFile() throws IOException {
+        // Invoke
+        ShoppingCartFileDAO cartDAO = openShardedDAO(2);
+
+        // Analyze
+        assertEquals(4, cartDAO.getShoppingCarts().length);
+        assertEquals("2", Files.readString(Path.of(filename + ".shards")));
+        assertEquals(2, readShard(0, 2).length);
+        assertEquals(2, readShard(1, 2).length);
+        assertEquals(Map.of("4", 1), readShard(1, 2)[1].getItems());
+        // The single file is left as it was
+        assertEquals(4, TestFiles.OBJECT_MAPPER.readValue(new File(filename), ShoppingCart[].class).length);
+    }
+
+    @Test
+    public void testChangeOnlyWritesItsShard() throws IOException {
+        // Setup
+        ShoppingCartFileDAO cartDAO = openShardedDAO(2);
+        Path odd = Path.of(shardFile(1, 2));
+        Path even = Path.of(shardFile(0, 2));
+        Files.setLastModifiedTime(odd, FileTime.fromMillis(0));
+        Files.setLastModifiedTime(even, FileTime.fromMillis(0));
+
+        // Invoke
+        cartDAO.updateShoppingCart(new ShoppingCart(2, Map.of("3", 3)));
+        cartDAO.createShoppingCart(new ShoppingCart(6));
+
+        // Analyze
+        assertEquals(0, Files.getLastModifiedTime(odd).toMillis());
+        assertTrue(Files.getLastModifiedTime(even).toMillis() > 0);
+        assertEquals(3, readShard(0, 2).length);
+    }
+
+    @Test
+    public void testReopenReadsShards() throws IOException {
+        // Setup
+        ShoppingCartFileDAO cartDAO = openShardedDAO(3);
+        cartDAO.deleteShoppingCart(3);
+        cartDAO.updateShoppingCart(new ShoppingCart(1, Map.of("5", 5)));
+        // Break the single file so only the shards can satisfy the next open
+        Files.writeString(Path.of(filename), "not json");
+
+        // Invoke
+        ShoppingCartFileDAO reopened = openShardedDAO(3);
+
+        // Analyze
+        assertEquals(3, reopened.getShoppingCarts().length);
+        assertNull(reopened.getShoppingCart(3));
+        assertEquals(Map.of("5", 5), reopened.getShoppingCart(1).getItems());
+    }
+
+    @Test
+    public void testReshard() throws IOException {
+        // Setup
+        openShardedDAO(2).deleteShoppingCart(4);
+
+        // Invoke
+        ShoppingCartFileDAO cartDAO = openShardedDAO(3);
+
+        // Analyze
+        assertEquals(3, cartDAO.getShoppingCarts().length);
+        assertEquals("3", Files.readString(Path.of(filename + ".shards")));
+        assertFalse(Files.exists(Path.of(shardFile(0, 2))));
+        assertFalse(Files.exists(Path.of(shardFile(1, 2))));
+        assertEquals(1, readShard(2, 3).length);
+    }
+
+    @Test
+    public void testBackToSingleFile() throws IOException {
+        // Setup
+        openShardedDAO(2).deleteShoppingCart(4);
+
+        // Invoke
+        ShoppingCartFileDAO cartDAO = openShardedDAO(1);
+
+        // Analyze
+        assertEquals(3, cartDAO.getShoppingCarts().length);
+        assertFalse(Files.exists(Path.of(filename + ".shards")));
+        assertFalse(Files.exists(Path.of(shardFile(1, 2))));
+        assertEquals(3, TestFiles.OBJECT_MAPPER.readValue(new File(filename), ShoppingCart[].class).length);
+    }
+
+    @Test
+    public void testWriteBehindFlushesEveryShard() throws IOException {
+        // Setup
+        ShoppingCartFileDAO cartDAO = new ShoppingCartFileDAO(filename, TestFiles.OBJECT_MAPPER, true, 5, 100,
+                false, 2);
+
+        // Invoke
+        cartDAO.updateShoppingCart(new ShoppingCart(1, Map.of("9", 9)));
+        cartDAO.updateShoppingCart(new ShoppingCart(2, Map.of("8", 8)));
+        cartDAO.flush();
+        cartDAO.close();
+
+        // Analyze
+        assertEquals(Map.of("9", 9), readShard(1, 2)[0].getItems());
+        assertEquals(Map.of("8", 8), readShard(0, 2)[0].getItems());
+    }
+
+    @Test
+    public void testNoShards() {
+        assertThrows(IllegalArgumentException.class, () -> openShardedDAO(0));
+    }
+
+    @Test
+    public void testShardSkipsDeletedCarts() throws IOException {
+        // Setup
+        ShoppingCartFileDAO cartDAO = openShardedDAO(2);
+
+        // Invoke
+        cartDAO.deleteShoppingCart(2);
+        cartDAO.createShoppingCart(new ShoppingCart(6));
+        cartDAO.deleteShoppingCart(6);
+        cartDAO.createShoppingCart(new ShoppingCart(2, Map.of("7", 7)));
+
+        // Analyze
+        ShoppingCart[] even = readShard(0, 2);
+        assertEquals(2, even.length);
+        assertEquals(Map.of("7", 7), even[0].getItems());
+        assertEquals(4, even[1].getCustomerId());
+    }
+
+    @Test
+    public void testBinarySnapshot() throws IOException {
+        // Setup
+        ShoppingCartFileDAO snapshotted = new ShoppingCartFileDAO(filename, TestFiles.OBJECT_MAPPER, false, 0, 0,
+                true);
+        snapshotted.updateShoppingCart(new ShoppingCart(1, Map.of("2", 3)));
+
+        // Invoke
+        // Break the JSON file so only the snapshot can satisfy the next load
+        Files.writeString(Path.of(filename), "not json");
+        Files.setLastModifiedTime(Path.of(filename), FileTime.fromMillis(0));
+        ShoppingCartFileDAO reopened = new ShoppingCartFileDAO(filename, TestFiles.OBJECT_MAPPER, false, 0, 0, true);
+
+        // Analyze
+        assertEquals(Map.of("2", 3), reopened.getShoppingCart(1).getItems());
+    }
+
+    /**
+     * Opens a DAO on the temporary file that splits the carts into a number of
+     * shards
+     */
+    private ShoppingCartFileDAO openShardedDAO(int shards) throws IOException {
+        return new ShoppingCartFileDAO(filename, TestFiles.OBJECT_MAPPER, false, 0, 0, false, shards);
+    }
+
+    private String shardFile(int index, int shards) {
+        return filename + ".shard-" + index + "-of-" + shards;
+    }
+
+    private ShoppingCart[] readShard(int index, int shards) throws IOException {
+        return TestFiles.OBJECT_MAPPER.readValue(new File(shardFile(index, shards)), ShoppingCart[].class);
+    }
 }
@@ -0,0 +1,44 @@
+package com.ducks.api.ducksapi.persistence;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Writes the files of the persistence tests that need real ones rather than a
+ * mock Object Mapper
+ *
+ * @author SWEN-261-06 Team 8
+ */
+final class TestFiles {
+    /**
+     * Reads and writes the files the way the application's Object Mapper does,
+     * which skips read-only properties such as a duck's outfitAsArray
+     */
+    static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private TestFiles() {
+    }
+
+    /**
+     * Writes records to a JSON file
+     *
+     * @param dir     The directory to write to, usually the test's temporary
+     *                directory
+     * @param name    The name of the file
+     * @param records What to write to it
+     *
+     * @return The path of the file, in the form the DAOs take it
+     *
+     * @throws IOException if the file cannot be written
+     */
+    static String write(Path dir, String name, Object records) throws IOException {
+        File file = dir.resolve(name).toFile();
+        OBJECT_MAPPER.writeValue(file, records);
+        return file.getPath();
+    }
+}
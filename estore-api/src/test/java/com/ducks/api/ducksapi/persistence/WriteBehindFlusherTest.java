@@ -0,0 +1,107 @@
+package com.ducks.api.ducksapi.persistence;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.ducks.api.ducksapi.model.ShoppingCart;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Test the write-behind flusher and the write-behind mode of the ShoppingCart
+ * File DAO
+ *
+ * @author SWEN-261-06 Team 8
+ */
+@Tag("Persistence-tier")
+public class WriteBehindFlusherTest {
+
+    @Test
+    public void testCoalescesChanges() throws IOException {
+        // Setup
+        AtomicInteger flushes = new AtomicInteger();
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", flushes::incrementAndGet, 50, 10_000);
+
+        // Invoke
+        long generation = 0;
+        for (int i = 0; i < 1000; ++i) {
+            generation = flusher.markDirty();
+        }
+        flusher.awaitDurable(generation);
+        flusher.close();
+
+        // Analyze
+        assertTrue(flushes.get() >= 1 && flushes.get() <= 2, "flushed " + flushes.get() + " times");
+    }
+
+    @Test
+    public void testMaxMutationsForcesFlush() throws IOException {
+        // Setup
+        AtomicInteger flushes = new AtomicInteger();
+        // A window long enough that only the mutation limit can trigger a flush
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", flushes::incrementAndGet, 3_600_000, 5);
+
+        // Invoke
+        for (int i = 0; i < 5; ++i) {
+            flusher.markDirty();
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (flushes.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        flusher.close();
+
+        // Analyze
+        assertEquals(1, flushes.get());
+    }
+
+    @Test
+    public void testAwaitDurableReportsFailure() {
+        // Setup
+        WriteBehindFlusher flusher = new WriteBehindFlusher("test-flusher", () -> {
+            throw new IOException("disk full");
+        }, 1, 1);
+
+        // Invoke & Analyze
+        long generation = flusher.markDirty();
+        assertThrows(IOException.class, () -> flusher.awaitDurable(generation));
+        flusher.close();
+    }
+
+    @Test
+    public void testShoppingCartWriteBehind() throws IOException {
+        // Setup
+        ObjectMapper mockObjectMapper = mock(ObjectMapper.class);
+        when(mockObjectMapper.readValue(new File("doesnt_matter.txt"), ShoppingCart[].class))
+                .thenReturn(new ShoppingCart[] { new ShoppingCart(0) });
+        ShoppingCartFileDAO cartFileDAO = new ShoppingCartFileDAO("doesnt_matter.txt", mockObjectMapper, true,
+                3_600_000, 10_000);
+
+        // Invoke
+        for (int i = 0; i < 100; ++i) {
+            cartFileDAO.updateShoppingCart(new ShoppingCart(0, Map.of("1", i + 1)));
+        }
+        assertDoesNotThrow(() -> cartFileDAO.flush());
+        cartFileDAO.close();
+
+        // Analyze
+        verify(mockObjectMapper, atLeastOnce()).writeValue(any(File.class), any(ShoppingCart[].class));
+        verify(mockObjectMapper, atMost(2)).writeValue(any(File.class), any(ShoppingCart[].class));
+        assertEquals(Map.of("1", 100), cartFileDAO.getShoppingCart(0).getItems());
+    }
+}